@@ -0,0 +1,155 @@
+package com.littlelibrary.config;
+
+import com.littlelibrary.service.CoShelvingIndex;
+import com.littlelibrary.service.EnrichmentQueue;
+import com.littlelibrary.service.GoogleBooksService;
+import com.littlelibrary.service.IsbnLookupCache;
+import com.littlelibrary.service.OCRService;
+import com.littlelibrary.service.RecommendationCache;
+import com.littlelibrary.service.RecommendationQueryService;
+import com.littlelibrary.service.SimilarityIndex;
+import com.littlelibrary.service.UserIsbnIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exposes the getStats() counters of the caches and indexes as gauges:
+ * {@code littlelibrary.stats{component, stat}} for every entry, and
+ * {@code littlelibrary.cache.hit.ratio{cache}} for the share of lookups answered without
+ * going to the next tier (database, Google Books, OpenAI or Rekognition).
+ *
+ * Upstream calls are timed by UpstreamMetrics; HTTP routes, the JDBC pool and Hibernate are
+ * instrumented by actuator itself.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // A scrape reads every gauge of a component; they share one getStats() call
+    private static final long SNAPSHOT_TTL_MS = 1000;
+
+    static final List<String> QUERY_STATS = Stream.of(RecommendationQueryService.AI,
+            RecommendationQueryService.GOOGLE, RecommendationQueryService.LOCAL)
+        .flatMap(source -> Stream.of("calls", "avgMs", "maxMs", "timeouts", "errors").map(stat -> source + "." + stat))
+        .toList();
+
+    @Bean
+    public MeterBinder serviceStatsMetrics(IsbnLookupCache isbnLookupCache, GoogleBooksService googleBooksService,
+                                           UserIsbnIndex userIsbnIndex, RecommendationCache recommendationCache,
+                                           EnrichmentQueue enrichmentQueue,
+                                           RecommendationQueryService recommendationQueryService,
+                                           SimilarityIndex similarityIndex, CoShelvingIndex coShelvingIndex,
+                                           OCRService ocrService) {
+        return registry -> {
+            Snapshot isbnLookup = bind(registry, "isbn_lookup_cache", isbnLookupCache::getStats,
+                List.of("size", "hits", "negativeHits", "databaseHits", "misses", "evictions"));
+            Snapshot coalescing = bind(registry, "google_books_coalescing", googleBooksService::getCoalescingStats,
+                List.of("inFlight", "executed", "coalesced"));
+            Snapshot userIsbns = bind(registry, "user_isbn_index", userIsbnIndex::getStats,
+                List.of("users", "isbns", "estimatedBytes", "hits", "loads", "databaseFallbacks", "evictions"));
+            Snapshot recommendations = bind(registry, "recommendation_cache", recommendationCache::getStats,
+                List.of("size", "hits", "databaseHits", "modelCalls", "fallbacks", "evictions"));
+            bind(registry, "enrichment_queue", enrichmentQueue::getStats,
+                List.of("pending", "running", "failed", "lagSeconds", "inFlight", "completed", "retried", "failedTotal"));
+            bind(registry, "recommendation_query", recommendationQueryService::getStats, QUERY_STATS);
+            bind(registry, "similarity_index", similarityIndex::getStats,
+                List.of("books", "terms", "queries", "avgQueryMicros", "upserts"));
+            bind(registry, "coshelving_index", coShelvingIndex::getStats,
+                List.of("books", "neighbours", "links", "rebuilds", "lastRebuildMs", "lookups"));
+            Snapshot scans = bind(registry, "ocr", ocrService::getStats,
+                List.of("localAttempts", "localHits", "localHitPercent", "avgLocalDecodeMicros",
+                    "maxLocalDecodeMicros", "remoteCalls", "remoteHits", "avgRemoteMs", "remoteTimeouts",
+                    "remoteFailures", "cache.size", "cache.hits", "cache.nearHits", "cache.negativeHits",
+                    "cache.misses", "cache.evictions"));
+
+            hitRatio(registry, "isbn_lookup", isbnLookup,
+                List.of("hits", "negativeHits"), List.of("databaseHits", "misses"));
+            hitRatio(registry, "google_books_coalescing", coalescing,
+                List.of("coalesced"), List.of("executed"));
+            hitRatio(registry, "user_isbn_index", userIsbns,
+                List.of("hits"), List.of("loads", "databaseFallbacks"));
+            hitRatio(registry, "recommendations", recommendations,
+                List.of("hits"), List.of("databaseHits", "modelCalls", "fallbacks"));
+            hitRatio(registry, "scan_results", scans,
+                List.of("cache.hits", "cache.negativeHits"), List.of("cache.misses"));
+        };
+    }
+
+    /**
+     * Registers one gauge per listed stat. The names are fixed rather than read from a first
+     * getStats() call, so a component that cannot answer at startup still gets its gauges.
+     */
+    static Snapshot bind(MeterRegistry registry, String component, Supplier<Map<String, Long>> stats,
+                         List<String> statNames) {
+        Snapshot snapshot = new Snapshot(component, stats);
+        for (String stat : statNames) {
+            Gauge.builder("littlelibrary.stats", snapshot, s -> s.value(stat))
+                .tags("component", component, "stat", stat)
+                .register(registry);
+        }
+        return snapshot;
+    }
+
+    private static void hitRatio(MeterRegistry registry, String cache, Snapshot snapshot,
+                                 List<String> hitKeys, List<String> missKeys) {
+        Gauge.builder("littlelibrary.cache.hit.ratio", snapshot, s -> {
+                double hits = 0;
+                double total = 0;
+                for (String key : hitKeys) {
+                    hits += s.value(key);
+                }
+                for (String key : missKeys) {
+                    total += s.value(key);
+                }
+                total += hits;
+                return total == 0 ? 0 : hits / total;
+            })
+            .tags("cache", cache)
+            .description("Share of lookups answered by the cache since startup")
+            .register(registry);
+    }
+
+    /**
+     * getStats() of one component, reused for SNAPSHOT_TTL_MS; the last good one is kept if
+     * it fails (the enrichment queue's counts come from the database).
+     */
+    static final class Snapshot {
+        private static final Logger log = LoggerFactory.getLogger(Snapshot.class);
+
+        private final String component;
+        private final Supplier<Map<String, Long>> stats;
+        private Map<String, Long> values = Map.of();
+        private long takenAt;
+
+        Snapshot(String component, Supplier<Map<String, Long>> stats) {
+            this.component = component;
+            this.stats = stats;
+        }
+
+        synchronized Map<String, Long> get() {
+            long now = System.currentTimeMillis();
+            if (takenAt == 0 || now - takenAt >= SNAPSHOT_TTL_MS) {
+                takenAt = now;
+                try {
+                    values = stats.get();
+                } catch (RuntimeException e) {
+                    log.warn("Could not read {} stats: {}", component, e.getMessage());
+                }
+            }
+            return values;
+        }
+
+        double value(String stat) {
+            Long value = get().get(stat);
+            return value == null ? 0 : value;
+        }
+    }
+}
@@ -2,16 +2,34 @@ package com.littlelibrary.controller;
 
 import com.littlelibrary.dto.BookDTO;
 import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BatchScanRequest;
+import com.littlelibrary.dto.BatchScanResult;
+import com.littlelibrary.dto.LibraryPage;
 import com.littlelibrary.dto.ScanRequest;
 import com.littlelibrary.dto.AIRecommendationResponse;
 import com.littlelibrary.dto.RecommendationQuery;
 import com.littlelibrary.service.BookService;
+import com.littlelibrary.service.RecommendationQueryService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/books")
@@ -21,6 +39,15 @@ public class BookController {
     @Autowired
     private BookService bookService;
     
+    @Autowired
+    private RecommendationQueryService recommendationQueryService;
+    
+    @Value("${scan.batch.max-items:500}")
+    private int maxBatchScanItems;
+    
+    @Value("${scan.upload.max-bytes:10485760}")
+    private int maxUploadBytes;
+    
     @GetMapping
     public ResponseEntity<List<BookDTO>> getUserLibrary(
             @RequestParam(required = false) String filter,
@@ -39,13 +66,99 @@ public class BookController {
         return ResponseEntity.ok(books);
     }
     
+    /**
+     * Paginated library listing with server-side filters.
+     * Example:
+     *   /api/books/library?limit=50&genreShelf=Fantasy&favorite=true
+     *   /api/books/library?limit=50&cursor={nextCursor from the previous page}
+     */
+    @GetMapping("/library")
+    public ResponseEntity<LibraryPage> getUserLibraryPage(
+            @RequestParam(required = false) String genreShelf,
+            @RequestParam(required = false) String ageShelf,
+            @RequestParam(required = false) Boolean favorite,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        
+        // In a real app, get userId from JWT token
+        Long userId = 1L; // Placeholder
+        
+        try {
+            return ResponseEntity.ok(bookService.getUserLibraryPage(userId, genreShelf, ageShelf, favorite, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @PostMapping("/scan")
     public ResponseEntity<BookDTO> scanBook(@RequestBody ScanRequest scanRequest) {
         // In a real app, get userId from JWT token
         Long userId = 1L; // Placeholder
         
-        BookDTO book = bookService.scanAndIdentifyBook(scanRequest, userId);
-        return ResponseEntity.ok(book);
+        try {
+            BookDTO book = bookService.scanAndIdentifyBook(scanRequest, userId);
+            return book != null ? ResponseEntity.ok(book) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Identify a photo uploaded as a multipart file (part "image"). The part is spooled to a
+     * temp file by the servlet container and read once into a buffer of its exact size.
+     */
+    @PostMapping(value = "/scan/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<BatchScanResult>> scanImageUpload(@RequestParam("image") MultipartFile image) throws IOException {
+        try (InputStream in = image.getInputStream()) {
+            return scanImage(in, image.getSize());
+        }
+    }
+    
+    /**
+     * Identify a photo sent as the raw request body (image/jpeg, image/png, ...), the cheapest
+     * form for mobile clients: no base64, no JSON.
+     */
+    @PostMapping(value = "/scan/image", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    public Mono<ResponseEntity<BatchScanResult>> scanImageBody(HttpServletRequest request) throws IOException {
+        return scanImage(request.getInputStream(), request.getContentLengthLong());
+    }
+    
+    private Mono<ResponseEntity<BatchScanResult>> scanImage(InputStream in, long declaredLength) throws IOException {
+        // In a real app, get userId from JWT token
+        Long userId = 1L; // Placeholder
+        
+        byte[] image = readBounded(in, declaredLength, maxUploadBytes);
+        if (image == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        if (image.length == 0) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return bookService.scanImage(image, userId).map(ResponseEntity::ok);
+    }
+    
+    /**
+     * Barcode scan counters: local decode hit ratio and latency, Rekognition fallbacks.
+     */
+    @GetMapping("/scan/stats")
+    public ResponseEntity<Map<String, Long>> getScanStats() {
+        return ResponseEntity.ok(bookService.getScanStats());
+    }
+    
+    /**
+     * Identify many scans in one request. Results are streamed as NDJSON, one line per item
+     * in completion order; each line carries the item's index in the request.
+     */
+    @PostMapping(value = "/scan/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<BatchScanResult>> scanBatch(@RequestBody BatchScanRequest request) {
+        // In a real app, get userId from JWT token
+        Long userId = 1L; // Placeholder
+        
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()
+                || request.getItems().size() > maxBatchScanItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookService.scanBatch(request.getItems(), userId));
     }
 
     @PostMapping("/add-to-library")
@@ -56,6 +169,17 @@ public class BookController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * Bulk import: upserts all books and library links in a single transaction.
+     */
+    @PostMapping("/add-to-library/bulk")
+    public ResponseEntity<List<BookDTO>> addToLibraryBulk(@RequestBody List<AddToLibraryRequest> requests) {
+        // In a real app, get userId from JWT token
+        Long userId = 1L; // Placeholder
+        List<BookDTO> result = bookService.addBooksToLibrary(requests, userId);
+        return ResponseEntity.ok(result);
+    }
+    
     @PostMapping("/{bookId}/add-to-library")
     public ResponseEntity<BookDTO> addToLibrary(
             @PathVariable Long bookId,
@@ -82,10 +206,47 @@ public class BookController {
         return ResponseEntity.ok(Map.of("isDuplicate", isDuplicate));
     }
     
+    /**
+     * Stored recommendations (200), or 202 with status "pending" while the book is being
+     * enriched in the background; poll again later.
+     */
     @GetMapping("/{bookId}/recommendations")
     public ResponseEntity<AIRecommendationResponse> getRecommendations(@PathVariable Long bookId) {
-        AIRecommendationResponse recommendations = bookService.getAIRecommendations(bookId);
-        return ResponseEntity.ok(recommendations);
+        return okOrNotFound(bookService.getAIRecommendations(bookId));
+    }
+    
+    /**
+     * Enrichment queue depth/lag, e.g. {"pending": 12, "running": 2, "lagSeconds": 40, ...}
+     */
+    @GetMapping("/recommendations/queue")
+    public ResponseEntity<Map<String, Long>> getRecommendationQueueStats() {
+        return ResponseEntity.ok(bookService.getEnrichmentQueueStats());
+    }
+
+    /**
+     * Books most often shelved together with this one in other libraries.
+     */
+    @GetMapping("/{bookId}/also-shelved")
+    public ResponseEntity<List<BookDTO>> getAlsoShelved(@PathVariable Long bookId,
+                                                        @RequestParam(defaultValue = "12") int limit) {
+        return ResponseEntity.ok(bookService.getAlsoShelved(bookId, limit));
+    }
+    
+    /**
+     * Co-shelving recommendations for the whole library, excluding books already in it.
+     */
+    @GetMapping("/library/also-shelved")
+    public ResponseEntity<List<BookDTO>> getLibraryAlsoShelved(@RequestParam(defaultValue = "12") int limit) {
+        Long userId = 1L; // Placeholder
+        return ResponseEntity.ok(bookService.getAlsoShelvedForLibrary(userId, limit));
+    }
+    
+    /**
+     * Size and rebuild timings of the co-shelving index.
+     */
+    @GetMapping("/also-shelved/stats")
+    public ResponseEntity<Map<String, Long>> getCoShelvingStats() {
+        return ResponseEntity.ok(bookService.getCoShelvingStats());
     }
 
     /**
@@ -104,12 +265,12 @@ public class BookController {
             if ("id".equalsIgnoreCase(by)) {
                 try {
                     Long id = Long.parseLong(value);
-                    return ResponseEntity.ok(bookService.getAIRecommendations(id));
+                    return okOrNotFound(bookService.getAIRecommendations(id));
                 } catch (NumberFormatException ex) {
                     // fall through to title if present
                 }
             } else if ("isbn".equalsIgnoreCase(by)) {
-                return ResponseEntity.ok(bookService.getAIRecommendationsByIsbn(value));
+                return okOrNotFound(bookService.getAIRecommendationsByIsbn(value));
             }
         }
 
@@ -117,7 +278,7 @@ public class BookController {
         if (title != null && !title.isBlank()) {
             List<BookDTO> found = bookService.lookupBooks(null, title);
             if (found != null && !found.isEmpty() && found.get(0).getIsbn() != null) {
-                return ResponseEntity.ok(bookService.getAIRecommendationsByIsbn(found.get(0).getIsbn()));
+                return okOrNotFound(bookService.getAIRecommendationsByIsbn(found.get(0).getIsbn()));
             }
             return ResponseEntity.badRequest().build();
         }
@@ -126,20 +287,18 @@ public class BookController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<BookDTO>> searchBooks(@RequestParam String query) {
-        List<BookDTO> books = bookService.searchBooks(query);
-        return ResponseEntity.ok(books);
+    public Mono<ResponseEntity<List<BookDTO>>> searchBooks(@RequestParam String query) {
+        return bookService.searchBooksReactive(query).map(ResponseEntity::ok);
     }
     
     @GetMapping("/lookup")
-    public ResponseEntity<List<BookDTO>> lookupBooks(
+    public Mono<ResponseEntity<List<BookDTO>>> lookupBooks(
             @RequestParam(required = false) String isbn,
             @RequestParam(required = false, name = "title") String title) {
         if ((isbn == null || isbn.isBlank()) && (title == null || title.isBlank())) {
-            return ResponseEntity.badRequest().build();
+            return Mono.just(ResponseEntity.badRequest().build());
         }
-        List<BookDTO> books = bookService.lookupBooks(isbn, title);
-        return ResponseEntity.ok(books);
+        return bookService.lookupBooksReactive(isbn, title).map(ResponseEntity::ok);
     }
 
     /**
@@ -156,60 +315,99 @@ public class BookController {
     
 
     /**
-     * Object-based variant: frontend sends an object with optional fields (bookId, isbn, title),
-     * and backend decides how to compute recommendations.
+     * Object-based variant: frontend sends an object with optional fields (bookId, isbn, title,
+     * genre), and backend decides how to compute recommendations. The AI, title-search and
+     * local-catalog sources run concurrently; see {@link RecommendationQueryService}.
      */
     @PostMapping("/recommendations/query")
-    public ResponseEntity<AIRecommendationResponse> getRecommendationsQuery(@RequestBody RecommendationQuery query) {
+    public Mono<ResponseEntity<AIRecommendationResponse>> getRecommendationsQuery(@RequestBody RecommendationQuery query) {
+        if (query == null) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return recommendationQueryService.query(query).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Server-sent-events variant of {@link #getRecommendationsQuery}. Whichever source answers
+     * first is sent first:
+     *   event: recommendation  data: AIRecommendationResponse (without similarBooks)
+     *   event: similarBook     data: BookDTO, one per book that passes the filters
+     *   event: done            data: {"similarBooks": n, "unavailableSources": [...]}
+     */
+    @PostMapping(value = "/recommendations/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamRecommendationsQuery(@RequestBody RecommendationQuery query) {
         if (query == null) {
             return ResponseEntity.badRequest().build();
         }
-        AIRecommendationResponse resp = null;
+        List<String> unavailable = new CopyOnWriteArrayList<>();
+        AtomicInteger similarCount = new AtomicInteger();
+        Flux<ServerSentEvent<Object>> recommendation = recommendationQueryService.recommendation(query, unavailable)
+            .map(resp -> event("recommendation", resp))
+            .flux();
+        Flux<ServerSentEvent<Object>> similar = recommendationQueryService.similarBooks(query, unavailable)
+            .doOnNext(b -> similarCount.incrementAndGet())
+            .map(b -> event("similarBook", b));
 
-        // 1) Compute AI signals via id or isbn if available
-        if (query.getBookId() != null) {
-            resp = bookService.getAIRecommendations(query.getBookId());
-        } else if (query.getIsbn() != null && !query.getIsbn().isBlank()) {
-            resp = bookService.getAIRecommendationsByIsbn(query.getIsbn());
-        } else {
-            resp = new AIRecommendationResponse();
-        }
-
-        // Resolve source ISBN for deduplication (prefer explicit ISBN, else lookup by id)
-        // 2) Populate similarBooks using title (server-side fallback)
-        if (query.getTitle() != null && !query.getTitle().isBlank()) {
-            List<BookDTO> found = bookService.lookupBooks(null, query.getTitle());
-            if (found != null && !found.isEmpty()) {
-                final String srcIsbnFinal = query.getIsbn() != null ? query.getIsbn().replaceAll("[-\\s]", "") : null;
-
-                java.util.Set<String> seenIsbn = new java.util.HashSet<>();
-                java.util.List<BookDTO> out = new java.util.ArrayList<>();
-                for (BookDTO b : found) {
-                    // Must have a valid image
-                    if (!hasValidImage(b.getCoverImageUrl())) continue;
-
-                    // Normalize ISBN for dedupe and source exclusion
-                    String bIsbn = b.getIsbn() != null ? b.getIsbn().replaceAll("[-\\s]", "") : null;
-                    if (bIsbn != null) {
-                        if (srcIsbnFinal != null && srcIsbnFinal.equals(bIsbn)) continue; // exclude source
-                        if (seenIsbn.contains(bIsbn)) continue; // dedupe by isbn only
-                        seenIsbn.add(bIsbn);
-                    }
-
-                    out.add(b);
-                    if (out.size() >= 12) break;
+        Flux<ServerSentEvent<Object>> events = Flux.merge(recommendation, similar)
+            .concatWith(Mono.fromSupplier(() -> {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("similarBooks", similarCount.get());
+                summary.put("unavailableSources", List.copyOf(unavailable));
+                return event("done", summary);
+            }));
+        return ResponseEntity.ok(events);
+    }
+
+    /**
+     * Per-source latency and timeout counters of the recommendation query.
+     */
+    @GetMapping("/recommendations/query/stats")
+    public ResponseEntity<Map<String, Long>> getRecommendationQueryStats() {
+        return ResponseEntity.ok(recommendationQueryService.getStats());
+    }
+
+    /**
+     * The whole stream in one array, or null once it exceeds maxBytes. A known length is
+     * allocated exactly; otherwise the buffer grows by doubling up to the cap.
+     */
+    private static byte[] readBounded(InputStream in, long declaredLength, int maxBytes) throws IOException {
+        if (declaredLength > maxBytes) {
+            return null;
+        }
+        byte[] buffer = new byte[declaredLength >= 0 ? (int) declaredLength : Math.min(64 * 1024, maxBytes)];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                int next = in.read();
+                if (next < 0) {
+                    return buffer;
                 }
-                resp.setSimilarBooks(out);
+                if (declaredLength >= 0 || buffer.length >= maxBytes) {
+                    return null;
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBytes));
+                buffer[length++] = (byte) next;
+            }
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
             }
+            length += n;
         }
-
-        return ResponseEntity.ok(resp);
     }
     
-    private boolean hasValidImage(String url) {
-        if (url == null || url.isBlank()) return false;
-        String u = url.trim().toLowerCase();
-        return u.startsWith("http://") || u.startsWith("https://");
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+    
+    private static ResponseEntity<AIRecommendationResponse> okOrNotFound(AIRecommendationResponse resp) {
+        if (resp == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (AIRecommendationResponse.PENDING.equals(resp.getStatus())) {
+            return ResponseEntity.accepted().body(resp);
+        }
+        return ResponseEntity.ok(resp);
     }
 
     
@@ -3,6 +3,10 @@ package com.littlelibrary.dto;
 import java.util.List;
 
 public class AIRecommendationResponse {
+    public static final String READY = "ready";
+    public static final String PENDING = "pending";
+    
+    private String status; // "ready", "pending" (queued for enrichment) or null (heuristic fallback)
     private String ageRecommendation;
     private Integer suggestedMinAge;
     private Integer suggestedMaxAge;
@@ -10,11 +14,15 @@ public class AIRecommendationResponse {
     private List<BookDTO> similarBooks;
     private List<String> themes;
     private String readingLevel;
+    private List<String> unavailableSources; // recommendation query sources that timed out or failed
     
     // Constructors
     public AIRecommendationResponse() {}
     
     // Getters and Setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
     public String getAgeRecommendation() { return ageRecommendation; }
     public void setAgeRecommendation(String ageRecommendation) { this.ageRecommendation = ageRecommendation; }
     
@@ -35,4 +43,7 @@ public class AIRecommendationResponse {
     
     public String getReadingLevel() { return readingLevel; }
     public void setReadingLevel(String readingLevel) { this.readingLevel = readingLevel; }
+    
+    public List<String> getUnavailableSources() { return unavailableSources; }
+    public void setUnavailableSources(List<String> unavailableSources) { this.unavailableSources = unavailableSources; }
 }
@@ -0,0 +1,18 @@
+package com.littlelibrary.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchScanRequest {
+    private List<ScanRequest> items = new ArrayList<>();
+    
+    public BatchScanRequest() {}
+    
+    public List<ScanRequest> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ScanRequest> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,37 @@
+package com.littlelibrary.dto;
+
+public class BatchScanResult {
+    public static final String IDENTIFIED = "identified";
+    public static final String NOT_FOUND = "not_found";
+    public static final String ERROR = "error";
+    
+    private int index; // position of the item in the request
+    private String status; // "identified", "not_found" or "error"
+    private String isbn;
+    private BookDTO book;
+    private String error;
+    
+    // Constructors
+    public BatchScanResult() {}
+    
+    public BatchScanResult(int index, String status) {
+        this.index = index;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+    
+    public BookDTO getBook() { return book; }
+    public void setBook(BookDTO book) { this.book = book; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,23 @@
+package com.littlelibrary.dto;
+
+import java.util.List;
+
+public class LibraryPage {
+    private List<BookDTO> items;
+    private String nextCursor; // null when this is the last page
+    
+    // Constructors
+    public LibraryPage() {}
+    
+    public LibraryPage(List<BookDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<BookDTO> getItems() { return items; }
+    public void setItems(List<BookDTO> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -12,6 +12,8 @@ public class RecommendationQuery {
     private Integer pageCount;
     private String genreShelf;
     private String ageShelf;
+    private Integer minAge;
+    private Integer maxAge;
 
     public RecommendationQuery() {}
 
@@ -102,4 +104,20 @@ public class RecommendationQuery {
     public void setAgeShelf(String ageShelf) {
         this.ageShelf = ageShelf;
     }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
 }
@@ -9,11 +9,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "books")
+@Table(
+    name = "books",
+    uniqueConstraints = @UniqueConstraint(name = "uk_books_isbn", columnNames = "isbn"),
+    indexes = {
+        @Index(name = "idx_books_google_books_id", columnList = "google_books_id"),
+        @Index(name = "idx_books_genre", columnList = "genre"),
+        @Index(name = "idx_books_age_range", columnList = "age_range_min, age_range_max")
+    }
+)
 public class Book {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -23,7 +32,7 @@ public class Book {
     @Size(max = 100)
     private String author;
     
-    @Column(unique = true)
+    @Column(name = "isbn")
     private String isbn;
     
     @Lob
@@ -0,0 +1,37 @@
+package com.littlelibrary.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed co-shelving neighbours of one book (see CoShelvingIndex). The neighbour list is
+ * stored packed, best first, as (long book id, float score) pairs so a row is a single read;
+ * the table is written and read with plain JDBC, the mapping only keeps the schema in one place.
+ */
+@Entity
+@Table(name = "book_neighbours")
+public class BookNeighbours {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "neighbours", nullable = false, length = 65535)
+    private byte[] neighbours;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Constructors
+    public BookNeighbours() {}
+
+    // Getters and Setters
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public byte[] getNeighbours() { return neighbours; }
+    public void setNeighbours(byte[] neighbours) { this.neighbours = neighbours; }
+
+    public LocalDateTime getComputedAt() { return computedAt; }
+    public void setComputedAt(LocalDateTime computedAt) { this.computedAt = computedAt; }
+}
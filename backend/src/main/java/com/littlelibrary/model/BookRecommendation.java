@@ -0,0 +1,86 @@
+package com.littlelibrary.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Stored AI age recommendation for a book, keyed by ISBN and the version of the prompt
+ * that produced it. Themes are kept newline-separated in a single column.
+ */
+@Entity
+@Table(
+    name = "book_recommendations",
+    uniqueConstraints = @UniqueConstraint(name = "uk_book_recommendations_isbn_version",
+        columnNames = {"isbn", "prompt_version"})
+)
+public class BookRecommendation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "isbn", nullable = false, length = 20)
+    private String isbn;
+
+    @Column(name = "prompt_version", nullable = false, length = 20)
+    private String promptVersion;
+
+    @Column(name = "suggested_min_age")
+    private Integer suggestedMinAge;
+
+    @Column(name = "suggested_max_age")
+    private Integer suggestedMaxAge;
+
+    @Column(name = "reading_level", length = 50)
+    private String readingLevel;
+
+    @Column(name = "themes", length = 500)
+    private String themes;
+
+    @Column(name = "reasoning", columnDefinition = "TEXT")
+    private String reasoning;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public BookRecommendation() {}
+
+    public BookRecommendation(String isbn, String promptVersion) {
+        this.isbn = isbn;
+        this.promptVersion = promptVersion;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+
+    public String getPromptVersion() { return promptVersion; }
+    public void setPromptVersion(String promptVersion) { this.promptVersion = promptVersion; }
+
+    public Integer getSuggestedMinAge() { return suggestedMinAge; }
+    public void setSuggestedMinAge(Integer suggestedMinAge) { this.suggestedMinAge = suggestedMinAge; }
+
+    public Integer getSuggestedMaxAge() { return suggestedMaxAge; }
+    public void setSuggestedMaxAge(Integer suggestedMaxAge) { this.suggestedMaxAge = suggestedMaxAge; }
+
+    public String getReadingLevel() { return readingLevel; }
+    public void setReadingLevel(String readingLevel) { this.readingLevel = readingLevel; }
+
+    public String getThemes() { return themes; }
+    public void setThemes(String themes) { this.themes = themes; }
+
+    public String getReasoning() { return reasoning; }
+    public void setReasoning(String reasoning) { this.reasoning = reasoning; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -8,7 +8,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "libraries")
+@Table(
+    name = "libraries",
+    indexes = @Index(name = "idx_libraries_user_shared", columnList = "user_id, is_shared")
+)
 public class Library {
     
     @Id
@@ -4,11 +4,24 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "library_books")
+@Table(
+    name = "library_books",
+    uniqueConstraints = @UniqueConstraint(name = "uk_library_books_library_book", columnNames = {"library_id", "book_id"}),
+    indexes = {
+        @Index(name = "idx_library_books_library_genre_shelf", columnList = "library_id, genre_shelf"),
+        @Index(name = "idx_library_books_library_age_shelf", columnList = "library_id, age_shelf"),
+        @Index(name = "idx_library_books_library_favorite", columnList = "library_id, is_favorite"),
+        @Index(name = "idx_library_books_library_shelf_position", columnList = "library_id, shelf_position"),
+        @Index(name = "idx_library_books_library_date_added", columnList = "library_id, date_added DESC, id DESC"),
+        @Index(name = "idx_library_books_book", columnList = "book_id"),
+        @Index(name = "idx_library_books_date_added", columnList = "date_added")
+    }
+)
 public class LibraryBook {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "library_books_seq")
+    @SequenceGenerator(name = "library_books_seq", sequenceName = "library_books_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,11 @@
+package com.littlelibrary.repository;
+
+import com.littlelibrary.model.BookRecommendation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface BookRecommendationRepository extends JpaRepository<BookRecommendation, Long> {
+    Optional<BookRecommendation> findByIsbnAndPromptVersion(String isbn, String promptVersion);
+}
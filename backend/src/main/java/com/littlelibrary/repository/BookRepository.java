@@ -5,12 +5,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByIsbn(String isbn);
+    List<Book> findByIsbnIn(Collection<String> isbns);
     Optional<Book> findByGoogleBooksId(String googleBooksId);
     List<Book> findByTitleContainingIgnoreCase(String title);
     List<Book> findByAuthorContainingIgnoreCase(String author);
@@ -21,4 +23,12 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     
     @Query("SELECT b FROM Book b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(b.author) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Book> searchBooks(@Param("query") String query);
+    
+    // PostgreSQL only: ranked match against the GIN-indexed search_vector column (see V3 migration)
+    @Query(value = "SELECT b.* FROM books b"
+        + " CROSS JOIN (SELECT to_tsquery('simple', :tsQuery) || to_tsquery('english', :tsQuery) AS q) query"
+        + " WHERE b.search_vector @@ query.q"
+        + " ORDER BY ts_rank(b.search_vector, query.q) DESC, b.id"
+        + " LIMIT :limit", nativeQuery = true)
+    List<Book> fullTextSearch(@Param("tsQuery") String tsQuery, @Param("limit") int limit);
 }
@@ -0,0 +1,34 @@
+package com.littlelibrary.repository;
+
+import com.littlelibrary.model.EnrichmentJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EnrichmentJobRepository extends JpaRepository<EnrichmentJob, Long> {
+    List<EnrichmentJob> findByBookIdIn(Collection<Long> bookIds);
+    long countByStatus(String status);
+
+    @Query("SELECT j.id FROM EnrichmentJob j WHERE j.status = 'pending' AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt, j.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable page);
+
+    // Claim a pending job; returns 0 if another worker (or instance) got it first
+    @Modifying
+    @Query("UPDATE EnrichmentJob j SET j.status = 'running', j.updatedAt = :now WHERE j.id = :id AND j.status = 'pending'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Jobs left running by a process that stopped mid-way
+    @Modifying
+    @Query("UPDATE EnrichmentJob j SET j.status = 'pending' WHERE j.status = 'running' AND j.updatedAt < :before")
+    int requeueStale(@Param("before") LocalDateTime before);
+
+    @Query("SELECT MIN(j.enqueuedAt) FROM EnrichmentJob j WHERE j.status = 'pending'")
+    LocalDateTime findOldestPendingEnqueuedAt();
+}
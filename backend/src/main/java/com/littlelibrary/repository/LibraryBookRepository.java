@@ -1,10 +1,13 @@
 package com.littlelibrary.repository;
 
 import com.littlelibrary.model.LibraryBook;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +18,43 @@ public interface LibraryBookRepository extends JpaRepository<LibraryBook, Long>
     List<LibraryBook> findByLibraryIdAndAgeShelf(Long libraryId, String ageShelf);
     List<LibraryBook> findByLibraryIdAndIsFavorite(Long libraryId, Boolean isFavorite);
     Optional<LibraryBook> findByLibraryIdAndBookId(Long libraryId, Long bookId);
+    List<LibraryBook> findByLibraryIdAndBookIdIn(Long libraryId, Collection<Long> bookIds);
+    
+    // Shelf loading: fetch-join the book so a whole library loads in a single statement
+    @Query("SELECT lb FROM LibraryBook lb JOIN FETCH lb.book WHERE lb.library.id = :libraryId")
+    List<LibraryBook> findWithBookByLibraryId(@Param("libraryId") Long libraryId);
+    
+    @Query("SELECT lb FROM LibraryBook lb JOIN FETCH lb.book b WHERE lb.library.id = :libraryId"
+         + " AND LOWER(COALESCE(lb.genreShelf, b.genre)) = LOWER(:filter)")
+    List<LibraryBook> findWithBookByLibraryIdAndShelfOrGenre(@Param("libraryId") Long libraryId, @Param("filter") String filter);
+    
+    // Keyset page, newest first; null filters match everything
+    @Query("SELECT lb FROM LibraryBook lb JOIN FETCH lb.book WHERE lb.library.id = :libraryId"
+         + " AND (:genreShelf IS NULL OR lb.genreShelf = :genreShelf)"
+         + " AND (:ageShelf IS NULL OR lb.ageShelf = :ageShelf)"
+         + " AND (:favorite IS NULL OR lb.isFavorite = :favorite)"
+         + " AND (lb.dateAdded < :afterDate OR (lb.dateAdded = :afterDate AND lb.id < :afterId))"
+         + " ORDER BY lb.dateAdded DESC, lb.id DESC")
+    List<LibraryBook> findPageWithBook(@Param("libraryId") Long libraryId,
+                                       @Param("genreShelf") String genreShelf,
+                                       @Param("ageShelf") String ageShelf,
+                                       @Param("favorite") Boolean favorite,
+                                       @Param("afterDate") LocalDateTime afterDate,
+                                       @Param("afterId") Long afterId,
+                                       Pageable page);
     
     @Query("SELECT lb FROM LibraryBook lb WHERE lb.library.id = :libraryId ORDER BY lb.shelfPosition")
     List<LibraryBook> findByLibraryIdOrderByShelfPosition(@Param("libraryId") Long libraryId);
     
     @Query("SELECT COUNT(lb) > 0 FROM LibraryBook lb WHERE lb.library.user.id = :userId AND lb.book.isbn = :isbn")
     Boolean existsByUserIdAndBookIsbn(@Param("userId") Long userId, @Param("isbn") String isbn);
+    
+    @Query("SELECT COUNT(lb) > 0 FROM LibraryBook lb WHERE lb.library.user.id = :userId AND lb.book.isbn IN :isbns")
+    Boolean existsByUserIdAndBookIsbnIn(@Param("userId") Long userId, @Param("isbns") Collection<String> isbns);
+    
+    @Query("SELECT lb.book.isbn FROM LibraryBook lb WHERE lb.library.user.id = :userId")
+    List<String> findBookIsbnsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT lb.book.id FROM LibraryBook lb WHERE lb.library.user.id = :userId")
+    List<Long> findBookIdsByUserId(@Param("userId") Long userId);
 }
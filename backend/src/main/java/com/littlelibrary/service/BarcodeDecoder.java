@@ -0,0 +1,296 @@
+package com.littlelibrary.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.oned.EAN13Reader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process EAN-13 (ISBN "Bookland") barcode decoding with ZXing, so most barcode scans are
+ * answered without a Rekognition round trip.
+ *
+ * The photo is decoded straight from the uploaded bytes, subsampled while reading so that no
+ * side exceeds {@code scan.barcode.max-decode-dimension}; this bounds the pixel memory of a scan
+ * regardless of the camera resolution. A grayscale copy no larger than
+ * {@code scan.barcode.max-dimension} is decoded first. If that fails, the band of rows that
+ * looks most like a barcode (strong horizontal, weak vertical contrast) is cropped out of the
+ * decoded photo at its own resolution and decoded harder; finally the photo is tried rotated
+ * by 90 degrees. Only 978/979 codes with a valid check digit are accepted.
+ */
+@Service
+public class BarcodeDecoder {
+
+    private static final Map<DecodeHintType, Object> FAST_HINTS = hints(false);
+    private static final Map<DecodeHintType, Object> HARD_HINTS = hints(true);
+
+    @Value("${scan.barcode.max-dimension:1024}")
+    private int maxDimension = 1024;
+
+    @Value("${scan.barcode.max-decode-dimension:2048}")
+    private int maxDecodeDimension = 2048;
+
+    /**
+     * The ISBN-13 encoded in a barcode on the image, or null if none was found (or the bytes
+     * are not a readable image).
+     */
+    public String decodeIsbn(byte[] imageBytes) {
+        BufferedImage image = readImage(imageBytes);
+        return image != null ? decodeIsbn(image) : null;
+    }
+
+    /**
+     * Same for an image already read with {@link #readImage(byte[])}.
+     */
+    public String decodeIsbn(BufferedImage image) {
+        String isbn = decodeOriented(image, false);
+        return isbn != null ? isbn : decodeOriented(image, true);
+    }
+
+    /**
+     * The photo, subsampled to at most {@code scan.barcode.max-decode-dimension} pixels on its
+     * longer side; null if the bytes are not a readable image.
+     */
+    public BufferedImage readImage(byte[] imageBytes) {
+        try {
+            return read(imageBytes, maxDecodeDimension);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the image, skipping rows and columns while decoding so the result is at most
+     * {@code maxSide} pixels on its longer side. Null if no reader understands the bytes.
+     */
+    static BufferedImage read(byte[] imageBytes, int maxSide) throws IOException {
+        try (ImageInputStream input = new ByteArrayImageInputStream(imageBytes)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = (longest + maxSide - 1) / Math.max(1, maxSide);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String decodeOriented(BufferedImage image, boolean rotated) {
+        int width = rotated ? image.getHeight() : image.getWidth();
+        int height = rotated ? image.getWidth() : image.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        Gray small = Gray.of(image, rotated, 0, height, Math.max(1, (int) (width * scale)), Math.max(1, (int) (height * scale)));
+        String isbn = decode(small, FAST_HINTS);
+        if (isbn != null) {
+            return isbn;
+        }
+        int[] band = barcodeBand(small);
+        if (band == null) {
+            return null;
+        }
+        // Same rows from the decoded photo, at up to twice the overview width
+        int top = (int) (band[0] / scale);
+        int bottom = Math.min(height, (int) Math.ceil(band[1] / scale));
+        double cropScale = Math.min(1.0, 2.0 * maxDimension / width);
+        Gray crop = Gray.of(image, rotated, top, bottom,
+            Math.max(1, (int) (width * cropScale)), Math.max(1, (int) ((bottom - top) * cropScale)));
+        return decode(crop, HARD_HINTS);
+    }
+
+    private static String decode(Gray gray, Map<DecodeHintType, Object> hints) {
+        LuminanceSource source = new PlanarYUVLuminanceSource(gray.pixels, gray.width, gray.height,
+            0, 0, gray.width, gray.height, false);
+        EAN13Reader reader = new EAN13Reader();
+        for (BinaryBitmap bitmap : List.of(new BinaryBitmap(new GlobalHistogramBinarizer(source)),
+                                           new BinaryBitmap(new HybridBinarizer(source)))) {
+            try {
+                Result result = reader.decode(bitmap, hints);
+                if (Isbn.isValid(result.getText())) {
+                    return result.getText();
+                }
+            } catch (NotFoundException e) {
+                // try the next binarizer
+            } catch (ReaderException e) {
+                // checksum or format mismatch on this pass
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rows [top, bottom) of the band most likely to hold a barcode, padded by a tenth of the
+     * image height, or null if no row has more horizontal than vertical contrast.
+     */
+    static int[] barcodeBand(Gray gray) {
+        int w = gray.width;
+        int h = gray.height;
+        if (w < 3 || h < 3) {
+            return null;
+        }
+        byte[] p = gray.pixels;
+        long[] score = new long[h];
+        for (int y = 1; y < h - 1; y++) {
+            long s = 0;
+            int row = y * w;
+            for (int x = 1; x < w - 1; x++) {
+                int c = p[row + x] & 0xff;
+                s += Math.abs((p[row + x + 1] & 0xff) - c) - Math.abs((p[row + w + x] & 0xff) - c);
+            }
+            score[y] = s;
+        }
+        // Smooth over a few rows so a single sharp edge does not win over a barcode
+        int window = Math.max(1, h / 40);
+        long[] smooth = new long[h];
+        long running = 0;
+        for (int y = 0; y < h; y++) {
+            running += score[y];
+            if (y >= window) {
+                running -= score[y - window];
+            }
+            smooth[y] = running;
+        }
+        int best = 0;
+        for (int y = 1; y < h; y++) {
+            if (smooth[y] > smooth[best]) {
+                best = y;
+            }
+        }
+        if (smooth[best] <= 0) {
+            return null;
+        }
+        long threshold = smooth[best] / 2;
+        int top = best;
+        while (top > 0 && smooth[top - 1] > threshold) {
+            top--;
+        }
+        int bottom = best;
+        while (bottom < h - 1 && smooth[bottom + 1] > threshold) {
+            bottom++;
+        }
+        int pad = h / 10;
+        return new int[] {Math.max(0, top - window - pad), Math.min(h, bottom + 1 + pad)};
+    }
+
+    private static Map<DecodeHintType, Object> hints(boolean tryHarder) {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.EAN_13));
+        if (tryHarder) {
+            hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        }
+        return hints;
+    }
+
+    /**
+     * 8-bit grayscale pixels, row by row.
+     */
+    static final class Gray {
+        final byte[] pixels;
+        final int width;
+        final int height;
+
+        Gray(byte[] pixels, int width, int height) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Rows [top, bottom) of the (optionally 90° rotated) image, scaled to the target size;
+         * grayscale conversion and scaling happen in a single draw.
+         */
+        static Gray of(BufferedImage image, boolean rotated, int top, int bottom, int targetWidth, int targetHeight) {
+            BufferedImage gray = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                int bandHeight = bottom - top;
+                if (!rotated) {
+                    g.drawImage(image, 0, 0, targetWidth, targetHeight,
+                        0, top, image.getWidth(), bottom, null);
+                } else {
+                    // Rotated row y is source column (image width - 1 - y)
+                    double sx = (double) targetWidth / image.getHeight();
+                    double sy = (double) targetHeight / bandHeight;
+                    g.scale(sx, sy);
+                    g.translate(0, -top);
+                    g.rotate(-Math.PI / 2);
+                    g.translate(-image.getWidth(), 0);
+                    g.drawImage(image, 0, 0, null);
+                }
+            } finally {
+                g.dispose();
+            }
+            return new Gray(((DataBufferByte) gray.getRaster().getDataBuffer()).getData(), targetWidth, targetHeight);
+        }
+    }
+
+    /**
+     * Image input over the request bytes themselves; ImageIO's own streams would copy them into
+     * a memory or file cache first.
+     */
+    static final class ByteArrayImageInputStream extends ImageInputStreamImpl {
+        private final byte[] bytes;
+
+        ByteArrayImageInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            if (streamPos >= bytes.length) {
+                return -1;
+            }
+            bitOffset = 0;
+            return bytes[(int) streamPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (streamPos >= bytes.length) {
+                return -1;
+            }
+            bitOffset = 0;
+            int n = (int) Math.min(len, bytes.length - streamPos);
+            System.arraycopy(bytes, (int) streamPos, b, off, n);
+            streamPos += n;
+            return n;
+        }
+
+        @Override
+        public long length() {
+            return bytes.length;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.littlelibrary.dto.BookDTO;
 import com.littlelibrary.dto.AddToLibraryRequest;
 import com.littlelibrary.dto.ScanRequest;
 import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.dto.BatchScanResult;
+import com.littlelibrary.dto.LibraryPage;
 import com.littlelibrary.model.Library;
 import com.littlelibrary.model.LibraryBook;
 import com.littlelibrary.model.User;
@@ -11,12 +13,27 @@ import com.littlelibrary.repository.BookRepository;
 import com.littlelibrary.repository.LibraryRepository;
 import com.littlelibrary.repository.LibraryBookRepository;
 import com.littlelibrary.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,6 +52,27 @@ public class BookService {
     @Autowired
     private GoogleBooksService googleBooksService;
     
+    @Autowired
+    private IsbnLookupCache isbnLookupCache;
+    
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    
+    @Autowired
+    private UserIsbnIndex userIsbnIndex;
+    
+    @Autowired
+    private RecommendationCache recommendationCache;
+    
+    @Autowired
+    private EnrichmentQueue enrichmentQueue;
+    
+    @Autowired
+    private SimilarityIndex similarityIndex;
+    
+    @Autowired
+    private CoShelvingIndex coShelvingIndex;
+    
     @Autowired
     private OpenAIService openAIService;
     
@@ -44,6 +82,22 @@ public class BookService {
     @Autowired
     private UserRepository userRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private static final int BULK_CHUNK_SIZE = 500;
+    
+    private static final int MAX_PAGE_SIZE = 200;
+    
+    @Value("${search.local.min-results:5}")
+    private int minLocalSearchResults;
+    
+    @Value("${search.result-limit:20}")
+    private int searchResultLimit;
+    
+    @Value("${scan.batch.concurrency:8}")
+    private int batchScanConcurrency;
+    
     public List<BookDTO> getUserLibraryBooks(Long userId, String filter) {
         List<Library> libs = libraryRepository.findByUserId(userId);
         if (libs.isEmpty()) {
@@ -52,14 +106,10 @@ public class BookService {
         Library library = libs.get(0);
         List<LibraryBook> links;
         if (filter != null && !filter.isBlank()) {
-            // Filter by shelf first if provided
-            links = libraryBookRepository.findByLibraryIdAndGenreShelf(library.getId(), filter);
-            if (links == null || links.isEmpty()) {
-                // Fallback to all links; we'll filter by book genre below
-                links = libraryBookRepository.findByLibraryId(library.getId());
-            }
+            // Match the shelf, falling back to the book's genre for unshelved links
+            links = libraryBookRepository.findWithBookByLibraryIdAndShelfOrGenre(library.getId(), filter);
         } else {
-            links = libraryBookRepository.findByLibraryId(library.getId());
+            links = libraryBookRepository.findWithBookByLibraryId(library.getId());
         }
 
         List<BookDTO> out = new ArrayList<>();
@@ -69,14 +119,58 @@ public class BookService {
             dto.setAgeShelf(lb.getAgeShelf());
             out.add(dto);
         }
-        if (filter != null && !filter.isBlank()) {
-            out = out.stream()
-                .filter(b -> filter.equalsIgnoreCase(b.getGenreShelf() != null ? b.getGenreShelf() : b.getGenre()))
-                .collect(Collectors.toList());
-        }
         return out;
     }
 
+    /**
+     * One page of the user's library, newest first, keyset-paginated on (dateAdded, id).
+     * All filters are optional and applied in the query, so each call reads at most
+     * {@code limit + 1} rows regardless of library size.
+     *
+     * @param cursor opaque value from a previous page's {@code nextCursor}, or null for the first page
+     */
+    public LibraryPage getUserLibraryPage(Long userId, String genreShelf, String ageShelf, Boolean favorite,
+                                          String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LibraryCursor after = cursor != null && !cursor.isBlank() ? LibraryCursor.decode(cursor) : LibraryCursor.FIRST;
+
+        List<Library> libs = libraryRepository.findByUserId(userId);
+        if (libs.isEmpty()) {
+            return new LibraryPage(new ArrayList<>(), null);
+        }
+        List<LibraryBook> links = libraryBookRepository.findPageWithBook(
+            libs.get(0).getId(),
+            blankToNull(genreShelf),
+            blankToNull(ageShelf),
+            favorite,
+            after.getDateAdded(),
+            after.getId(),
+            PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = links.size() > pageSize;
+        List<BookDTO> items = new ArrayList<>(Math.min(links.size(), pageSize));
+        for (LibraryBook lb : hasMore ? links.subList(0, pageSize) : links) {
+            BookDTO dto = toDTO(lb.getBook());
+            dto.setGenreShelf(lb.getGenreShelf());
+            dto.setAgeShelf(lb.getAgeShelf());
+            dto.setIsFavorite(lb.getIsFavorite());
+            dto.setPersonalRating(lb.getPersonalRating());
+            dto.setShelfPosition(lb.getShelfPosition());
+            dto.setDateAdded(lb.getDateAdded());
+            items.add(dto);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            LibraryBook last = links.get(pageSize - 1);
+            nextCursor = new LibraryCursor(last.getDateAdded(), last.getId()).encode();
+        }
+        return new LibraryPage(items, nextCursor);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+
     /**
      * Retrieve a BookDTO by internal id, if present.
      */
@@ -85,41 +179,137 @@ public class BookService {
         return bookRepository.findById(id).map(this::toDTO);
     }
     
+    /**
+     * Identify a single scan the same way as a batch item: an ISBN goes straight to the lookup
+     * cache, a cover photo through the barcode decoder (local first, Rekognition as fallback,
+     * repeat scans cached). Returns null when nothing matches. When the ISBN is known but its
+     * details can't be fetched, the book comes back with just the ISBN and a cover URL.
+     */
     public BookDTO scanAndIdentifyBook(ScanRequest scanRequest, Long userId) {
-        try {
-            String extractedText = "";
-            
-            // Handle both new format (type/data) and legacy format (scanType/isbn)
-            if ("isbn".equals(scanRequest.getType()) || "isbn".equals(scanRequest.getScanType())) {
-                extractedText = scanRequest.getData() != null ? scanRequest.getData() : 
-                               (scanRequest.getIsbn() != null ? scanRequest.getIsbn() : "9780439708180");
-            } else if ("cover".equals(scanRequest.getType()) || "cover".equals(scanRequest.getScanType())) {
-                // Mock OCR extraction for demo
-                extractedText = "9780439708180"; // Default to Harry Potter ISBN
+        String isbn = batchIsbnOf(scanRequest);
+        if (isbn == null && (scanRequest == null
+                || blankToNull(scanRequest.getData()) == null && blankToNull(scanRequest.getImageBase64()) == null)) {
+            throw new IllegalArgumentException("Scan has neither an ISBN nor an image");
+        }
+        Set<String> owned = isbn != null && userIsbnIndex.isOwned(userId, isbn) ? Set.of(isbn) : Set.of();
+        BatchScanResult result = identifyBatchItem(0, scanRequest, userId, owned, false).block();
+        if (BatchScanResult.ERROR.equals(result.getStatus())) {
+            if (result.getIsbn() == null) {
+                throw new RuntimeException("Failed to scan and identify book: " + result.getError());
             }
-            
-            // Create mock book data for testing
             BookDTO book = new BookDTO();
-            book.setTitle("Harry Potter and the Sorcerer's Stone");
-            book.setAuthor("J.K. Rowling");
-            book.setIsbn(extractedText);
-            book.setPublisher("Scholastic");
-            book.setPublicationYear(1997);
-            book.setPageCount(309);
-            book.setGenre("Fantasy");
-            book.setDescription("A young wizard's journey begins at Hogwarts School of Witchcraft and Wizardry.");
-            book.setCoverImageUrl("https://covers.openlibrary.org/b/isbn/" + extractedText + "-L.jpg");
-            book.setAgeRangeMin(8);
-            book.setAgeRangeMax(12);
-            
-            // Check for duplicates
-            boolean isDuplicate = checkForDuplicate(book.getIsbn(), userId);
-            book.setIsDuplicate(isDuplicate);
-            
+            book.setIsbn(result.getIsbn());
+            book.setCoverImageUrl("https://covers.openlibrary.org/b/isbn/" + result.getIsbn() + "-L.jpg");
+            book.setIsDuplicate(owned.contains(result.getIsbn()) || checkForDuplicate(result.getIsbn(), userId));
             return book;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to scan and identify book", e);
         }
+        return result.getBook();
+    }
+    
+    /**
+     * Identify a whole batch of scans (ISBNs and/or cover images), emitting one result per item
+     * as soon as it completes. At most {@code scan.batch.concurrency} identifications run at once.
+     * Duplicate status for ISBN items is resolved up front against the user's ISBN index.
+     * Items that can't be identified (null, or neither ISBN nor image) get an error result.
+     */
+    public Flux<BatchScanResult> scanBatch(List<ScanRequest> items, Long userId) {
+        Set<String> batchIsbns = new LinkedHashSet<>();
+        Set<Integer> repeatedInBatch = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            String isbn = batchIsbnOf(items.get(i));
+            if (isbn != null && !batchIsbns.add(isbn)) {
+                repeatedInBatch.add(i);
+            }
+        }
+        Set<String> owned = new HashSet<>();
+        for (String isbn : batchIsbns) {
+            if (userIsbnIndex.isOwned(userId, isbn)) {
+                owned.add(isbn);
+            }
+        }
+
+        return Flux.range(0, items.size())
+            .flatMap(i -> identifyBatchItem(i, items.get(i), userId, owned, repeatedInBatch.contains(i)),
+                batchScanConcurrency);
+    }
+
+    /**
+     * Identify a single uploaded photo (raw image bytes, no base64). The barcode decoder reads
+     * the bytes in place; the result has index 0.
+     */
+    public Mono<BatchScanResult> scanImage(byte[] image, Long userId) {
+        Mono<String> resolvedIsbn = ocrService.extractBarcode(image)
+            .map(Isbn::normalize);
+        return identify(0, null, resolvedIsbn, userId, Set.of(), false);
+    }
+
+    private Mono<BatchScanResult> identifyBatchItem(int index, ScanRequest item, Long userId,
+                                                    Set<String> owned, boolean repeatedInBatch) {
+        if (item == null) {
+            return Mono.just(batchError(index, "Scan item is empty"));
+        }
+        String isbn = batchIsbnOf(item);
+        Mono<String> resolvedIsbn;
+        if (isbn != null) {
+            resolvedIsbn = Mono.just(isbn);
+        } else {
+            String image = item.getData() != null ? item.getData() : item.getImageBase64();
+            if (image == null || image.isBlank()) {
+                return Mono.just(batchError(index, "Scan item has neither an ISBN nor an image"));
+            }
+            resolvedIsbn = ocrService.extractBarcode(image)
+                .map(Isbn::normalize);
+        }
+        return identify(index, isbn, resolvedIsbn, userId, owned, repeatedInBatch);
+    }
+
+    // isbn is the ISBN given in the request (null for images), resolvedIsbn the one to look up
+    private Mono<BatchScanResult> identify(int index, String isbn, Mono<String> resolvedIsbn, Long userId,
+                                           Set<String> owned, boolean repeatedInBatch) {
+        return resolvedIsbn
+            .flatMap(key -> isbnLookupCache.getBookByIsbnReactive(key)
+                .flatMap(book -> {
+                    BookDTO dto = toDTO(book);
+                    Mono<Boolean> duplicate = isbn != null
+                        ? Mono.just(repeatedInBatch || owned.contains(key))
+                        : Mono.fromCallable(() -> checkForDuplicate(key, userId)).subscribeOn(Schedulers.boundedElastic());
+                    return duplicate.map(d -> {
+                        dto.setIsDuplicate(d);
+                        BatchScanResult result = new BatchScanResult(index, BatchScanResult.IDENTIFIED);
+                        result.setIsbn(key);
+                        result.setBook(dto);
+                        return result;
+                    });
+                })
+                .defaultIfEmpty(batchNotFound(index, key))
+                .onErrorResume(e -> {
+                    BatchScanResult error = batchError(index, e.getMessage());
+                    error.setIsbn(key);
+                    return Mono.just(error);
+                }))
+            .defaultIfEmpty(batchNotFound(index, null))
+            .onErrorResume(e -> Mono.just(batchError(index, e.getMessage())));
+    }
+
+    private String batchIsbnOf(ScanRequest item) {
+        if (item == null || !"isbn".equals(item.getType()) && !"isbn".equals(item.getScanType())) {
+            return null;
+        }
+        String raw = item.getData() != null ? item.getData() : item.getIsbn();
+        String normalized = Isbn.normalize(raw);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private BatchScanResult batchNotFound(int index, String isbn) {
+        BatchScanResult result = new BatchScanResult(index, BatchScanResult.NOT_FOUND);
+        result.setIsbn(isbn);
+        return result;
+    }
+
+    private BatchScanResult batchError(int index, String message) {
+        BatchScanResult result = new BatchScanResult(index, BatchScanResult.ERROR);
+        result.setError(message);
+        return result;
     }
     
     public BookDTO addBookToLibrary(Long bookId, Long userId, String genreShelf, String ageShelf) {
@@ -158,39 +348,18 @@ public class BookService {
         if (rawIsbn == null || rawIsbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN is required in the book payload");
         }
-        String normalizedIsbn = rawIsbn.replaceAll("[-\\s]", "");
+        String normalizedIsbn = Isbn.normalize(rawIsbn);
         
         // Upsert book by ISBN
         Optional<com.littlelibrary.model.Book> existing = bookRepository.findByIsbn(normalizedIsbn);
-        com.littlelibrary.model.Book entity = existing.orElseGet(() -> {
-            com.littlelibrary.model.Book b = new com.littlelibrary.model.Book();
-            b.setIsbn(normalizedIsbn);
-            b.setTitle(payload.getTitle());
-            b.setAuthor(payload.getAuthor());
-            b.setDescription(payload.getDescription());
-            b.setGenre(payload.getGenre());
-            b.setCoverImageUrl(payload.getCoverImageUrl());
-            b.setPublisher(payload.getPublisher());
-            b.setPublicationYear(payload.getPublicationYear());
-            b.setPageCount(payload.getPageCount());
-            b.setGoogleBooksId(payload.getGoogleBooksId());
-            return bookRepository.save(b);
-        });
+        com.littlelibrary.model.Book entity = existing.orElseGet(
+            () -> bookRepository.save(newBookFromPayload(normalizedIsbn, payload)));
+        if (existing.isEmpty()) {
+            similarityIndex.upsert(entity);
+        }
         
         // Ensure user has a library
-        List<Library> libs = libraryRepository.findByUserId(userId);
-        Library library;
-        if (libs.isEmpty()) {
-            User user = userRepository.findById(userId).orElseGet(() -> {
-                // Create a placeholder user if not present (demo/testing)
-                User u = new User("Demo", "User", "demo@example.com", "password");
-                return userRepository.save(u);
-            });
-            library = new Library("Default Library", user);
-            library = libraryRepository.save(library);
-        } else {
-            library = libs.get(0);
-        }
+        Library library = resolveOrCreateLibrary(userId);
         
         // Link book to library (upsert)
         Optional<LibraryBook> existingLink = libraryBookRepository.findByLibraryIdAndBookId(library.getId(), entity.getId());
@@ -200,10 +369,15 @@ public class BookService {
         } else {
             LibraryBook lb = new LibraryBook(library, entity);
             link = libraryBookRepository.save(lb);
+            // Scanned books were already saved by IsbnLookupCache; queue them once they're shelved
+            if (recommendationCache.getStored(entity) == null) {
+                enrichmentQueue.enqueue(entity.getId());
+            }
         }
         link.setGenreShelf(req.getGenreShelf() != null ? req.getGenreShelf() : "General");
         link.setAgeShelf(req.getAgeShelf() != null ? req.getAgeShelf() : "");
         libraryBookRepository.save(link);
+        userIsbnIndex.added(library.getUser().getId(), normalizedIsbn);
         
         BookDTO dto = toDTO(entity);
         dto.setGenreShelf(link.getGenreShelf());
@@ -211,6 +385,116 @@ public class BookService {
         return dto;
     }
 
+    /**
+     * Bulk variant of {@link #addBookToLibrary(AddToLibraryRequest, Long)} for large imports.
+     * Existing books and links are prefetched with one IN query per chunk, new rows are inserted
+     * with JDBC batching (sequence-generated ids), and the persistence context is cleared between
+     * chunks so memory stays flat. Later entries for the same ISBN win.
+     */
+    public List<BookDTO> addBooksToLibrary(List<AddToLibraryRequest> requests, Long userId) {
+        if (requests == null || requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, AddToLibraryRequest> byIsbn = new LinkedHashMap<>();
+        for (AddToLibraryRequest req : requests) {
+            if (req == null || req.getBook() == null) {
+                throw new IllegalArgumentException("Missing book payload");
+            }
+            String rawIsbn = req.getBook().getIsbn();
+            if (rawIsbn == null || rawIsbn.trim().isEmpty()) {
+                throw new IllegalArgumentException("ISBN is required in the book payload");
+            }
+            byIsbn.put(Isbn.normalize(rawIsbn), req);
+        }
+
+        Library library = resolveOrCreateLibrary(userId);
+        List<String> isbns = new ArrayList<>(byIsbn.keySet());
+        List<BookDTO> out = new ArrayList<>(isbns.size());
+        for (int from = 0; from < isbns.size(); from += BULK_CHUNK_SIZE) {
+            List<String> chunk = isbns.subList(from, Math.min(from + BULK_CHUNK_SIZE, isbns.size()));
+
+            // Upsert books by ISBN
+            Map<String, com.littlelibrary.model.Book> books = new HashMap<>();
+            for (com.littlelibrary.model.Book b : bookRepository.findByIsbnIn(chunk)) {
+                books.put(b.getIsbn(), b);
+            }
+            List<com.littlelibrary.model.Book> newBooks = new ArrayList<>();
+            for (String isbn : chunk) {
+                if (!books.containsKey(isbn)) {
+                    com.littlelibrary.model.Book b = newBookFromPayload(isbn, byIsbn.get(isbn).getBook());
+                    books.put(isbn, b);
+                    newBooks.add(b);
+                }
+            }
+            bookRepository.saveAll(newBooks);
+            similarityIndex.upsert(newBooks);
+
+            // Upsert links; existing ones are updated in place by dirty checking
+            List<Long> bookIds = new ArrayList<>();
+            for (com.littlelibrary.model.Book b : books.values()) {
+                bookIds.add(b.getId());
+            }
+            Map<Long, LibraryBook> links = new HashMap<>();
+            for (LibraryBook lb : libraryBookRepository.findByLibraryIdAndBookIdIn(library.getId(), bookIds)) {
+                links.put(lb.getBook().getId(), lb);
+            }
+            List<LibraryBook> newLinks = new ArrayList<>();
+            for (String isbn : chunk) {
+                AddToLibraryRequest req = byIsbn.get(isbn);
+                com.littlelibrary.model.Book entity = books.get(isbn);
+                LibraryBook link = links.get(entity.getId());
+                if (link == null) {
+                    link = new LibraryBook(library, entity);
+                    newLinks.add(link);
+                }
+                link.setGenreShelf(req.getGenreShelf() != null ? req.getGenreShelf() : "General");
+                link.setAgeShelf(req.getAgeShelf() != null ? req.getAgeShelf() : "");
+
+                BookDTO dto = toDTO(entity);
+                dto.setGenreShelf(link.getGenreShelf());
+                dto.setAgeShelf(link.getAgeShelf());
+                out.add(dto);
+            }
+            libraryBookRepository.saveAll(newLinks);
+            // Newly shelved books, including ones saved earlier by a scan; the worker skips
+            // books that already have a stored recommendation
+            enrichmentQueue.enqueue(newLinks.stream().map(lb -> lb.getBook().getId()).collect(Collectors.toList()));
+
+            libraryBookRepository.flush();
+            entityManager.clear();
+        }
+        userIsbnIndex.added(library.getUser().getId(), isbns);
+        return out;
+    }
+
+    private com.littlelibrary.model.Book newBookFromPayload(String normalizedIsbn, BookDTO payload) {
+        com.littlelibrary.model.Book b = new com.littlelibrary.model.Book();
+        b.setIsbn(normalizedIsbn);
+        b.setTitle(payload.getTitle());
+        b.setAuthor(payload.getAuthor());
+        b.setDescription(payload.getDescription());
+        b.setGenre(payload.getGenre());
+        b.setCoverImageUrl(payload.getCoverImageUrl());
+        b.setPublisher(payload.getPublisher());
+        b.setPublicationYear(payload.getPublicationYear());
+        b.setPageCount(payload.getPageCount());
+        b.setGoogleBooksId(payload.getGoogleBooksId());
+        return b;
+    }
+
+    private Library resolveOrCreateLibrary(Long userId) {
+        List<Library> libs = libraryRepository.findByUserId(userId);
+        if (!libs.isEmpty()) {
+            return libs.get(0);
+        }
+        User user = userRepository.findById(userId).orElseGet(() -> {
+            // Create a placeholder user if not present (demo/testing)
+            User u = new User("Demo", "User", "demo@example.com", "password");
+            return userRepository.save(u);
+        });
+        return libraryRepository.save(new Library("Default Library", user));
+    }
+
     /**
      * Remove a book from the user's library by book id. Idempotent.
      */
@@ -221,20 +505,69 @@ public class BookService {
         if (libs.isEmpty()) return;
         Library library = libs.get(0);
         libraryBookRepository.findByLibraryIdAndBookId(library.getId(), bookId)
-            .ifPresent(libraryBookRepository::delete);
+            .ifPresent(link -> {
+                String isbn = link.getBook().getIsbn();
+                libraryBookRepository.delete(link);
+                if (libs.size() > 1) {
+                    // The same book may still be on another of the user's libraries
+                    userIsbnIndex.invalidate(userId);
+                } else {
+                    userIsbnIndex.removed(userId, isbn);
+                }
+            });
     }
 
-    
-    
+    /**
+     * Whether the user already owns a book with this ISBN. Answered from the in-memory
+     * {@link UserIsbnIndex}; the first check for a user loads their ISBNs once.
+     */
     public boolean checkForDuplicate(String isbn, Long userId) {
-        // Mock implementation - always return false for testing
-        return false;
+        return userIsbnIndex.isOwned(userId, isbn);
     }
     
+    /**
+     * Search the local catalog first; Google Books is only queried when fewer than
+     * {@code search.local.min-results} local matches exist, and its results are appended
+     * after the local ones (deduplicated by ISBN).
+     */
     public List<BookDTO> searchBooks(String query) {
-        // Use Google Books to search by title/text
-        List<com.littlelibrary.model.Book> results = googleBooksService.searchBooksByTitle(query);
-        return results.stream().map(this::toDTO).collect(Collectors.toList());
+        List<BookDTO> local = searchLocalCatalog(query);
+        if (local.size() >= minLocalSearchResults) {
+            return local;
+        }
+        List<com.littlelibrary.model.Book> remote;
+        try {
+            remote = googleBooksService.searchBooksByTitle(query);
+        } catch (RuntimeException e) {
+            if (local.isEmpty()) {
+                throw e;
+            }
+            return local;
+        }
+        return mergeSearchResults(local, remote.stream().map(this::toDTO).collect(Collectors.toList()));
+    }
+
+    private List<BookDTO> searchLocalCatalog(String query) {
+        return catalogSearchService.search(query, searchResultLimit).stream()
+            .map(this::toDTO)
+            .collect(Collectors.toList());
+    }
+
+    private List<BookDTO> mergeSearchResults(List<BookDTO> local, List<BookDTO> remote) {
+        List<BookDTO> out = new ArrayList<>(local);
+        Set<String> seenIsbn = new HashSet<>();
+        for (BookDTO b : local) {
+            if (b.getIsbn() != null) {
+                seenIsbn.add(Isbn.normalize(b.getIsbn()));
+            }
+        }
+        for (BookDTO b : remote) {
+            if (b.getIsbn() != null && !seenIsbn.add(Isbn.normalize(b.getIsbn()))) {
+                continue;
+            }
+            out.add(b);
+        }
+        return out;
     }
 
     /**
@@ -244,7 +577,7 @@ public class BookService {
     public List<BookDTO> lookupBooks(String isbn, String title) {
         List<BookDTO> out = new ArrayList<>();
         if (isbn != null && !isbn.trim().isEmpty()) {
-            com.littlelibrary.model.Book b = googleBooksService.getBookByIsbn(isbn.trim());
+            com.littlelibrary.model.Book b = isbnLookupCache.getBookByIsbn(isbn.trim());
             if (b != null) {
                 out.add(toDTO(b));
             }
@@ -263,7 +596,62 @@ public class BookService {
         return out;
     }
 
-    private BookDTO toDTO(com.littlelibrary.model.Book b) {
+    /**
+     * Non-blocking variant of {@link #searchBooks(String)}.
+     */
+    public Mono<List<BookDTO>> searchBooksReactive(String query) {
+        return Mono.fromCallable(() -> searchLocalCatalog(query))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(local -> {
+                if (local.size() >= minLocalSearchResults) {
+                    return Mono.just(local);
+                }
+                return googleBooksService.searchBooksByTitleReactive(query)
+                    .map(this::toDTO)
+                    .collectList()
+                    .map(remote -> mergeSearchResults(local, remote))
+                    .onErrorResume(e -> local.isEmpty() ? Mono.error(e) : Mono.just(local));
+            });
+    }
+
+    /**
+     * Non-blocking variant of {@link #lookupBooks(String, String)}: no request thread is held
+     * while Google Books responds.
+     */
+    public Mono<List<BookDTO>> lookupBooksReactive(String isbn, String title) {
+        if (isbn != null && !isbn.trim().isEmpty()) {
+            return isbnLookupCache.getBookByIsbnReactive(isbn.trim())
+                .map(b -> {
+                    List<BookDTO> out = new ArrayList<>();
+                    out.add(toDTO(b));
+                    return out;
+                })
+                .defaultIfEmpty(new ArrayList<>());
+        }
+        if (title != null && !title.trim().isEmpty()) {
+            return lookupBooksByTitleReactive(title).collectList();
+        }
+        return Mono.just(new ArrayList<>());
+    }
+
+    /**
+     * Title lookup as a stream of books with an ISBN. Google Books answers are read in full
+     * before the first book is emitted; callers can still forward each book without waiting
+     * for the other sources they merge it with.
+     */
+    public Flux<BookDTO> lookupBooksByTitleReactive(String title) {
+        if (title == null || title.trim().isEmpty()) {
+            return Flux.empty();
+        }
+        return googleBooksService.searchBooksByTitleReactive(title.trim())
+            .map(this::toDTO)
+            .filter(dto -> dto.getIsbn() != null && !dto.getIsbn().trim().isEmpty());
+    }
+
+    /**
+     * Package-private only so BookMappingBenchmark (benchmarks module) can call it.
+     */
+    BookDTO toDTO(com.littlelibrary.model.Book b) {
         BookDTO dto = new BookDTO();
         dto.setId(b.getId());
         dto.setTitle(b.getTitle());
@@ -279,26 +667,100 @@ public class BookService {
         return dto;
     }
     
+    /**
+     * AI age recommendations for a stored book, or null if the id is unknown. Never waits for
+     * the model: returns the stored result, or a "pending" response after queueing the book
+     * for background enrichment. Without an OpenAI key the heuristic answer is returned instead.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AIRecommendationResponse getAIRecommendations(Long bookId) {
-        // Mock AI recommendation for testing
-        AIRecommendationResponse response = new AIRecommendationResponse();
-        response.setAgeRecommendation("8-12 years");
-        response.setSuggestedMinAge(8);
-        response.setSuggestedMaxAge(12);
-        response.setReadingLevel("Elementary");
-        response.setReasoning("Great introduction to fantasy literature for children. Teaches about friendship, courage, and perseverance.");
-        return response;
+        AIRecommendationResponse cached = recommendationCache.getCachedByBookId(bookId);
+        if (cached != null || bookId == null) {
+            return cached;
+        }
+        return bookRepository.findById(bookId).map(this::storedOrPending).orElse(null);
     }
 
     /**
-     * Variant that accepts ISBN. For now returns the same mocked structure.
-     * In a real implementation, look up the book by ISBN and derive recommendations.
+     * Variant that accepts ISBN. Returns null if the ISBN is unknown locally and upstream.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AIRecommendationResponse getAIRecommendationsByIsbn(String isbn) {
-        // Normalize ISBN if needed, then compute recommendations.
-        String normalized = isbn != null ? isbn.replaceAll("[-\\s]", "") : "";
-        // For now reuse the same mock as getAIRecommendations
-        return getAIRecommendations(0L);
+        AIRecommendationResponse cached = recommendationCache.getCachedByIsbn(isbn);
+        if (cached != null) {
+            return cached;
+        }
+        com.littlelibrary.model.Book book = isbnLookupCache.getBookByIsbn(isbn);
+        return book != null ? storedOrPending(book) : null;
+    }
+
+    private AIRecommendationResponse storedOrPending(com.littlelibrary.model.Book book) {
+        AIRecommendationResponse stored = recommendationCache.getStored(book);
+        if (stored != null) {
+            return stored;
+        }
+        if (!openAIService.isConfigured()
+                || book.getId() == null || book.getIsbn() == null || book.getIsbn().isBlank()) {
+            // Without an API key nothing would ever be enriched, and books without an id or
+            // ISBN can't be queued or stored; answer with the heuristic right away
+            return openAIService.createFallbackResponse(book);
+        }
+        try {
+            enrichmentQueue.enqueue(book.getId());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request queued it first
+        }
+        AIRecommendationResponse pending = new AIRecommendationResponse();
+        pending.setStatus(AIRecommendationResponse.PENDING);
+        return pending;
+    }
+
+    /**
+     * Books most often shelved together with the given one in other libraries, best first.
+     */
+    @Transactional(readOnly = true)
+    public List<BookDTO> getAlsoShelved(Long bookId, int limit) {
+        return loadInOrder(coShelvingIndex.neighbours(bookId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+    
+    /**
+     * Co-shelving recommendations for a user's whole library: neighbour scores summed over
+     * all of their books, books they already own left out.
+     */
+    @Transactional(readOnly = true)
+    public List<BookDTO> getAlsoShelvedForLibrary(Long userId, int limit) {
+        return loadInOrder(coShelvingIndex.neighbours(libraryBookRepository.findBookIdsByUserId(userId), Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+    
+    private List<BookDTO> loadInOrder(List<CoShelvingIndex.Neighbour> neighbours) {
+        if (neighbours.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = neighbours.stream().map(CoShelvingIndex.Neighbour::getBookId).toList();
+        Map<Long, com.littlelibrary.model.Book> byId = new HashMap<>();
+        for (com.littlelibrary.model.Book b : bookRepository.findAllById(ids)) {
+            byId.put(b.getId(), b);
+        }
+        List<BookDTO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            com.littlelibrary.model.Book b = byId.get(id);
+            if (b != null) {
+                result.add(toDTO(b));
+            }
+        }
+        return result;
+    }
+    
+    public Map<String, Long> getCoShelvingStats() {
+        return coShelvingIndex.getStats();
+    }
+    
+    public Map<String, Long> getEnrichmentQueueStats() {
+        return enrichmentQueue.getStats();
+    }
+    
+    public Map<String, Long> getScanStats() {
+        return ocrService.getStats();
     }
     
 }
@@ -0,0 +1,92 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search over the local book catalog (title, author, genre, description).
+ *
+ * On PostgreSQL this is a ranked full-text query against the GIN-indexed
+ * {@code books.search_vector} column, with the last word treated as a prefix so
+ * partially typed queries match (type-ahead). Other databases (H2 in dev/tests)
+ * fall back to the title/author LIKE query. The database is identified once at startup
+ * from the connection's metadata, so proxied or JNDI data sources are recognized too.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchService.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private boolean fullTextSearch;
+
+    @PostConstruct
+    void detectDatabase() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            fullTextSearch = "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not identify the database, using LIKE search: {}", e.getMessage());
+            fullTextSearch = false;
+        }
+    }
+
+    public List<Book> search(String query, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (fullTextSearch) {
+            String tsQuery = toPrefixTsQuery(query);
+            if (tsQuery.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return bookRepository.fullTextSearch(tsQuery, limit);
+        }
+        List<Book> results = bookRepository.searchBooks(query.trim());
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    /**
+     * Turn free text into a to_tsquery expression: every word must match, the last one as a prefix.
+     * Only letters and digits survive, so user input can never inject tsquery operators.
+     * "harry pott" becomes "harry & pott:*".
+     */
+    static String toPrefixTsQuery(String text) {
+        StringBuilder out = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                if (out.length() > 0) {
+                    out.append(" & ");
+                }
+                out.append(word);
+                word.setLength(0);
+            }
+        }
+        if (out.length() > 0) {
+            out.append(":*");
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,559 @@
+package com.littlelibrary.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Also shelved with" recommendations: item-item co-occurrence of books across libraries.
+ *
+ * The {@code library_books} links are streamed with plain JDBC (two numbers per row, no
+ * entities) into primitive arrays keyed by dense book ordinals. For every book the libraries it
+ * sits in are walked to count co-shelved books; pairs seen in at least
+ * {@code coshelving.min-support} libraries are scored by cosine similarity
+ * {@code count / sqrt(libraries(a) * libraries(b))} and the best {@code coshelving.top-k} are
+ * kept. Only the most recently added {@code coshelving.max-books-per-library} books of a library
+ * take part, which bounds the quadratic cost of very large libraries.
+ *
+ * The result is a sparse matrix (book id to ranked neighbours) held in sorted primitive arrays
+ * and persisted to {@code book_neighbours}, so a restart loads it instead of recomputing. A
+ * scheduler recomputes it every {@code coshelving.refresh-interval-minutes} when links were
+ * added since the last run, and at least every {@code coshelving.full-rebuild-hours} so that
+ * removals are picked up too.
+ *
+ * Refresh is batch-only: new links never patch individual rows. One new link changes the
+ * library count of its book, which rescales that book's score in the rows of every book it is
+ * co-shelved with, and can push an older book out of its library's
+ * {@code max-books-per-library} window; updating only the touched rows would leave the matrix
+ * inconsistent. Recomputing is a single pass over primitive arrays, so the interval is the knob.
+ */
+@Service
+public class CoShelvingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CoShelvingIndex.class);
+
+    private static final String LINKS_SQL =
+        "SELECT library_id, book_id FROM library_books ORDER BY library_id, date_added DESC, id DESC";
+    private static final String INSERT_SQL =
+        "INSERT INTO book_neighbours (book_id, neighbours, computed_at) VALUES (?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 1000;
+    // Packed neighbour: long book id + float score
+    private static final int NEIGHBOUR_BYTES = 12;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${coshelving.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coshelving.top-k:20}")
+    private int topK;
+
+    @Value("${coshelving.min-support:2}")
+    private int minSupport;
+
+    @Value("${coshelving.max-books-per-library:500}")
+    private int maxBooksPerLibrary;
+
+    @Value("${coshelving.refresh-interval-minutes:60}")
+    private long refreshIntervalMinutes;
+
+    @Value("${coshelving.full-rebuild-hours:24}")
+    private long fullRebuildHours;
+
+    @Value("${coshelving.fetch-size:10000}")
+    private int fetchSize;
+
+    private volatile Matrix matrix = Matrix.EMPTY;
+    // Start of the computation the current matrix came from; null until loaded or computed
+    private volatile LocalDateTime computedAt;
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong links = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong lastRebuildMs = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "coshelving-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(() -> {
+            try {
+                load();
+            } catch (Exception e) {
+                log.warn("Could not load stored co-shelving neighbours: {}", e.getMessage());
+            }
+            refreshQuietly();
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+            refreshIntervalMinutes, refreshIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Neighbours of one book, best first; empty if the book has none (or is unknown).
+     */
+    public List<Neighbour> neighbours(Long bookId, int limit) {
+        lookups.incrementAndGet();
+        Matrix m = matrix;
+        int row = bookId == null ? -1 : m.rowOf(bookId);
+        if (row < 0) {
+            return List.of();
+        }
+        int from = m.offsets[row];
+        int to = Math.min(m.offsets[row + 1], from + Math.max(0, limit));
+        List<Neighbour> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(new Neighbour(m.neighbours[i], m.scores[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Neighbours of a set of books (e.g. a whole library), scores summed over the set, best
+     * first. Books of the set itself are never returned.
+     */
+    public List<Neighbour> neighbours(Collection<Long> bookIds, int limit) {
+        lookups.incrementAndGet();
+        Matrix m = matrix;
+        Set<Long> owned = new HashSet<>(bookIds);
+        Map<Long, Float> summed = new HashMap<>();
+        for (Long id : owned) {
+            int row = id == null ? -1 : m.rowOf(id);
+            if (row < 0) {
+                continue;
+            }
+            for (int i = m.offsets[row]; i < m.offsets[row + 1]; i++) {
+                if (!owned.contains(m.neighbours[i])) {
+                    summed.merge(m.neighbours[i], m.scores[i], Float::sum);
+                }
+            }
+        }
+        List<Neighbour> result = new ArrayList<>(summed.size());
+        summed.forEach((id, score) -> result.add(new Neighbour(id, score)));
+        result.sort((a, b) -> a.score != b.score ? Float.compare(b.score, a.score) : Long.compare(a.bookId, b.bookId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, Math.max(0, limit))) : result;
+    }
+
+    public Map<String, Long> getStats() {
+        Matrix m = matrix;
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("books", (long) m.ids.length);
+        stats.put("neighbours", (long) m.neighbours.length);
+        stats.put("links", links.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuildMs", lastRebuildMs.get());
+        stats.put("lookups", lookups.get());
+        return stats;
+    }
+
+    /**
+     * Recompute if nothing is stored yet, links were added since the last computation, or the
+     * last full rebuild is older than {@code coshelving.full-rebuild-hours}.
+     */
+    void refresh() {
+        LocalDateTime last = computedAt;
+        if (last == null
+                || last.isBefore(LocalDateTime.now().minusHours(fullRebuildHours))
+                || linksChangedSince(last)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recompute the whole matrix from {@code library_books} and replace the stored one.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Links read = new Links(maxBooksPerLibrary);
+        readOnlyTransaction().executeWithoutResult(status ->
+            jdbcTemplate.query(con -> streaming(con.prepareStatement(LINKS_SQL)),
+                rs -> { read.add(rs.getLong(1), rs.getLong(2)); }));
+        Matrix computed = compute(read, minSupport, topK);
+        persist(computed, startedAt);
+        matrix = computed;
+        computedAt = startedAt;
+        links.set(read.size);
+        rebuilds.incrementAndGet();
+        lastRebuildMs.set((System.nanoTime() - start) / 1_000_000);
+        log.info("Co-shelving neighbours computed for {} books from {} links in {} ms",
+            computed.ids.length, read.size, lastRebuildMs.get());
+    }
+
+    /**
+     * Load the stored matrix; leaves the current one in place if nothing is stored.
+     */
+    void load() {
+        MatrixBuilder builder = new MatrixBuilder();
+        LocalDateTime[] stored = new LocalDateTime[1];
+        readOnlyTransaction().executeWithoutResult(status ->
+            jdbcTemplate.query(
+                con -> streaming(con.prepareStatement(
+                    "SELECT book_id, neighbours, computed_at FROM book_neighbours ORDER BY book_id")),
+                rs -> {
+                    ByteBuffer packed = ByteBuffer.wrap(rs.getBytes(2));
+                    while (packed.remaining() >= NEIGHBOUR_BYTES) {
+                        builder.add(packed.getLong(), packed.getFloat());
+                    }
+                    builder.endRow(rs.getLong(1));
+                    LocalDateTime at = rs.getTimestamp(3).toLocalDateTime();
+                    if (stored[0] == null || at.isBefore(stored[0])) {
+                        stored[0] = at;
+                    }
+                }));
+        if (stored[0] != null) {
+            matrix = builder.build();
+            computedAt = stored[0];
+        }
+    }
+
+    private boolean linksChangedSince(LocalDateTime since) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM library_books WHERE date_added > ? LIMIT 1",
+            Integer.class, Timestamp.valueOf(since)).isEmpty();
+    }
+
+    private void persist(Matrix m, LocalDateTime at) {
+        Timestamp computed = Timestamp.valueOf(at);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM book_neighbours");
+            for (int from = 0; from < m.ids.length; from += INSERT_BATCH_SIZE) {
+                int first = from;
+                int count = Math.min(INSERT_BATCH_SIZE, m.ids.length - from);
+                jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        int row = first + i;
+                        ByteBuffer packed = ByteBuffer.allocate((m.offsets[row + 1] - m.offsets[row]) * NEIGHBOUR_BYTES);
+                        for (int n = m.offsets[row]; n < m.offsets[row + 1]; n++) {
+                            packed.putLong(m.neighbours[n]).putFloat(m.scores[n]);
+                        }
+                        ps.setLong(1, m.ids[row]);
+                        ps.setBytes(2, packed.array());
+                        ps.setTimestamp(3, computed);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                });
+            }
+        });
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Co-shelving refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // PostgreSQL only streams with a fetch size inside a transaction
+    private PreparedStatement streaming(PreparedStatement ps) throws SQLException {
+        ps.setFetchSize(fetchSize);
+        return ps;
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx;
+    }
+
+    /**
+     * Co-occurrence counting over the links read so far. Scratch arrays are sized once by the
+     * number of books, so the work per book is proportional to its co-shelved books only.
+     */
+    static Matrix compute(Links links, int minSupport, int topK) {
+        int books = links.books;
+        int libraries = links.libraries;
+        int[] libraryStart = Arrays.copyOf(links.libraryStart, libraries + 1);
+        libraryStart[libraries] = links.size;
+
+        // Book -> libraries, in CSR form
+        int[] degree = new int[books];
+        for (int i = 0; i < links.size; i++) {
+            degree[links.members[i]]++;
+        }
+        int[] bookStart = new int[books + 1];
+        for (int b = 0; b < books; b++) {
+            bookStart[b + 1] = bookStart[b] + degree[b];
+        }
+        int[] bookLibraries = new int[links.size];
+        int[] fill = Arrays.copyOf(bookStart, books);
+        for (int lib = 0; lib < libraries; lib++) {
+            for (int i = libraryStart[lib]; i < libraryStart[lib + 1]; i++) {
+                bookLibraries[fill[links.members[i]]++] = lib;
+            }
+        }
+
+        // Rows are emitted in book id order so lookups can binary search
+        long[] sortedIds = Arrays.copyOf(links.bookIds, books);
+        Arrays.sort(sortedIds);
+
+        int k = Math.max(1, topK);
+        int[] counts = new int[books];
+        int[] touched = new int[books];
+        int[] heapBook = new int[k];
+        float[] heapScore = new float[k];
+        MatrixBuilder builder = new MatrixBuilder();
+        for (long id : sortedIds) {
+            int book = links.ordinals.get(id, -1);
+            int seen = 0;
+            for (int l = bookStart[book]; l < bookStart[book + 1]; l++) {
+                int lib = bookLibraries[l];
+                for (int i = libraryStart[lib]; i < libraryStart[lib + 1]; i++) {
+                    int other = links.members[i];
+                    if (other != book && counts[other]++ == 0) {
+                        touched[seen++] = other;
+                    }
+                }
+            }
+            // Min-heap of the best k candidates, the weakest at the root
+            int size = 0;
+            for (int t = 0; t < seen; t++) {
+                int other = touched[t];
+                int count = counts[other];
+                counts[other] = 0;
+                if (count < minSupport) {
+                    continue;
+                }
+                float score = (float) (count / Math.sqrt((double) degree[book] * degree[other]));
+                if (size < k) {
+                    heapBook[size] = other;
+                    heapScore[size] = score;
+                    siftUp(heapBook, heapScore, size++, links.bookIds);
+                } else if (weaker(heapScore[0], heapBook[0], score, other, links.bookIds)) {
+                    heapBook[0] = other;
+                    heapScore[0] = score;
+                    siftDown(heapBook, heapScore, size, links.bookIds);
+                }
+            }
+            // Drain weakest first, then emit in reverse so the best neighbour comes first
+            int[] rowBooks = new int[size];
+            float[] rowScores = new float[size];
+            for (int i = size - 1; i >= 0; i--) {
+                rowBooks[i] = heapBook[0];
+                rowScores[i] = heapScore[0];
+                heapBook[0] = heapBook[i];
+                heapScore[0] = heapScore[i];
+                siftDown(heapBook, heapScore, i, links.bookIds);
+            }
+            for (int i = 0; i < size; i++) {
+                builder.add(links.bookIds[rowBooks[i]], rowScores[i]);
+            }
+            builder.endRow(id);
+        }
+        return builder.build();
+    }
+
+    // Lower score loses; on equal scores the higher book id loses, keeping results stable
+    private static boolean weaker(float scoreA, int bookA, float scoreB, int bookB, long[] ids) {
+        return scoreA != scoreB ? scoreA < scoreB : ids[bookA] > ids[bookB];
+    }
+
+    private static void siftUp(int[] books, float[] scores, int i, long[] ids) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!weaker(scores[i], books[i], scores[parent], books[parent], ids)) {
+                return;
+            }
+            swap(books, scores, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] books, float[] scores, int size, long[] ids) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int child = left + 1 < size && weaker(scores[left + 1], books[left + 1], scores[left], books[left], ids)
+                ? left + 1 : left;
+            if (!weaker(scores[child], books[child], scores[i], books[i], ids)) {
+                return;
+            }
+            swap(books, scores, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] books, float[] scores, int a, int b) {
+        int book = books[a];
+        books[a] = books[b];
+        books[b] = book;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    public static final class Neighbour {
+        private final long bookId;
+        private final float score;
+
+        Neighbour(long bookId, float score) {
+            this.bookId = bookId;
+            this.score = score;
+        }
+
+        public long getBookId() { return bookId; }
+        public float getScore() { return score; }
+    }
+
+    /**
+     * Library/book links as read, grouped by library: {@code members} holds book ordinals, one
+     * library after the other starting at {@code libraryStart}.
+     */
+    static final class Links {
+        final int maxPerLibrary;
+        final LongIntHashMap ordinals = new LongIntHashMap(1024);
+        long[] bookIds = new long[1024];
+        int books;
+        int[] libraryStart = new int[1024];
+        int libraries;
+        int[] members = new int[4096];
+        int size;
+        private long currentLibrary;
+        private int currentCount;
+
+        Links(int maxPerLibrary) {
+            this.maxPerLibrary = maxPerLibrary;
+        }
+
+        /** Links must arrive grouped by library. */
+        void add(long libraryId, long bookId) {
+            if (libraries == 0 || libraryId != currentLibrary) {
+                if (libraries == libraryStart.length) {
+                    libraryStart = Arrays.copyOf(libraryStart, libraries * 2);
+                }
+                libraryStart[libraries++] = size;
+                currentLibrary = libraryId;
+                currentCount = 0;
+            }
+            if (currentCount >= maxPerLibrary) {
+                return;
+            }
+            currentCount++;
+            int ordinal = ordinals.get(bookId, -1);
+            if (ordinal < 0) {
+                if (books == bookIds.length) {
+                    bookIds = Arrays.copyOf(bookIds, books * 2);
+                }
+                ordinal = books;
+                bookIds[books++] = bookId;
+                ordinals.put(bookId, ordinal);
+            }
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = ordinal;
+        }
+    }
+
+    /**
+     * Immutable sparse matrix: row {@code r} belongs to book {@code ids[r]} (ascending) and its
+     * neighbours are {@code neighbours/scores[offsets[r] .. offsets[r + 1])}, best first.
+     */
+    static final class Matrix {
+        static final Matrix EMPTY = new Matrix(new long[0], new int[] {0}, new long[0], new float[0]);
+
+        final long[] ids;
+        final int[] offsets;
+        final long[] neighbours;
+        final float[] scores;
+
+        Matrix(long[] ids, int[] offsets, long[] neighbours, float[] scores) {
+            this.ids = ids;
+            this.offsets = offsets;
+            this.neighbours = neighbours;
+            this.scores = scores;
+        }
+
+        int rowOf(long bookId) {
+            return Arrays.binarySearch(ids, bookId);
+        }
+    }
+
+    /** Appends rows in ascending book id order; books without neighbours get no row. */
+    static final class MatrixBuilder {
+        private long[] ids = new long[256];
+        private int[] offsets = new int[257];
+        private int rows;
+        private long[] neighbours = new long[1024];
+        private float[] scores = new float[1024];
+        private int size;
+
+        void add(long neighbour, float score) {
+            if (size == neighbours.length) {
+                neighbours = Arrays.copyOf(neighbours, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            neighbours[size] = neighbour;
+            scores[size++] = score;
+        }
+
+        void endRow(long bookId) {
+            if (size == offsets[rows]) {
+                return;
+            }
+            if (rows == ids.length) {
+                ids = Arrays.copyOf(ids, rows * 2);
+                offsets = Arrays.copyOf(offsets, rows * 2 + 1);
+            }
+            ids[rows++] = bookId;
+            offsets[rows] = size;
+        }
+
+        Matrix build() {
+            return new Matrix(Arrays.copyOf(ids, rows), Arrays.copyOf(offsets, rows + 1),
+                Arrays.copyOf(neighbours, size), Arrays.copyOf(scores, size));
+        }
+    }
+}
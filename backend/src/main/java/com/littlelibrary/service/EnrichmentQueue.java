@@ -0,0 +1,331 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import com.littlelibrary.model.EnrichmentJob;
+import com.littlelibrary.repository.BookRepository;
+import com.littlelibrary.repository.EnrichmentJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background AI enrichment of books, backed by the {@code enrichment_jobs} table so queued
+ * work survives restarts.
+ *
+ * Jobs are enqueued in the caller's transaction when a book is added to a library.
+ * A poller claims due jobs and hands them to {@code enrichment.workers} worker threads in
+ * batches of {@code enrichment.batch-size}, each enriched with a single model request; requests
+ * are spaced to stay under {@code enrichment.rate-per-minute}. Failed jobs are retried
+ * with a growing delay and marked failed after {@code enrichment.max-attempts}. Jobs left
+ * running by a stopped process are picked up again once they are older than
+ * {@code enrichment.stale-after-seconds}. Nothing is polled while no OpenAI key is configured.
+ */
+@Service
+public class EnrichmentQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentQueue.class);
+
+    @Autowired
+    private EnrichmentJobRepository jobRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private OpenAIService openAIService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${enrichment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${enrichment.workers:2}")
+    private int workers;
+
+    @Value("${enrichment.batch-size:10}")
+    private int batchSize;
+
+    @Value("${enrichment.rate-per-minute:60}")
+    private int ratePerMinute;
+
+    @Value("${enrichment.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${enrichment.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${enrichment.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds;
+
+    @Value("${enrichment.stale-after-seconds:600}")
+    private long staleAfterSeconds;
+
+    private ScheduledExecutorService poller;
+    private ExecutorService workerPool;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Earliest System.nanoTime() at which the next model call may start
+    private long nextPermitAt = System.nanoTime();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "enrichment-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "enrichment-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue books for enrichment. Books whose job already finished (or failed) are queued again;
+     * books already pending or running are left alone.
+     */
+    @Transactional
+    public void enqueue(Collection<Long> bookIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : bookIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, EnrichmentJob> existing = new HashMap<>();
+        for (EnrichmentJob job : jobRepository.findByBookIdIn(ids)) {
+            existing.put(job.getBookId(), job);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<EnrichmentJob> toSave = new ArrayList<>();
+        for (Long id : ids) {
+            EnrichmentJob job = existing.get(id);
+            if (job == null) {
+                toSave.add(new EnrichmentJob(id));
+            } else if (EnrichmentJob.DONE.equals(job.getStatus()) || EnrichmentJob.FAILED.equals(job.getStatus())) {
+                job.setStatus(EnrichmentJob.PENDING);
+                job.setAttempts(0);
+                job.setLastError(null);
+                job.setEnqueuedAt(now);
+                job.setNextAttemptAt(now);
+                toSave.add(job);
+            }
+        }
+        jobRepository.saveAll(toSave);
+    }
+
+    @Transactional
+    public void enqueue(Long bookId) {
+        enqueue(Collections.singletonList(bookId));
+    }
+
+    /**
+     * Queue depth and lag, read from the job table, plus counters for this process.
+     */
+    public Map<String, Long> getStats() {
+        LocalDateTime oldest = jobRepository.findOldestPendingEnqueuedAt();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("pending", jobRepository.countByStatus(EnrichmentJob.PENDING));
+        stats.put("running", jobRepository.countByStatus(EnrichmentJob.RUNNING));
+        stats.put("failed", jobRepository.countByStatus(EnrichmentJob.FAILED));
+        stats.put("lagSeconds", oldest == null ? 0L : Math.max(0L, Duration.between(oldest, LocalDateTime.now()).getSeconds()));
+        stats.put("inFlight", (long) inFlight.get());
+        stats.put("completed", completed.get());
+        stats.put("retried", retried.get());
+        stats.put("failedTotal", failed.get());
+        return stats;
+    }
+
+    /**
+     * Claim due jobs for the idle workers and dispatch them in batches. Returns the number of
+     * jobs dispatched.
+     */
+    int poll() {
+        if (!openAIService.isConfigured()) {
+            return 0;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        tx.executeWithoutResult(status -> jobRepository.requeueStale(now.minusSeconds(staleAfterSeconds)));
+
+        int free = workers - inFlight.get();
+        if (free <= 0) {
+            return 0;
+        }
+        int size = Math.max(1, batchSize);
+        List<Long> claimed = new ArrayList<>();
+        for (Long id : jobRepository.findDueIds(now, PageRequest.of(0, free * size))) {
+            Integer updated = tx.execute(status -> jobRepository.claim(id, now));
+            if (updated != null && updated > 0) {
+                claimed.add(id);
+            }
+        }
+        for (int from = 0; from < claimed.size(); from += size) {
+            List<Long> batch = new ArrayList<>(claimed.subList(from, Math.min(from + size, claimed.size())));
+            inFlight.incrementAndGet();
+            workerPool.execute(() -> {
+                try {
+                    process(batch);
+                } finally {
+                    inFlight.decrementAndGet();
+                    // Pick up the next jobs right away instead of waiting for the next tick
+                    if (!poller.isShutdown()) {
+                        poller.execute(this::pollQuietly);
+                    }
+                }
+            });
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Run a batch of claimed jobs: books that are gone or already enriched finish right away;
+     * the rest wait for one rate-limit slot and go to the model together through
+     * {@link RecommendationCache#enrichAll}.
+     */
+    void process(List<Long> jobIds) {
+        List<Long> pendingJobs = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        for (Long jobId : jobIds) {
+            Optional<EnrichmentJob> job = jobRepository.findById(jobId);
+            if (job.isEmpty()) {
+                continue;
+            }
+            Optional<Book> book = bookRepository.findById(job.get().getBookId());
+            if (book.isEmpty() || recommendationCache.getStored(book.get()) != null) {
+                finish(jobId, null);
+            } else {
+                pendingJobs.add(jobId);
+                books.add(book.get());
+            }
+        }
+        if (books.isEmpty()) {
+            return;
+        }
+        try {
+            acquirePermit();
+            List<Boolean> enriched = recommendationCache.enrichAll(books);
+            for (int i = 0; i < pendingJobs.size(); i++) {
+                finish(pendingJobs.get(i), enriched.get(i) ? null : "No usable answer from the model");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendingJobs.forEach(this::release);
+        } catch (Exception e) {
+            log.debug("Enrichment of jobs {} failed: {}", pendingJobs, e.getMessage());
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            pendingJobs.forEach(jobId -> finish(jobId, error));
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Enrichment poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void acquirePermit() throws InterruptedException {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, ratePerMinute);
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextPermitAt);
+            nextPermitAt = slot + interval;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Mark the job done (error == null) or schedule a retry, failing it after max attempts.
+     */
+    private void finish(Long jobId, String error) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            jobRepository.findById(jobId).ifPresent(job -> {
+                if (error == null) {
+                    job.setStatus(EnrichmentJob.DONE);
+                    job.setLastError(null);
+                    completed.incrementAndGet();
+                    return;
+                }
+                int attempts = job.getAttempts() + 1;
+                job.setAttempts(attempts);
+                job.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+                if (attempts >= maxAttempts) {
+                    job.setStatus(EnrichmentJob.FAILED);
+                    failed.incrementAndGet();
+                } else {
+                    job.setStatus(EnrichmentJob.PENDING);
+                    job.setNextAttemptAt(LocalDateTime.now().plusSeconds(retryBackoffSeconds * attempts));
+                    retried.incrementAndGet();
+                }
+            }));
+    }
+
+    // Shutting down mid-job: hand it back without counting an attempt
+    private void release(Long jobId) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jobRepository.findById(jobId).ifPresent(job -> job.setStatus(EnrichmentJob.PENDING)));
+        } catch (Exception e) {
+            log.debug("Could not release enrichment job {}: {}", jobId, e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package com.littlelibrary.service;
 
 import com.littlelibrary.model.Book;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 @Service
 public class GoogleBooksService {
@@ -16,12 +33,32 @@ public class GoogleBooksService {
     @Value("${google.books.api.key:}")
     private String apiKey;
     
+    @Value("${google.books.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    @Value("${google.books.retry.max-attempts:2}")
+    private int maxAttempts;
+    
+    @Value("${google.books.retry.backoff-ms:200}")
+    private long retryBackoffMs;
+    
+    @Autowired
+    private UpstreamMetrics metrics = new UpstreamMetrics();
+    
+    private static final int MAX_RESPONSE_BYTES = 2 * 1024 * 1024;
+    
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final RequestCoalescer coalescer = new RequestCoalescer();
     
     public GoogleBooksService() {
+        this("https://www.googleapis.com/books/v1");
+    }
+    
+    @Autowired
+    public GoogleBooksService(@Value("${google.books.base-url:https://www.googleapis.com/books/v1}") String baseUrl) {
         this.webClient = WebClient.builder()
-            .baseUrl("https://www.googleapis.com/books/v1")
+            .baseUrl(baseUrl)
             .build();
         this.objectMapper = new ObjectMapper();
     }
@@ -31,27 +68,7 @@ public class GoogleBooksService {
      */
     public List<Book> searchBooksByTitle(String titleQuery) {
         try {
-            String q = titleQuery.replace("\n", " ").trim();
-            if (q.length() > 200) {
-                q = q.substring(0, 200);
-            }
-            String url = "/volumes?q=intitle:" + q.replace(" ", "+");
-            if (!apiKey.isEmpty()) {
-                url += "&key=" + apiKey;
-            }
-            Mono<String> response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(String.class);
-            String responseBody = response.block();
-            JsonNode root = objectMapper.readTree(responseBody);
-            List<Book> results = new ArrayList<>();
-            if (root.has("items") && root.get("items").isArray()) {
-                for (JsonNode item : root.get("items")) {
-                    results.add(parseBookFromGoogleBooks(item));
-                }
-            }
-            return results;
+            return searchBooksByTitleReactive(titleQuery).collectList().block();
         } catch (Exception e) {
             throw new RuntimeException("Error searching books by title from Google Books API", e);
         }
@@ -59,25 +76,7 @@ public class GoogleBooksService {
     
     public Book getBookByIsbn(String isbn) {
         try {
-            String url = "/volumes?q=isbn:" + isbn;
-            if (!apiKey.isEmpty()) {
-                url += "&key=" + apiKey;
-            }
-            
-            Mono<String> response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(String.class);
-            
-            String responseBody = response.block();
-            JsonNode root = objectMapper.readTree(responseBody);
-            
-            if (root.get("totalItems").asInt() > 0) {
-                JsonNode item = root.get("items").get(0);
-                return parseBookFromGoogleBooks(item);
-            }
-            
-            return null;
+            return getBookByIsbnReactive(isbn).block();
         } catch (Exception e) {
             throw new RuntimeException("Error fetching book from Google Books API", e);
         }
@@ -85,48 +84,150 @@ public class GoogleBooksService {
     
     public String searchByText(String extractedText) {
         try {
-            // Extract potential title and author from OCR text
-            String searchQuery = extractedText.replaceAll("\\n", " ").trim();
-            if (searchQuery.length() > 100) {
-                searchQuery = searchQuery.substring(0, 100);
+            return searchByTextReactive(extractedText).block();
+        } catch (Exception e) {
+            throw new RuntimeException("Error searching book by text", e);
+        }
+    }
+    
+    /**
+     * Non-blocking variant of {@link #searchBooksByTitle(String)}. The response is read in
+     * full (and shared with identical concurrent searches) before the books are emitted.
+     */
+    public Flux<Book> searchBooksByTitleReactive(String titleQuery) {
+        String q = titleQuery.replace("\n", " ").trim();
+        if (q.length() > 200) {
+            q = q.substring(0, 200);
+        }
+        String path = "/volumes?q=intitle:" + q.replace(" ", "+");
+        return coalescer.execute("title:" + q.toLowerCase(Locale.ROOT),
+                () -> fetchItems("title", path, Integer.MAX_VALUE, this::parseBookFromGoogleBooks))
+            .flatMapIterable(items -> items);
+    }
+    
+    /**
+     * Non-blocking variant of {@link #getBookByIsbn(String)}; completes empty when the ISBN is unknown.
+     */
+    public Mono<Book> getBookByIsbnReactive(String isbn) {
+        String normalized = Isbn.normalize(isbn);
+        return coalescer.execute("isbn:" + normalized,
+                () -> fetchItems("isbn", "/volumes?q=isbn:" + normalized, 1, this::parseBookFromGoogleBooks))
+            .flatMap(items -> items.isEmpty() ? Mono.<Book>empty() : Mono.just(items.get(0)));
+    }
+    
+    /**
+     * Non-blocking variant of {@link #searchByText(String)}; completes empty when no ISBN was found.
+     */
+    public Mono<String> searchByTextReactive(String extractedText) {
+        // Extract potential title and author from OCR text
+        String searchQuery = extractedText.replaceAll("\\n", " ").trim();
+        if (searchQuery.length() > 100) {
+            searchQuery = searchQuery.substring(0, 100);
+        }
+        String path = "/volumes?q=" + searchQuery.replace(" ", "+");
+        return coalescer.execute("text:" + searchQuery.toLowerCase(Locale.ROOT), () -> fetchItems("text", path, 1, this::firstIsbnOf))
+            .flatMap(items -> items.isEmpty() ? Mono.<String>empty() : Mono.justOrEmpty(items.get(0)));
+    }
+    
+    /**
+     * Counters for identical concurrent lookups that shared a single upstream call.
+     */
+    public Map<String, Long> getCoalescingStats() {
+        return coalescer.getStats();
+    }
+    
+    /**
+     * Issue a volumes query and decode at most {@code limit} entries of the {@code items} array
+     * with the streaming parser. The body is buffered (up to MAX_RESPONSE_BYTES) first, since
+     * a failed attempt is retried from scratch, but never materialized as a whole tree.
+     * Each attempt is bounded by the configured timeout and recorded in UpstreamMetrics under
+     * {@code operation}; transient failures (timeouts, connection errors, 429 and 5xx answers)
+     * are retried with backoff, up to {@code google.books.retry.max-attempts} attempts in all.
+     */
+    private <T> Mono<List<T>> fetchItems(String operation, String path, int limit, Function<JsonNode, T> mapper) {
+        String url = path;
+        if (!apiKey.isEmpty()) {
+            url += "&key=" + apiKey;
+        }
+        Flux<DataBuffer> body = webClient.get()
+            .uri(url)
+            .retrieve()
+            .bodyToFlux(DataBuffer.class);
+        Mono<List<T>> attempt = DataBufferUtils.join(body, MAX_RESPONSE_BYTES)
+            .map(buffer -> {
+                metrics.recordResponseSize(UpstreamMetrics.GOOGLE_BOOKS, operation, buffer.readableByteCount());
+                try (InputStream in = buffer.asInputStream(true)) {
+                    return readItems(in, limit, mapper);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })
+            .defaultIfEmpty(new ArrayList<>())
+            .timeout(Duration.ofMillis(timeoutMs));
+        return metrics.timed(UpstreamMetrics.GOOGLE_BOOKS, operation, attempt)
+            .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1), Duration.ofMillis(retryBackoffMs))
+                .filter(this::isTransient));
+    }
+    
+    /**
+     * Map the first {@code limit} entries of a volumes response's "items" array as they are
+     * read; the rest of the body is not parsed. Package-private for GoogleBooksParseBenchmark.
+     */
+    <T> List<T> readItems(InputStream in, int limit, Function<JsonNode, T> mapper) throws IOException {
+        List<T> results = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return results;
             }
-            
-            String url = "/volumes?q=" + searchQuery.replace(" ", "+");
-            if (!apiKey.isEmpty()) {
-                url += "&key=" + apiKey;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"items".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (results.size() < limit && parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode item = parser.readValueAsTree();
+                    results.add(mapper.apply(item));
+                }
+                // Everything past the items we need is irrelevant
+                return results;
             }
-            
-            Mono<String> response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(String.class);
-            
-            String responseBody = response.block();
-            JsonNode root = objectMapper.readTree(responseBody);
-            
-            if (root.get("totalItems").asInt() > 0) {
-                JsonNode item = root.get("items").get(0);
-                JsonNode volumeInfo = item.get("volumeInfo");
-                
-                // Try to get ISBN from the first result
-                JsonNode industryIdentifiers = volumeInfo.get("industryIdentifiers");
-                if (industryIdentifiers != null && industryIdentifiers.isArray()) {
-                    for (JsonNode identifier : industryIdentifiers) {
-                        String type = identifier.get("type").asText();
-                        if ("ISBN_13".equals(type) || "ISBN_10".equals(type)) {
-                            return identifier.get("identifier").asText();
-                        }
-                    }
+        }
+        return results;
+    }
+    
+    private boolean isTransient(Throwable t) {
+        if (t instanceof TimeoutException || t instanceof WebClientRequestException) {
+            return true;
+        }
+        if (t instanceof WebClientResponseException) {
+            WebClientResponseException e = (WebClientResponseException) t;
+            return e.getStatusCode().is5xxServerError() || e.getStatusCode().value() == 429;
+        }
+        return false;
+    }
+    
+    private String firstIsbnOf(JsonNode item) {
+        JsonNode volumeInfo = item.get("volumeInfo");
+        
+        // Try to get ISBN from the first result
+        JsonNode industryIdentifiers = volumeInfo != null ? volumeInfo.get("industryIdentifiers") : null;
+        if (industryIdentifiers != null && industryIdentifiers.isArray()) {
+            for (JsonNode identifier : industryIdentifiers) {
+                String type = identifier.get("type").asText();
+                if ("ISBN_13".equals(type) || "ISBN_10".equals(type)) {
+                    return identifier.get("identifier").asText();
                 }
             }
-            
-            return null;
-        } catch (Exception e) {
-            throw new RuntimeException("Error searching book by text", e);
         }
+        return null;
     }
     
-    private Book parseBookFromGoogleBooks(JsonNode item) {
+    /**
+     * One volume as an unsaved Book. Package-private for GoogleBooksParseBenchmark.
+     */
+    Book parseBookFromGoogleBooks(JsonNode item) {
         JsonNode volumeInfo = item.get("volumeInfo");
         
         Book book = new Book();
@@ -0,0 +1,235 @@
+package com.littlelibrary.service;
+
+import java.nio.CharBuffer;
+
+/**
+ * ISBN handling shared by scanning, lookup and duplicate detection: normalization, check digit
+ * validation, ISBN-10 to ISBN-13 conversion, packing into a long for use as a map key, and
+ * finding an ISBN in OCR text.
+ *
+ * Everything here works on the characters directly, without regular expressions, and
+ * allocates little beyond the String it returns.
+ */
+public final class Isbn {
+
+    private static final int MAX_RUN = 64;
+
+    private Isbn() {
+    }
+
+    /**
+     * The ISBN without hyphens or whitespace, upper-cased (for the ISBN-10 check digit X).
+     * Empty for null. Returns the argument itself when there is nothing to change.
+     */
+    public static String normalize(String isbn) {
+        if (isbn == null) {
+            return "";
+        }
+        int length = isbn.length();
+        int i = 0;
+        while (i < length && !needsChange(isbn.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return isbn;
+        }
+        StringBuilder normalized = new StringBuilder(length);
+        normalized.append(isbn, 0, i);
+        for (; i < length; i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean needsChange(char c) {
+        return c == '-' || Character.isWhitespace(c) || Character.isLowerCase(c);
+    }
+
+    /**
+     * True for a 13-digit ISBN (978/979 prefix) or a 10-digit ISBN with a valid check digit.
+     */
+    public static boolean isValid(String isbn) {
+        return isbn != null && isValid(isbn, 0, isbn.length());
+    }
+
+    private static boolean isValid(CharSequence chars, int start, int length) {
+        if (length == 13) {
+            if (chars.charAt(start) != '9' || chars.charAt(start + 1) != '7'
+                || (chars.charAt(start + 2) != '8' && chars.charAt(start + 2) != '9')) {
+                return false;
+            }
+            int sum = 0;
+            for (int i = 0; i < 13; i++) {
+                int digit = digit(chars.charAt(start + i));
+                if (digit < 0) {
+                    return false;
+                }
+                sum += digit * (i % 2 == 0 ? 1 : 3);
+            }
+            return sum % 10 == 0;
+        }
+        if (length == 10) {
+            int sum = 0;
+            for (int i = 0; i < 10; i++) {
+                char c = chars.charAt(start + i);
+                int digit = digit(c);
+                if (digit < 0) {
+                    if (i == 9 && (c == 'X' || c == 'x')) {
+                        digit = 10;
+                    } else {
+                        return false;
+                    }
+                }
+                sum += digit * (10 - i);
+            }
+            return sum % 11 == 0;
+        }
+        return false;
+    }
+
+    /**
+     * The 978-prefixed ISBN-13 of a normalized ISBN-10, or the argument itself if it already is
+     * a valid ISBN-13. Null if it is neither.
+     */
+    public static String toIsbn13(String isbn) {
+        if (!isValid(isbn)) {
+            return null;
+        }
+        return isbn.length() == 13 ? isbn : Long.toString(toLong(isbn));
+    }
+
+    /**
+     * The ISBN-10 of a normalized 978-prefixed ISBN-13, or the argument itself if it already is
+     * a valid ISBN-10. Null otherwise (979-prefixed ISBN-13s have no ISBN-10).
+     */
+    public static String toIsbn10(String isbn) {
+        if (!isValid(isbn)) {
+            return null;
+        }
+        if (isbn.length() == 10) {
+            return isbn;
+        }
+        if (!isbn.startsWith("978")) {
+            return null;
+        }
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (isbn.charAt(3 + i) - '0') * (10 - i);
+        }
+        int check = (11 - sum % 11) % 11;
+        return isbn.substring(3, 12) + (check == 10 ? 'X' : (char) ('0' + check));
+    }
+
+    /**
+     * Pack a normalized ISBN into a positive long: ISBN-13 digits as-is, ISBN-10 converted to
+     * its 978-prefixed ISBN-13 so both forms of the same book collide. Returns -1 for anything else.
+     */
+    public static long toLong(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+        if (isbn.length() == 13) {
+            long value = 0;
+            for (int i = 0; i < 13; i++) {
+                int digit = digit(isbn.charAt(i));
+                if (digit < 0) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value > 0 ? value : -1;
+        }
+        if (isbn.length() == 10) {
+            char last = isbn.charAt(9);
+            if (digit(last) < 0 && last != 'X') {
+                return -1;
+            }
+            long value = 978;
+            int sum = 9 + 7 * 3 + 8;
+            for (int i = 0; i < 9; i++) {
+                int digit = digit(isbn.charAt(i));
+                if (digit < 0) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+                sum += digit * ((i + 3) % 2 == 0 ? 1 : 3);
+            }
+            return value * 10 + (10 - sum % 10) % 10;
+        }
+        return -1;
+    }
+
+    /**
+     * The first ISBN in OCR text whose check digit is valid, normalized; null if there is none.
+     *
+     * Single pass over the text: digits joined by single spaces or hyphens form a run (an X may
+     * end it), and each run is tried as a whole and from every group boundary, 13 digits first,
+     * then 10. This covers "ISBN 978-0-439-70818-0", "ISBN 0-439-70818-X" and a bare
+     * 9780439708180 next to other numbers on the same line.
+     */
+    public static String find(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        char[] run = new char[MAX_RUN];
+        CharBuffer chars = CharBuffer.wrap(run);
+        int[] groupStarts = new int[MAX_RUN];
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (digit(text.charAt(i)) < 0) {
+                i++;
+                continue;
+            }
+            int size = 0;
+            int groups = 0;
+            groupStarts[groups++] = 0;
+            while (i < length && size < MAX_RUN) {
+                char c = text.charAt(i);
+                if (digit(c) >= 0) {
+                    run[size++] = c;
+                    i++;
+                } else if (c == 'X' || c == 'x') {
+                    run[size++] = 'X';
+                    i++;
+                    break;
+                } else if ((c == ' ' || c == '-') && i + 1 < length && isRunChar(text.charAt(i + 1))) {
+                    groupStarts[groups++] = size;
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            String isbn = candidate(chars, size, groupStarts, groups);
+            if (isbn != null) {
+                return isbn;
+            }
+        }
+        return null;
+    }
+
+    private static String candidate(CharBuffer chars, int size, int[] groupStarts, int groups) {
+        char[] run = chars.array();
+        for (int g = 0; g < groups; g++) {
+            int start = groupStarts[g];
+            if (size - start >= 13 && isValid(chars, start, 13)) {
+                return new String(run, start, 13);
+            }
+            if (size - start >= 10 && isValid(chars, start, 10)) {
+                return new String(run, start, 10);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRunChar(char c) {
+        return digit(c) >= 0 || c == 'X' || c == 'x';
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
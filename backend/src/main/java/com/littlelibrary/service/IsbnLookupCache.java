@@ -0,0 +1,237 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of {@link GoogleBooksService#getBookByIsbn(String)}.
+ *
+ * Tier 1 is a bounded, access-ordered in-memory map with TTL expiry (including
+ * short-lived "not found" entries). Tier 2 is the {@code books} table: ISBNs we
+ * already know are served from the database, and books fetched from Google are
+ * written back so they survive restarts. Concurrent misses for one ISBN share a single
+ * Google Books fetch and a single insert.
+ */
+@Service
+public class IsbnLookupCache {
+
+    private static final Logger log = LoggerFactory.getLogger(IsbnLookupCache.class);
+
+    private static final Book NOT_FOUND = new Book();
+
+    @Autowired
+    private GoogleBooksService googleBooksService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SimilarityIndex similarityIndex;
+
+    @Value("${google.books.cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${google.books.cache.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${google.books.cache.negative-ttl-seconds:600}")
+    private long negativeTtlSeconds;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Google Books hands every coalesced caller the same Book; only one of them may save it
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Resolve a book by ISBN, consulting memory, then the database, then Google Books.
+     * Returns null when the ISBN is unknown upstream.
+     */
+    public Book getBookByIsbn(String isbn) {
+        String key = Isbn.normalize(isbn);
+        if (key.isEmpty()) {
+            return null;
+        }
+
+        Entry cached = get(key);
+        if (cached != null) {
+            if (cached.book == null) {
+                negativeHits.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return cached.book;
+        }
+
+        Optional<Book> stored = bookRepository.findByIsbn(key);
+        if (stored.isPresent()) {
+            databaseHits.incrementAndGet();
+            put(key, stored.get(), ttlSeconds);
+            return stored.get();
+        }
+
+        misses.incrementAndGet();
+        return coalescer.execute(key, () -> Mono.fromCallable(() -> store(key, googleBooksService.getBookByIsbn(key))))
+            .block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getBookByIsbn(String)}. Memory hits complete immediately;
+     * database access and write-back run on the bounded elastic scheduler.
+     */
+    public Mono<Book> getBookByIsbnReactive(String isbn) {
+        String key = Isbn.normalize(isbn);
+        if (key.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Entry cached = get(key);
+        if (cached != null) {
+            if (cached.book == null) {
+                negativeHits.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return Mono.justOrEmpty(cached.book);
+        }
+
+        return Mono.fromCallable(() -> bookRepository.findByIsbn(key))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(stored -> {
+                if (stored.isPresent()) {
+                    databaseHits.incrementAndGet();
+                    put(key, stored.get(), ttlSeconds);
+                    return Mono.just(stored.get());
+                }
+                misses.incrementAndGet();
+                return coalescer.execute(key, () -> googleBooksService.getBookByIsbnReactive(key)
+                    .publishOn(Schedulers.boundedElastic())
+                    .defaultIfEmpty(NOT_FOUND)
+                    .flatMap(fetched -> Mono.justOrEmpty(store(key, fetched == NOT_FOUND ? null : fetched))));
+            });
+    }
+
+    /**
+     * Drop any cached entry for the ISBN, e.g. after the stored book was edited.
+     */
+    public void invalidate(String isbn) {
+        String key = Isbn.normalize(isbn);
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) size);
+        stats.put("hits", hits.get());
+        stats.put("negativeHits", negativeHits.get());
+        stats.put("databaseHits", databaseHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private Entry get(String key) {
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e == null) {
+                return null;
+            }
+            if (e.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return e;
+        }
+    }
+
+    private Book store(String key, Book fetched) {
+        if (fetched == null) {
+            put(key, null, negativeTtlSeconds);
+            return null;
+        }
+        Book persisted = persist(key, fetched);
+        put(key, persisted, ttlSeconds);
+        return persisted;
+    }
+
+    private void put(String key, Book book, long ttl) {
+        synchronized (entries) {
+            entries.put(key, new Entry(book, System.currentTimeMillis() + ttl * 1000L));
+        }
+    }
+
+    /**
+     * Write the fetched book to the books table in its own transaction so a constraint
+     * failure (e.g. a concurrent insert of the same ISBN) never poisons the caller's transaction.
+     */
+    private Book persist(String key, Book fetched) {
+        fetched.setIsbn(key);
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            Book saved = tx.execute(status -> bookRepository.findByIsbn(key)
+                .orElseGet(() -> {
+                    Book created = bookRepository.save(fetched);
+                    similarityIndex.upsert(created);
+                    return created;
+                }));
+            return saved != null ? saved : fetched;
+        } catch (Exception e) {
+            log.debug("Could not store book {} from Google Books: {}", key, e.getMessage());
+            // A concurrent request may have inserted the same ISBN first; prefer its row
+            try {
+                return bookRepository.findByIsbn(key).orElse(fetched);
+            } catch (Exception ignored) {
+                return fetched;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Book book;
+        private final long expiresAt;
+
+        private Entry(Book book, long expiresAt) {
+            this.book = book;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
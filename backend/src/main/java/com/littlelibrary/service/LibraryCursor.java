@@ -0,0 +1,42 @@
+package com.littlelibrary.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a library listing: the (dateAdded, id) of the last row of a page,
+ * serialized as an opaque URL-safe token.
+ */
+final class LibraryCursor {
+
+    /** Sorts after every real row, so the first page needs no special-case query. */
+    static final LibraryCursor FIRST = new LibraryCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    private final LocalDateTime dateAdded;
+    private final Long id;
+
+    LibraryCursor(LocalDateTime dateAdded, Long id) {
+        this.dateAdded = dateAdded;
+        this.id = id;
+    }
+
+    LocalDateTime getDateAdded() { return dateAdded; }
+    Long getId() { return id; }
+
+    String encode() {
+        String raw = dateAdded + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static LibraryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new LibraryCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
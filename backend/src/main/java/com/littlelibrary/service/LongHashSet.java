@@ -0,0 +1,102 @@
+package com.littlelibrary.service;
+
+/**
+ * Open-addressing hash set of positive longs (linear probing, power-of-two table, no boxing).
+ * Slot value 0 marks an empty slot, so 0 and negative values cannot be stored.
+ * Not thread-safe; callers synchronize.
+ */
+final class LongHashSet {
+
+    private static final float MAX_LOAD = 0.7f;
+
+    private long[] slots;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        slots = new long[capacity];
+    }
+
+    boolean add(long value) {
+        checkValue(value);
+        int i = indexOf(value);
+        if (slots[i] == value) {
+            return false;
+        }
+        slots[i] = value;
+        if (++size > slots.length * MAX_LOAD) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        return value > 0 && slots[indexOf(value)] == value;
+    }
+
+    boolean remove(long value) {
+        if (value <= 0) {
+            return false;
+        }
+        int mask = slots.length - 1;
+        int i = indexOf(value);
+        if (slots[i] != value) {
+            return false;
+        }
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        for (int j = (i + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+            int home = home(slots[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                slots[gap] = slots[j];
+                gap = j;
+            }
+        }
+        slots[gap] = 0;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Approximate heap footprint: object header and fields plus the slot array. */
+    long estimatedBytes() {
+        return 24 + 16 + 8L * slots.length;
+    }
+
+    /** Slot of {@code value}, or of the empty slot where it would go. */
+    private int indexOf(long value) {
+        int mask = slots.length - 1;
+        int i = home(value, mask);
+        while (slots[i] != 0 && slots[i] != value) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int home(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        for (long v : old) {
+            if (v != 0) {
+                slots[indexOf(v)] = v;
+            }
+        }
+    }
+
+    private static void checkValue(long value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Only positive values can be stored: " + value);
+        }
+    }
+}
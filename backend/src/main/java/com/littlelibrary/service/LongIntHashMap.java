@@ -0,0 +1,83 @@
+package com.littlelibrary.service;
+
+/**
+ * Open-addressing hash map from positive longs to ints (linear probing, power-of-two table, no
+ * boxing). Key 0 marks an empty slot, so 0 and negative keys cannot be stored. Entries are never
+ * removed. Not thread-safe; callers synchronize.
+ */
+final class LongIntHashMap {
+
+    private static final float MAX_LOAD = 0.7f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /** The value for {@code key}, or {@code missing} if there is none. */
+    int get(long key, int missing) {
+        if (key <= 0) {
+            return missing;
+        }
+        int i = indexOf(key);
+        return keys[i] == key ? values[i] : missing;
+    }
+
+    void put(long key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Only positive keys can be stored: " + key);
+        }
+        int i = indexOf(key);
+        if (keys[i] == key) {
+            values[i] = value;
+            return;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * MAX_LOAD) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Slot of {@code key}, or of the empty slot where it would go. */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = indexOf(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LongIntHashMap{size=" + size + ", capacity=" + keys.length + "}";
+    }
+}
@@ -1,23 +1,61 @@
 package com.littlelibrary.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClientBuilder;
 import software.amazon.awssdk.services.rekognition.model.DetectTextRequest;
 import software.amazon.awssdk.services.rekognition.model.DetectTextResponse;
 import software.amazon.awssdk.services.rekognition.model.Image;
 import software.amazon.awssdk.services.rekognition.model.TextDetection;
+import java.awt.image.BufferedImage;
+import java.net.URI;
+import java.time.Duration;
 import java.util.Base64;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Reads ISBNs and cover text from photos. Barcodes are decoded in-process first (see
+ * BarcodeDecoder); when that finds nothing, a recent Rekognition answer for the same photo is
+ * reused from ScanResultCache, and Rekognition text detection is only called without one.
+ *
+ * All Rekognition calls share one async client, built at startup over a bounded Netty
+ * connection pool: at most {@code aws.rekognition.max-concurrency} requests are in flight,
+ * further callers queue for a connection (up to {@code aws.rekognition.max-pending}) and every
+ * call is cut off after {@code aws.rekognition.call-timeout-ms}. No thread waits on the network;
+ * the reactive methods complete on the SDK's event loop. {@code aws.rekognition.endpoint}
+ * points the client at another endpoint, e.g. a local stub in tests.
+ */
 @Service
 public class OCRService {
     
+    private static final Logger log = LoggerFactory.getLogger(OCRService.class);
+    
+    @Autowired
+    private BarcodeDecoder barcodeDecoder;
+    
+    @Autowired
+    private ScanResultCache scanResultCache;
+    
+    @Autowired
+    private UpstreamMetrics metrics = new UpstreamMetrics();
+    
     @Value("${aws.access.key.id:}")
     private String awsAccessKeyId;
     
@@ -27,98 +65,251 @@ public class OCRService {
     @Value("${aws.region:us-east-1}")
     private String awsRegion;
     
-    private RekognitionClient rekognitionClient;
+    @Value("${aws.rekognition.endpoint:}")
+    private String rekognitionEndpoint = "";
     
-    private RekognitionClient getRekognitionClient() {
-        if (rekognitionClient == null) {
-            if (!awsAccessKeyId.isEmpty() && !awsSecretAccessKey.isEmpty()) {
-                AwsBasicCredentials awsCreds = AwsBasicCredentials.create(awsAccessKeyId, awsSecretAccessKey);
-                rekognitionClient = RekognitionClient.builder()
-                    .region(Region.of(awsRegion))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                    .build();
-            }
+    @Value("${aws.rekognition.max-concurrency:16}")
+    private int maxConcurrency = 16;
+    
+    @Value("${aws.rekognition.max-pending:256}")
+    private int maxPending = 256;
+    
+    @Value("${aws.rekognition.connect-timeout-ms:2000}")
+    private long connectTimeoutMs = 2000;
+    
+    @Value("${aws.rekognition.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs = 5000;
+    
+    @Value("${aws.rekognition.call-timeout-ms:10000}")
+    private long callTimeoutMs = 10000;
+    
+    private volatile RekognitionAsyncClient rekognitionClient;
+    
+    private final AtomicLong localAttempts = new AtomicLong();
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong localDecodeMicros = new AtomicLong();
+    private final AtomicLong maxLocalDecodeMicros = new AtomicLong();
+    private final AtomicLong remoteCalls = new AtomicLong();
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong remoteMillis = new AtomicLong();
+    private final AtomicLong remoteTimeouts = new AtomicLong();
+    private final AtomicLong remoteFailures = new AtomicLong();
+    
+    @PostConstruct
+    void start() {
+        if (awsAccessKeyId.isEmpty() || awsSecretAccessKey.isEmpty()) {
+            log.info("AWS credentials not set; photos are only decoded locally");
+            return;
+        }
+        AwsBasicCredentials awsCreds = AwsBasicCredentials.create(awsAccessKeyId, awsSecretAccessKey);
+        RekognitionAsyncClientBuilder builder = RekognitionAsyncClient.builder()
+            .region(Region.of(awsRegion))
+            .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
+            .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPending)
+                .connectionTimeout(Duration.ofMillis(connectTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .readTimeout(Duration.ofMillis(callTimeoutMs))
+                .connectionMaxIdleTime(Duration.ofSeconds(60)))
+            .overrideConfiguration(ClientOverrideConfiguration.builder()
+                .apiCallTimeout(Duration.ofMillis(callTimeoutMs))
+                .build());
+        if (!rekognitionEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(rekognitionEndpoint));
+        }
+        rekognitionClient = builder.build();
+    }
+    
+    @PreDestroy
+    void stop() {
+        RekognitionAsyncClient client = rekognitionClient;
+        rekognitionClient = null;
+        if (client != null) {
+            client.close();
         }
-        return rekognitionClient;
     }
     
     public String extractTextFromImage(String base64Image) {
         try {
-            RekognitionClient client = getRekognitionClient();
-            if (client == null) {
-                throw new RuntimeException("AWS Rekognition not configured");
-            }
-            
-            // Remove data URL prefix if present
-            String imageData = base64Image;
-            if (imageData.contains(",")) {
-                imageData = imageData.split(",")[1];
-            }
-            
-            byte[] imageBytes = Base64.getDecoder().decode(imageData);
-            SdkBytes sourceBytes = SdkBytes.fromByteArray(imageBytes);
-            
-            Image image = Image.builder()
-                .bytes(sourceBytes)
-                .build();
-            
-            DetectTextRequest request = DetectTextRequest.builder()
-                .image(image)
-                .build();
-            
-            DetectTextResponse response = client.detectText(request);
-            
-            StringBuilder extractedText = new StringBuilder();
-            for (TextDetection text : response.textDetections()) {
-                if ("LINE".equals(text.type().toString())) {
-                    extractedText.append(text.detectedText()).append("\n");
-                }
+            return detectText(decodeImage(base64Image)).block();
+        } catch (RuntimeException e) {
+            // block() wraps checked exceptions such as TimeoutException; report the original
+            throw new RuntimeException("Error extracting text from image", Exceptions.unwrap(e));
+        }
+    }
+    
+    /**
+     * The LINE detections Rekognition finds on the photo, one per line. Fails with
+     * IllegalStateException when no credentials are configured and with TimeoutException when
+     * the call takes longer than {@code aws.rekognition.call-timeout-ms}. Calls are recorded in
+     * UpstreamMetrics.
+     */
+    public Mono<String> detectText(byte[] imageBytes) {
+        RekognitionAsyncClient client = rekognitionClient;
+        if (client == null) {
+            return Mono.error(new IllegalStateException("AWS Rekognition not configured"));
+        }
+        DetectTextRequest request = DetectTextRequest.builder()
+            .image(Image.builder().bytes(SdkBytes.fromByteArray(imageBytes)).build())
+            .build();
+        metrics.recordRequestSize(UpstreamMetrics.REKOGNITION, "detect_text", imageBytes.length);
+        // The future is cancelled (and its connection released) if the timeout fires first
+        Mono<DetectTextResponse> call = Mono.fromFuture(() -> client.detectText(request))
+            .timeout(Duration.ofMillis(callTimeoutMs));
+        return metrics.timed(UpstreamMetrics.REKOGNITION, "detect_text", call)
+            .map(OCRService::lines);
+    }
+    
+    private static String lines(DetectTextResponse response) {
+        StringBuilder extractedText = new StringBuilder();
+        for (TextDetection text : response.textDetections()) {
+            if ("LINE".equals(text.type().toString())) {
+                extractedText.append(text.detectedText()).append("\n");
             }
-            
-            return extractedText.toString().trim();
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Error extracting text from image", e);
         }
+        return extractedText.toString().trim();
     }
     
+    /**
+     * The ISBN shown on the photo: decoded from its barcode locally when possible, otherwise
+     * read from the text Rekognition finds. Null if neither yields a valid ISBN.
+     */
     public String extractBarcodeFromImage(String base64Image) {
-        try {
-            String extractedText = extractTextFromImage(base64Image);
-            
-            // Look for ISBN patterns in the extracted text
-            Pattern isbnPattern = Pattern.compile("(?:ISBN[\\s-]*(?:13|10)?[\\s-]*:?[\\s-]*)?(\\d{1,5}[\\s-]?\\d{1,7}[\\s-]?\\d{1,7}[\\s-]?[\\dX])");
-            Matcher matcher = isbnPattern.matcher(extractedText);
-            
-            if (matcher.find()) {
-                String isbn = matcher.group(1).replaceAll("[\\s-]", "");
-                
-                // Validate ISBN length
-                if (isbn.length() == 10 || isbn.length() == 13) {
-                    return isbn;
+        return extractBarcodeFromImage(decodeImage(base64Image));
+    }
+    
+    /**
+     * Same for raw image bytes, e.g. an uploaded file; the bytes are decoded in place.
+     */
+    public String extractBarcodeFromImage(byte[] imageBytes) {
+        return extractBarcode(imageBytes).block();
+    }
+    
+    /**
+     * Non-blocking form of {@link #extractBarcodeFromImage(byte[])}: the local decode and cache
+     * lookup run on the bounded elastic scheduler, the Rekognition call on the SDK's event loop.
+     * Empty if no valid ISBN was found.
+     */
+    public Mono<String> extractBarcode(byte[] imageBytes) {
+        return Mono.fromCallable(() -> scanLocally(imageBytes))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(local -> {
+                if (local.isbn != null) {
+                    return Mono.just(local.isbn);
                 }
-            }
-            
-            // Also look for pure numeric sequences that could be ISBNs
-            Pattern numericPattern = Pattern.compile("(\\d{10,13})");
-            Matcher numericMatcher = numericPattern.matcher(extractedText);
-            
-            while (numericMatcher.find()) {
-                String candidate = numericMatcher.group(1);
-                if (candidate.length() == 10 || candidate.length() == 13) {
-                    // Basic validation - ISBN-13 should start with 978 or 979
-                    if (candidate.length() == 13 && (candidate.startsWith("978") || candidate.startsWith("979"))) {
-                        return candidate;
-                    } else if (candidate.length() == 10) {
-                        return candidate;
-                    }
+                if (local.answered) {
+                    return Mono.empty();
                 }
-            }
-            
-            return null;
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Error extracting barcode from image", e);
+                return scanRemotely(imageBytes, local.hash);
+            });
+    }
+    
+    /**
+     * Base64 or data URL form of {@link #extractBarcode(byte[])}.
+     */
+    public Mono<String> extractBarcode(String base64Image) {
+        return Mono.fromCallable(() -> decodeImage(base64Image))
+            .flatMap(this::extractBarcode);
+    }
+    
+    private LocalScan scanLocally(byte[] imageBytes) {
+        long start = System.nanoTime();
+        BufferedImage image = barcodeDecoder.readImage(imageBytes);
+        String decoded = null;
+        try {
+            decoded = image != null ? barcodeDecoder.decodeIsbn(image) : null;
+        } catch (RuntimeException e) {
+            log.debug("Local barcode decoding failed: {}", e.getMessage());
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        localAttempts.incrementAndGet();
+        localDecodeMicros.addAndGet(micros);
+        maxLocalDecodeMicros.accumulateAndGet(micros, Math::max);
+        if (decoded != null) {
+            localHits.incrementAndGet();
+            return new LocalScan(null, decoded, true);
+        }
+        if (image == null) {
+            return new LocalScan(null, null, false);
+        }
+        
+        // The decoded barcode always wins: books sharing a cover layout (series, publisher
+        // templates) have near-identical hashes, so the cache only stands in for Rekognition
+        long hash = ScanResultCache.hash(image);
+        ScanResultCache.Entry cached = scanResultCache.find(hash);
+        if (cached != null) {
+            return new LocalScan(hash, cached.isbn, true);
+        }
+        return new LocalScan(hash, null, false);
+    }
+    
+    private Mono<String> scanRemotely(byte[] imageBytes, Long hash) {
+        return Mono.defer(() -> {
+            remoteCalls.incrementAndGet();
+            long remoteStart = System.nanoTime();
+            return detectText(imageBytes)
+                .doFinally(signal -> remoteMillis.addAndGet((System.nanoTime() - remoteStart) / 1_000_000))
+                // The SDK's own call/attempt timeouts count as timeouts too, not just ours
+                .doOnError(e -> ("timeout".equals(UpstreamMetrics.errorKind(e)) ? remoteTimeouts : remoteFailures)
+                    .incrementAndGet())
+                .flatMap(text -> {
+                    String isbn = Isbn.find(text);
+                    if (isbn != null) {
+                        remoteHits.incrementAndGet();
+                    }
+                    if (hash != null) {
+                        scanResultCache.put(hash, isbn);
+                    }
+                    return Mono.justOrEmpty(isbn);
+                })
+                .onErrorMap(e -> new RuntimeException("Error extracting barcode from image", e));
+        });
+    }
+    
+    /**
+     * Local decode hit ratio and latency, how often Rekognition had to be asked (and timed out
+     * or failed), and the repeat-scan cache counters.
+     */
+    public Map<String, Long> getStats() {
+        long attempts = localAttempts.get();
+        long calls = remoteCalls.get();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("localAttempts", attempts);
+        stats.put("localHits", localHits.get());
+        stats.put("localHitPercent", attempts == 0 ? 0L : localHits.get() * 100 / attempts);
+        stats.put("avgLocalDecodeMicros", attempts == 0 ? 0L : localDecodeMicros.get() / attempts);
+        stats.put("maxLocalDecodeMicros", maxLocalDecodeMicros.get());
+        stats.put("remoteCalls", calls);
+        stats.put("remoteHits", remoteHits.get());
+        stats.put("avgRemoteMs", calls == 0 ? 0L : remoteMillis.get() / calls);
+        stats.put("remoteTimeouts", remoteTimeouts.get());
+        stats.put("remoteFailures", remoteFailures.get());
+        scanResultCache.getStats().forEach((key, value) -> stats.put("cache." + key, value));
+        return stats;
+    }
+    
+    // Outcome of the local decode and cache lookup; answered means Rekognition is not needed
+    private static final class LocalScan {
+        final Long hash;
+        final String isbn;
+        final boolean answered;
+        
+        LocalScan(Long hash, String isbn, boolean answered) {
+            this.hash = hash;
+            this.isbn = isbn;
+            this.answered = answered;
+        }
+    }
+    
+    private static byte[] decodeImage(String base64Image) {
+        // Remove data URL prefix if present
+        int comma = base64Image.indexOf(',');
+        String imageData = comma < 0 ? base64Image : base64Image.substring(comma + 1);
+        try {
+            return Base64.getDecoder().decode(imageData);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Error extracting text from image", e);
         }
     }
 }
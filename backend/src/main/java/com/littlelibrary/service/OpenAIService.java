@@ -3,62 +3,167 @@ package com.littlelibrary.service;
 import com.littlelibrary.dto.AIRecommendationResponse;
 import com.littlelibrary.dto.BookDTO;
 import com.littlelibrary.model.Book;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 @Service
 public class OpenAIService {
     
+    /**
+     * Identifies the prompts built by {@link #buildPrompt(Book)} and {@link #buildBatchPrompt(List)}.
+     * Stored recommendations are keyed by it, so bump it whenever either prompt or the expected
+     * response format changes.
+     */
+    public static final String PROMPT_VERSION = "age-v1";
+    
+    // Output tokens to allow per book in a batch answer, on top of a fixed allowance
+    private static final int BATCH_TOKENS_PER_BOOK = 160;
+    private static final int MAX_BATCH_TOKENS = 4000;
+    private static final int MAX_BATCH_DESCRIPTION_CHARS = 600;
+    
     @Value("${openai.api.key:}")
     private String apiKey;
     
+    @Value("${openai.timeout-ms:60000}")
+    private long timeoutMs;
+    
+    @Value("${openai.batch.max-books:20}")
+    private int batchMaxBooks;
+    
+    @Autowired
+    private UpstreamMetrics metrics = new UpstreamMetrics();
+    
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     
     public OpenAIService() {
+        this("https://api.openai.com/v1");
+    }
+    
+    @Autowired
+    public OpenAIService(@Value("${openai.api.base-url:https://api.openai.com/v1}") String baseUrl) {
         this.webClient = WebClient.builder()
-            .baseUrl("https://api.openai.com/v1")
+            .baseUrl(baseUrl)
+            .codecs(c -> c.defaultCodecs().maxInMemorySize(2 * 1024 * 1024))
             .build();
         this.objectMapper = new ObjectMapper();
     }
     
+    /**
+     * Whether an API key is configured; without one every call falls back to the heuristic.
+     */
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+    
     public AIRecommendationResponse getBookRecommendations(Book book) {
+        AIRecommendationResponse response = fetchRecommendations(book);
+        // Return a fallback response if OpenAI is not available
+        return response != null ? response : createFallbackResponse(book);
+    }
+    
+    /**
+     * Ask the model for recommendations. Returns null when the call fails or the answer
+     * can't be parsed, so callers can tell a real answer from the heuristic fallback.
+     */
+    public AIRecommendationResponse fetchRecommendations(Book book) {
+        if (!isConfigured()) {
+            return null;
+        }
         try {
-            String prompt = buildPrompt(book);
-            
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("model", "gpt-3.5-turbo");
-            requestBody.put("max_tokens", 500);
-            requestBody.put("temperature", 0.7);
-            
-            ObjectNode message = objectMapper.createObjectNode();
-            message.put("role", "user");
-            message.put("content", prompt);
-            requestBody.set("messages", objectMapper.createArrayNode().add(message));
-            
-            Mono<String> response = webClient.post()
+            return parseOpenAIResponse(chatCompletion("recommendations", buildPrompt(book), 500));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Batch variant of {@link #getBookRecommendations(Book)}: one result per book, in order.
+     * Books the model answered for get its recommendation; the rest get {@link #createFallbackResponse}.
+     */
+    public List<AIRecommendationResponse> getBookRecommendationsBatch(List<Book> books) {
+        List<AIRecommendationResponse> results = fetchRecommendationsBatch(books);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, createFallbackResponse(books.get(i)));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Ask the model about many books with one chat completion per {@code openai.batch.max-books}
+     * books, so the instructions are sent once per batch instead of once per book. Returns one
+     * entry per book, in order; an entry is null if its batch failed or the model's answer for
+     * that book was missing or malformed.
+     */
+    public List<AIRecommendationResponse> fetchRecommendationsBatch(List<Book> books) {
+        List<AIRecommendationResponse> results = new ArrayList<>(Collections.nCopies(books.size(), null));
+        if (!isConfigured()) {
+            return results;
+        }
+        int size = Math.max(1, batchMaxBooks);
+        for (int from = 0; from < books.size(); from += size) {
+            List<Book> chunk = books.subList(from, Math.min(from + size, books.size()));
+            try {
+                int maxTokens = Math.min(MAX_BATCH_TOKENS, 100 + BATCH_TOKENS_PER_BOOK * chunk.size());
+                List<AIRecommendationResponse> answers = parseBatchContent(
+                    chatCompletion("recommendations_batch", buildBatchPrompt(chunk), maxTokens), chunk.size());
+                for (int i = 0; i < answers.size(); i++) {
+                    results.set(from + i, answers.get(i));
+                }
+            } catch (Exception e) {
+                // Whole batch failed; its entries stay null
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Send a single-message chat completion and return the assistant's message content.
+     * The call is recorded in UpstreamMetrics under {@code operation}.
+     */
+    private String chatCompletion(String operation, String prompt, int maxTokens) throws Exception {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", "gpt-3.5-turbo");
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("temperature", 0.7);
+        
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("role", "user");
+        message.put("content", prompt);
+        requestBody.set("messages", objectMapper.createArrayNode().add(message));
+        
+        return metrics.timed(UpstreamMetrics.OPENAI, operation, () -> {
+            byte[] responseBody = webClient.post()
                 .uri("/chat/completions")
                 .header("Authorization", "Bearer " + apiKey)
                 .header("Content-Type", "application/json")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(String.class);
-            
-            String responseBody = response.block();
-            return parseOpenAIResponse(responseBody, book);
+                .bodyToMono(byte[].class)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .blockOptional()
+                .orElse(new byte[0]);
+            metrics.recordResponseSize(UpstreamMetrics.OPENAI, operation, responseBody.length);
             
-        } catch (Exception e) {
-            // Return a fallback response if OpenAI is not available
-            return createFallbackResponse(book);
-        }
+            JsonNode content = objectMapper.readTree(responseBody).path("choices").path(0).path("message").path("content");
+            if (!content.isTextual()) {
+                throw new JsonMappingException(null, "Chat completion without message content");
+            }
+            return content.asText();
+        });
     }
     
     private String buildPrompt(Book book) {
@@ -85,46 +190,116 @@ public class OpenAIService {
         return prompt.toString();
     }
     
-    private AIRecommendationResponse parseOpenAIResponse(String responseBody, Book book) {
-        try {
-            JsonNode root = objectMapper.readTree(responseBody);
-            String content = root.get("choices").get(0).get("message").get("content").asText();
-            
-            // Try to parse JSON from the response
-            JsonNode aiResponse = objectMapper.readTree(content);
-            
-            AIRecommendationResponse response = new AIRecommendationResponse();
-            response.setSuggestedMinAge(aiResponse.get("suggestedMinAge").asInt());
-            response.setSuggestedMaxAge(aiResponse.get("suggestedMaxAge").asInt());
-            response.setReasoning(aiResponse.get("reasoning").asText());
-            response.setReadingLevel(aiResponse.get("readingLevel").asText());
+    private String buildBatchPrompt(List<Book> books) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Analyze each of these children's books and provide age recommendations:\n");
+        
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            prompt.append("\nBook ").append(i + 1).append(":\n");
+            prompt.append("Title: ").append(book.getTitle()).append("\n");
+            prompt.append("Author: ").append(book.getAuthor()).append("\n");
             
-            // Parse themes
-            JsonNode themes = aiResponse.get("themes");
-            List<String> themeList = new ArrayList<>();
-            if (themes.isArray()) {
-                for (JsonNode theme : themes) {
-                    themeList.add(theme.asText());
+            if (book.getDescription() != null) {
+                String description = book.getDescription();
+                if (description.length() > MAX_BATCH_DESCRIPTION_CHARS) {
+                    description = description.substring(0, MAX_BATCH_DESCRIPTION_CHARS) + "...";
                 }
+                prompt.append("Description: ").append(description).append("\n");
             }
-            response.setThemes(themeList);
-            
-            response.setAgeRecommendation(
-                "Recommended for ages " + response.getSuggestedMinAge() + 
-                "-" + response.getSuggestedMaxAge()
-            );
-            
-            // For now, return empty similar books list
-            response.setSimilarBooks(new ArrayList<>());
-            
-            return response;
             
+            if (book.getGenre() != null) {
+                prompt.append("Genre: ").append(book.getGenre()).append("\n");
+            }
+        }
+        
+        prompt.append("\nFor each book, please provide:\n");
+        prompt.append("1. Recommended age range (min and max age in years)\n");
+        prompt.append("2. Brief reasoning for the age recommendation\n");
+        prompt.append("3. Reading level (Early Reader, Beginning, Intermediate, Advanced)\n");
+        prompt.append("4. Main themes (up to 3)\n");
+        prompt.append("\nRespond with only a JSON array containing one object per book, with keys: ");
+        prompt.append("id (the book number above), suggestedMinAge, suggestedMaxAge, reasoning, readingLevel, themes");
+        
+        return prompt.toString();
+    }
+    
+    private AIRecommendationResponse parseOpenAIResponse(String content) {
+        try {
+            // Try to parse JSON from the response
+            return toRecommendation(objectMapper.readTree(content));
         } catch (Exception e) {
-            return createFallbackResponse(book);
+            return null;
+        }
+    }
+    
+    /**
+     * Map a batch answer back to its books by "id" (1-based, as numbered in the prompt).
+     * Tolerates code fences or text around the array; entries that are missing, duplicated
+     * or malformed are left null.
+     */
+    private List<AIRecommendationResponse> parseBatchContent(String content, int count) throws Exception {
+        List<AIRecommendationResponse> results = new ArrayList<>(Collections.nCopies(count, null));
+        int start = content.indexOf('[');
+        int end = content.lastIndexOf(']');
+        if (start < 0 || end < start) {
+            return results;
         }
+        JsonNode array = objectMapper.readTree(content.substring(start, end + 1));
+        for (JsonNode entry : array) {
+            JsonNode id = entry.get("id");
+            if (id == null || !id.canConvertToInt()) {
+                continue;
+            }
+            int index = id.asInt() - 1;
+            if (index >= 0 && index < count && results.get(index) == null) {
+                results.set(index, toRecommendation(entry));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Build a response from one JSON answer, or null if the age range is missing or not numeric.
+     */
+    private AIRecommendationResponse toRecommendation(JsonNode aiResponse) {
+        JsonNode minAge = aiResponse.get("suggestedMinAge");
+        JsonNode maxAge = aiResponse.get("suggestedMaxAge");
+        if (minAge == null || maxAge == null || !minAge.isNumber() || !maxAge.isNumber()) {
+            return null;
+        }
+        
+        AIRecommendationResponse response = new AIRecommendationResponse();
+        response.setSuggestedMinAge(minAge.asInt());
+        response.setSuggestedMaxAge(maxAge.asInt());
+        response.setReasoning(aiResponse.path("reasoning").asText(null));
+        response.setReadingLevel(aiResponse.path("readingLevel").asText(null));
+        
+        // Parse themes
+        JsonNode themes = aiResponse.get("themes");
+        List<String> themeList = new ArrayList<>();
+        if (themes != null && themes.isArray()) {
+            for (JsonNode theme : themes) {
+                themeList.add(theme.asText());
+            }
+        }
+        response.setThemes(themeList);
+        
+        response.setAgeRecommendation(
+            "Recommended for ages " + response.getSuggestedMinAge() + 
+            "-" + response.getSuggestedMaxAge()
+        );
+        
+        // For now, return empty similar books list
+        response.setSimilarBooks(new ArrayList<>());
+        
+        return response;
     }
     
-    private AIRecommendationResponse createFallbackResponse(Book book) {
+    /**
+     * Heuristic recommendation from page count, used when the model is unavailable.
+     */
+    public AIRecommendationResponse createFallbackResponse(Book book) {
         AIRecommendationResponse response = new AIRecommendationResponse();
         
         // Provide basic age recommendations based on genre and page count
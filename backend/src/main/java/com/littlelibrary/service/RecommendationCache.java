@@ -0,0 +1,320 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.model.BookRecommendation;
+import com.littlelibrary.repository.BookRecommendationRepository;
+import com.littlelibrary.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through store for AI age recommendations, in front of {@link OpenAIService}.
+ *
+ * Tier 1 is a bounded, access-ordered in-memory map (by ISBN and by book id). Tier 2 is the
+ * {@code book_recommendations} table, keyed by ISBN and {@link OpenAIService#PROMPT_VERSION}.
+ * Request paths only read the two tiers ({@link #getCachedByBookId}, {@link #getStored});
+ * the model is called from {@link #enrich} by the background {@link EnrichmentQueue}, and
+ * concurrent misses for the same book share one call. New answers are stored and their age
+ * range written back onto the book. Heuristic fallbacks are never stored.
+ */
+@Service
+public class RecommendationCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationCache.class);
+
+    @Autowired
+    private OpenAIService openAIService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookRecommendationRepository recommendationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SimilarityIndex similarityIndex;
+
+    @Autowired
+    private IsbnLookupCache isbnLookupCache;
+
+    @Value("${openai.recommendations.cache.max-size:5000}")
+    private int maxSize;
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong modelCalls = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Map<String, BookRecommendation> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BookRecommendation> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Memory-only lookup by book id; null if not cached.
+     */
+    public AIRecommendationResponse getCachedByBookId(Long bookId) {
+        return cached(bookId == null ? null : "id:" + bookId);
+    }
+
+    /**
+     * Memory-only lookup by ISBN; null if not cached.
+     */
+    public AIRecommendationResponse getCachedByIsbn(String isbn) {
+        String normalized = Isbn.normalize(isbn);
+        return cached(normalized.isEmpty() ? null : "isbn:" + normalized);
+    }
+
+    /**
+     * Stored recommendation for the book (memory, then database), without calling the model.
+     * Returns null if the book hasn't been enriched for the current prompt version yet.
+     */
+    public AIRecommendationResponse getStored(Book book) {
+        String isbn = Isbn.normalize(book.getIsbn());
+        if (isbn.isEmpty()) {
+            return null;
+        }
+        BookRecommendation rec = get(isbnKey(isbn));
+        if (rec != null) {
+            hits.incrementAndGet();
+        } else {
+            rec = recommendationRepository.findByIsbnAndPromptVersion(isbn, OpenAIService.PROMPT_VERSION).orElse(null);
+            if (rec == null) {
+                return null;
+            }
+            databaseHits.incrementAndGet();
+            remember(book, isbn, rec);
+        }
+        return toResponse(rec);
+    }
+
+    /**
+     * Make sure a recommendation for the book is stored, calling the model if needed.
+     * Returns false if the model gave no usable answer (the caller may retry later).
+     */
+    public boolean enrich(Book book) {
+        return resolve(book) != null;
+    }
+
+    /**
+     * Batch variant of {@link #enrich(Book)}: books without a stored recommendation are sent to
+     * the model together ({@link OpenAIService#fetchRecommendationsBatch}). Returns, per book and
+     * in order, whether a recommendation is now stored.
+     */
+    public List<Boolean> enrichAll(List<Book> books) {
+        List<Boolean> enriched = new ArrayList<>(books.size());
+        List<Book> missing = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            boolean stored = getStored(book) != null;
+            enriched.add(stored);
+            if (!stored && !Isbn.normalize(book.getIsbn()).isEmpty()) {
+                missing.add(book);
+                missingIndexes.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return enriched;
+        }
+        modelCalls.addAndGet(missing.size());
+        List<AIRecommendationResponse> answers = openAIService.fetchRecommendationsBatch(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            AIRecommendationResponse answer = answers.get(i);
+            if (answer == null) {
+                continue;
+            }
+            Book book = missing.get(i);
+            String isbn = Isbn.normalize(book.getIsbn());
+            remember(book, isbn, persist(toRecord(isbn, answer)));
+            enriched.set(missingIndexes.get(i), true);
+        }
+        return enriched;
+    }
+
+    /**
+     * Full read-through: memory, database, then the model. Falls back to the page-count
+     * heuristic (not stored) when the model is unavailable.
+     */
+    public AIRecommendationResponse getRecommendations(Book book) {
+        String isbn = Isbn.normalize(book.getIsbn());
+        if (isbn.isEmpty()) {
+            // Nothing to key a stored answer on
+            modelCalls.incrementAndGet();
+            return openAIService.getBookRecommendations(book);
+        }
+        BookRecommendation rec = resolve(book);
+        if (rec == null) {
+            fallbacks.incrementAndGet();
+            return openAIService.createFallbackResponse(book);
+        }
+        return toResponse(rec);
+    }
+
+    public Map<String, Long> getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) size);
+        stats.put("hits", hits.get());
+        stats.put("databaseHits", databaseHits.get());
+        stats.put("modelCalls", modelCalls.get()); // books sent to the model, batched or not
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private BookRecommendation get(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private AIRecommendationResponse cached(String key) {
+        if (key == null) {
+            return null;
+        }
+        BookRecommendation rec = get(key + "|" + OpenAIService.PROMPT_VERSION);
+        if (rec == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return toResponse(rec);
+    }
+
+    private BookRecommendation resolve(Book book) {
+        String isbn = Isbn.normalize(book.getIsbn());
+        if (isbn.isEmpty()) {
+            return null;
+        }
+        String key = isbnKey(isbn);
+        BookRecommendation rec = get(key);
+        if (rec != null) {
+            hits.incrementAndGet();
+            return rec;
+        }
+        rec = coalescer.execute(key, () -> Mono.fromCallable(() -> load(isbn, book))).block();
+        if (rec != null) {
+            remember(book, isbn, rec);
+        }
+        return rec;
+    }
+
+    private void remember(Book book, String isbn, BookRecommendation rec) {
+        synchronized (entries) {
+            entries.put(isbnKey(isbn), rec);
+            if (book.getId() != null) {
+                entries.put("id:" + book.getId() + "|" + OpenAIService.PROMPT_VERSION, rec);
+            }
+        }
+    }
+
+    private static String isbnKey(String isbn) {
+        return "isbn:" + isbn + "|" + OpenAIService.PROMPT_VERSION;
+    }
+
+    /**
+     * Database, then model. Returns null when the model gave no usable answer.
+     */
+    private BookRecommendation load(String isbn, Book book) {
+        Optional<BookRecommendation> stored =
+            recommendationRepository.findByIsbnAndPromptVersion(isbn, OpenAIService.PROMPT_VERSION);
+        if (stored.isPresent()) {
+            databaseHits.incrementAndGet();
+            return stored.get();
+        }
+        modelCalls.incrementAndGet();
+        AIRecommendationResponse fresh = openAIService.fetchRecommendations(book);
+        if (fresh == null) {
+            return null;
+        }
+        return persist(toRecord(isbn, fresh));
+    }
+
+    private static BookRecommendation toRecord(String isbn, AIRecommendationResponse answer) {
+        BookRecommendation rec = new BookRecommendation(isbn, OpenAIService.PROMPT_VERSION);
+        rec.setSuggestedMinAge(answer.getSuggestedMinAge());
+        rec.setSuggestedMaxAge(answer.getSuggestedMaxAge());
+        rec.setReadingLevel(truncate(answer.getReadingLevel(), 50));
+        rec.setReasoning(answer.getReasoning());
+        if (answer.getThemes() != null) {
+            rec.setThemes(truncate(String.join("\n", answer.getThemes()), 500));
+        }
+        return rec;
+    }
+
+    /**
+     * Store the recommendation and copy its age range onto the book, in a transaction of its
+     * own so a concurrent insert of the same key never affects the caller. The book's
+     * IsbnLookupCache entry is dropped afterwards so lookups and scans see the age range.
+     */
+    private BookRecommendation persist(BookRecommendation rec) {
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            BookRecommendation saved = tx.execute(status -> {
+                bookRepository.findByIsbn(rec.getIsbn()).ifPresent(b -> {
+                    b.setAgeRangeMin(rec.getSuggestedMinAge());
+                    b.setAgeRangeMax(rec.getSuggestedMaxAge());
+                    similarityIndex.upsert(b);
+                });
+                return recommendationRepository.findByIsbnAndPromptVersion(rec.getIsbn(), rec.getPromptVersion())
+                    .orElseGet(() -> recommendationRepository.save(rec));
+            });
+            isbnLookupCache.invalidate(rec.getIsbn());
+            return saved != null ? saved : rec;
+        } catch (Exception e) {
+            log.debug("Could not store recommendation for {}: {}", rec.getIsbn(), e.getMessage());
+            return rec;
+        }
+    }
+
+    private static AIRecommendationResponse toResponse(BookRecommendation rec) {
+        AIRecommendationResponse response = new AIRecommendationResponse();
+        response.setStatus(AIRecommendationResponse.READY);
+        response.setSuggestedMinAge(rec.getSuggestedMinAge());
+        response.setSuggestedMaxAge(rec.getSuggestedMaxAge());
+        response.setAgeRecommendation(
+            "Recommended for ages " + rec.getSuggestedMinAge() + "-" + rec.getSuggestedMaxAge());
+        response.setReadingLevel(rec.getReadingLevel());
+        response.setReasoning(rec.getReasoning());
+        response.setThemes(rec.getThemes() == null || rec.getThemes().isEmpty()
+            ? new ArrayList<>()
+            : new ArrayList<>(Arrays.asList(rec.getThemes().split("\n"))));
+        response.setSimilarBooks(new ArrayList<>());
+        return response;
+    }
+
+    private static String truncate(String s, int max) {
+        return s != null && s.length() > max ? s.substring(0, max) : s;
+    }
+}
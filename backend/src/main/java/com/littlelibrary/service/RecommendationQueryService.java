@@ -0,0 +1,245 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.dto.RecommendationQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Assembles the answer to a recommendation query from independent sources that run
+ * concurrently:
+ *   ai     - stored/pending AI age recommendation for the book id or ISBN
+ *   google - Google Books title search (similar titles)
+ *   local  - most similar books in the local catalog ({@link SimilarityIndex}), for the
+ *            requested ages or the source book's age range
+ *
+ * Each source has its own deadline ({@code recommendations.query.*-timeout-ms}). A source
+ * that times out or fails contributes nothing and is listed in
+ * {@link AIRecommendationResponse#getUnavailableSources()}, so a slow upstream costs at most
+ * its deadline and the overall latency is that of the slowest source, not the sum.
+ */
+@Service
+public class RecommendationQueryService {
+
+    public static final String AI = "ai";
+    public static final String GOOGLE = "google";
+    public static final String LOCAL = "local";
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationQueryService.class);
+
+    private static final int MAX_SIMILAR_BOOKS = 12;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private SimilarityIndex similarityIndex;
+
+    @Value("${recommendations.query.ai-timeout-ms:2000}")
+    private long aiTimeoutMs;
+
+    @Value("${recommendations.query.google-timeout-ms:3000}")
+    private long googleTimeoutMs;
+
+    @Value("${recommendations.query.local-timeout-ms:500}")
+    private long localTimeoutMs;
+
+    private final Map<String, SourceStats> stats = new LinkedHashMap<>();
+
+    public RecommendationQueryService() {
+        stats.put(AI, new SourceStats());
+        stats.put(GOOGLE, new SourceStats());
+        stats.put(LOCAL, new SourceStats());
+    }
+
+    /**
+     * AI signals plus up to 12 similar books (title matches first, then catalog matches),
+     * once every source has answered or hit its deadline.
+     */
+    public Mono<AIRecommendationResponse> query(RecommendationQuery query) {
+        List<String> unavailable = new CopyOnWriteArrayList<>();
+        Mono<List<BookDTO>> google = titleMatches(query, unavailable).collectList();
+        Mono<List<BookDTO>> local = catalogMatches(query, unavailable).collectList();
+        return Mono.zip(recommendation(query, unavailable), google, local)
+            .map(t -> {
+                AIRecommendationResponse resp = t.getT1();
+                if (!t.getT2().isEmpty() || !t.getT3().isEmpty()) {
+                    Predicate<BookDTO> keep = similarBookFilter(query.getIsbn());
+                    List<BookDTO> out = new ArrayList<>();
+                    for (List<BookDTO> source : List.of(t.getT2(), t.getT3())) {
+                        for (BookDTO b : source) {
+                            if (out.size() < MAX_SIMILAR_BOOKS && keep.test(b)) {
+                                out.add(b);
+                            }
+                        }
+                    }
+                    resp.setSimilarBooks(out);
+                }
+                if (!unavailable.isEmpty()) {
+                    resp.setUnavailableSources(new ArrayList<>(unavailable));
+                }
+                return resp;
+            });
+    }
+
+    /**
+     * The AI source alone; an empty response when it has nothing or misses its deadline.
+     */
+    public Mono<AIRecommendationResponse> recommendation(RecommendationQuery query, List<String> unavailable) {
+        Mono<AIRecommendationResponse> ai = Mono.fromCallable(() -> resolve(query))
+            .subscribeOn(Schedulers.boundedElastic());
+        return withDeadline(AI, aiTimeoutMs, ai.flux(), unavailable)
+            .singleOrEmpty()
+            .defaultIfEmpty(new AIRecommendationResponse());
+    }
+
+    /**
+     * Similar books from all sources as they arrive, filtered and capped, for streaming.
+     */
+    public Flux<BookDTO> similarBooks(RecommendationQuery query, List<String> unavailable) {
+        return Flux.defer(() -> {
+            Predicate<BookDTO> keep = similarBookFilter(query.getIsbn());
+            return Flux.merge(titleMatches(query, unavailable), catalogMatches(query, unavailable))
+                .filter(keep)
+                .take(MAX_SIMILAR_BOOKS);
+        });
+    }
+
+    /**
+     * Per-source latency and outcome counters, e.g. {"google.calls": 10, "google.avgMs": 420,
+     * "google.maxMs": 3000, "google.timeouts": 1, "google.errors": 0, ...}.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        stats.forEach((name, s) -> {
+            long answered = s.answered.get();
+            out.put(name + ".calls", s.calls.get());
+            out.put(name + ".avgMs", answered == 0 ? 0L : s.totalMs.get() / answered);
+            out.put(name + ".maxMs", s.maxMs.get());
+            out.put(name + ".timeouts", s.timeouts.get());
+            out.put(name + ".errors", s.errors.get());
+        });
+        return out;
+    }
+
+    private Flux<BookDTO> titleMatches(RecommendationQuery query, List<String> unavailable) {
+        if (query.getTitle() == null || query.getTitle().isBlank()) {
+            return Flux.empty();
+        }
+        return withDeadline(GOOGLE, googleTimeoutMs, bookService.lookupBooksByTitleReactive(query.getTitle()), unavailable);
+    }
+
+    private Flux<BookDTO> catalogMatches(RecommendationQuery query, List<String> unavailable) {
+        if (query.getBookId() == null && (query.getIsbn() == null || query.getIsbn().isBlank())
+                && (query.getGenre() == null || query.getGenre().isBlank())) {
+            return Flux.empty();
+        }
+        // Off the caller's thread: the first query loads the index from the database
+        Mono<List<BookDTO>> local = Mono.fromCallable(() -> similarityIndex.similar(query.getBookId(), query.getIsbn(),
+                query.getGenre(), query.getMinAge(), query.getMaxAge(), MAX_SIMILAR_BOOKS))
+            .subscribeOn(Schedulers.boundedElastic());
+        return withDeadline(LOCAL, localTimeoutMs, local.flatMapIterable(l -> l), unavailable);
+    }
+
+    private AIRecommendationResponse resolve(RecommendationQuery query) {
+        AIRecommendationResponse resp = null;
+        if (query.getBookId() != null) {
+            resp = bookService.getAIRecommendations(query.getBookId());
+        } else if (query.getIsbn() != null && !query.getIsbn().isBlank()) {
+            resp = bookService.getAIRecommendationsByIsbn(query.getIsbn());
+        }
+        return resp != null ? resp : new AIRecommendationResponse();
+    }
+
+    /**
+     * Emit what the source produces until its deadline. A timeout or error ends the source
+     * quietly and marks it unavailable; completions are timed per source.
+     */
+    private <T> Flux<T> withDeadline(String name, long timeoutMs, Flux<T> source, List<String> unavailable) {
+        SourceStats s = stats.get(name);
+        return Flux.defer(() -> {
+            s.calls.incrementAndGet();
+            long start = System.nanoTime();
+            AtomicBoolean finished = new AtomicBoolean();
+            return source
+                .doOnComplete(() -> finished.set(true))
+                .take(Duration.ofMillis(timeoutMs))
+                .doOnComplete(() -> {
+                    if (finished.get()) {
+                        s.record((System.nanoTime() - start) / 1_000_000);
+                    } else {
+                        s.timeouts.incrementAndGet();
+                        unavailable.add(name);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.debug("Recommendation source {} failed: {}", name, e.getMessage());
+                    s.errors.incrementAndGet();
+                    unavailable.add(name);
+                    return Flux.empty();
+                });
+        });
+    }
+
+    /**
+     * Similar-book filter for one request: must have a cover image, must not be the source
+     * book, and at most one entry per ISBN (books without an ISBN are never deduplicated).
+     * Package-private for SimilarBooksFilterBenchmark.
+     */
+    static Predicate<BookDTO> similarBookFilter(String sourceIsbn) {
+        String srcIsbn = sourceIsbn != null ? Isbn.normalize(sourceIsbn) : null;
+        Set<String> seenIsbn = new HashSet<>();
+        return b -> {
+            if (!hasValidImage(b.getCoverImageUrl())) {
+                return false;
+            }
+            String isbn = b.getIsbn() != null ? Isbn.normalize(b.getIsbn()) : null;
+            if (isbn != null) {
+                if (isbn.equals(srcIsbn)) {
+                    return false;
+                }
+                return seenIsbn.add(isbn);
+            }
+            return true;
+        };
+    }
+
+    private static boolean hasValidImage(String url) {
+        if (url == null || url.isBlank()) return false;
+        String u = url.trim().toLowerCase();
+        return u.startsWith("http://") || u.startsWith("https://");
+    }
+
+    private static final class SourceStats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong answered = new AtomicLong();
+        private final AtomicLong totalMs = new AtomicLong();
+        private final AtomicLong maxMs = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long ms) {
+            answered.incrementAndGet();
+            totalMs.addAndGet(ms);
+            maxMs.accumulateAndGet(ms, Math::max);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.littlelibrary.service;
+
+import reactor.core.publisher.Mono;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight deduplication for upstream calls: while a call for a key is in flight,
+ * further callers with the same key subscribe to its result instead of issuing their own.
+ * The entry is dropped as soon as the call completes, so nothing is cached beyond that.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Run {@code call} for {@code key}, or join the call already in flight for it.
+     * Cancelling one subscriber never cancels the shared upstream call.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            CompletableFuture<T> mine = new CompletableFuture<>();
+            CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, mine);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                return Mono.fromFuture(existing, true);
+            }
+
+            executed.incrementAndGet();
+            // Unregister before completing so a caller woken by the result never joins a finished call
+            try {
+                call.get().subscribe(
+                    value -> {
+                        inFlight.remove(key, mine);
+                        mine.complete(value);
+                    },
+                    error -> {
+                        inFlight.remove(key, mine);
+                        mine.completeExceptionally(error);
+                    },
+                    () -> {
+                        inFlight.remove(key, mine);
+                        mine.complete(null);
+                    });
+            } catch (RuntimeException e) {
+                inFlight.remove(key, mine);
+                mine.completeExceptionally(e);
+            }
+            return Mono.fromFuture(mine, true);
+        });
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("inFlight", (long) inFlight.size());
+        stats.put("executed", executed.get());
+        stats.put("coalesced", coalesced.get());
+        return stats;
+    }
+}
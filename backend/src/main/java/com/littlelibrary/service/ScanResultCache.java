@@ -0,0 +1,200 @@
+package com.littlelibrary.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which ISBN Rekognition found on a photo, keyed by a perceptual hash of the image,
+ * so a repeated scan of the same cover doesn't call it again. Photos are only looked up here
+ * after the local barcode decoder found nothing: the hash can't tell apart books that share a
+ * cover layout. The book itself is then served by {@link IsbnLookupCache} (memory or
+ * database), not Google Books.
+ *
+ * The key is a 64-bit difference hash (dHash) of a heavily downscaled grayscale copy: each
+ * bit says whether a cell is darker than its right-hand neighbour, which survives exposure
+ * changes, recompression and small shifts. A photo matches a cached one when the hashes
+ * differ in at most {@code scan.cache.max-distance} bits. Entries live in a bounded,
+ * access-ordered map with TTL expiry; photos where no ISBN was found are remembered only for
+ * {@code scan.cache.negative-ttl-seconds}.
+ */
+@Service
+public class ScanResultCache {
+
+    // dHash grid: 9 columns give 8 left/right comparisons per row
+    private static final int HASH_COLUMNS = 9;
+    private static final int HASH_ROWS = 8;
+    private static final int SHRINK_TARGET = 64;
+
+    @Value("${scan.cache.max-size:2000}")
+    private int maxSize = 2000;
+
+    @Value("${scan.cache.ttl-seconds:1800}")
+    private long ttlSeconds = 1800;
+
+    @Value("${scan.cache.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds = 60;
+
+    @Value("${scan.cache.max-distance:6}")
+    private int maxDistance = 6;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong nearHits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * The cached result for this hash or the closest one within the allowed distance; null
+     * if there is none. An entry with a null ISBN records a photo where nothing was found.
+     */
+    Entry find(long hash) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Long bestKey = null;
+            int bestDistance = maxDistance + 1;
+            if (entries.containsKey(hash)) {
+                bestKey = hash;
+                bestDistance = 0;
+            } else {
+                for (Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Long, Entry> e = it.next();
+                    if (e.getValue().expiresAt < now) {
+                        it.remove();
+                        evictions.incrementAndGet();
+                        continue;
+                    }
+                    int distance = Long.bitCount(e.getKey() ^ hash);
+                    if (distance < bestDistance) {
+                        bestKey = e.getKey();
+                        bestDistance = distance;
+                    }
+                }
+            }
+            // get() also marks the entry as recently used
+            Entry entry = bestKey == null ? null : entries.get(bestKey);
+            if (entry == null || entry.expiresAt < now) {
+                if (entry != null) {
+                    entries.remove(bestKey);
+                    evictions.incrementAndGet();
+                }
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.isbn == null) {
+                negativeHits.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+                if (bestDistance > 0) {
+                    nearHits.incrementAndGet();
+                }
+            }
+            return entry;
+        }
+    }
+
+    void put(long hash, String isbn) {
+        long ttl = isbn != null ? ttlSeconds : negativeTtlSeconds;
+        synchronized (entries) {
+            entries.put(hash, new Entry(isbn, System.currentTimeMillis() + ttl * 1000L));
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", (long) entries.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("nearHits", nearHits.get());
+        stats.put("negativeHits", negativeHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    /**
+     * 64-bit difference hash of the image. The image is first halved repeatedly (each bilinear
+     * halving averages 2x2 pixels) down to about {@value #SHRINK_TARGET} pixels, then averaged
+     * into a 9x8 grid.
+     */
+    static long hash(BufferedImage image) {
+        BufferedImage small = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean gray = false;
+        while (!gray || Math.max(width, height) > SHRINK_TARGET * 2) {
+            int nextWidth = Math.max(HASH_COLUMNS, Math.max(width, height) > SHRINK_TARGET * 2 ? width / 2 : width);
+            int nextHeight = Math.max(HASH_ROWS, Math.max(width, height) > SHRINK_TARGET * 2 ? height / 2 : height);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(small, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                g.dispose();
+            }
+            small = next;
+            width = nextWidth;
+            height = nextHeight;
+            gray = true;
+        }
+
+        byte[] pixels = ((DataBufferByte) small.getRaster().getDataBuffer()).getData();
+        long[] cells = new long[HASH_COLUMNS * HASH_ROWS];
+        for (int row = 0; row < HASH_ROWS; row++) {
+            int y0 = row * height / HASH_ROWS;
+            int y1 = (row + 1) * height / HASH_ROWS;
+            for (int col = 0; col < HASH_COLUMNS; col++) {
+                int x0 = col * width / HASH_COLUMNS;
+                int x1 = (col + 1) * width / HASH_COLUMNS;
+                long sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        sum += pixels[y * width + x] & 0xff;
+                    }
+                }
+                // Mean scaled by 256 so cells of slightly different sizes stay comparable
+                cells[row * HASH_COLUMNS + col] = sum * 256 / Math.max(1, (long) (y1 - y0) * (x1 - x0));
+            }
+        }
+        long hash = 0;
+        for (int row = 0; row < HASH_ROWS; row++) {
+            for (int col = 0; col < HASH_COLUMNS - 1; col++) {
+                hash <<= 1;
+                if (cells[row * HASH_COLUMNS + col] < cells[row * HASH_COLUMNS + col + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    static final class Entry {
+        final String isbn;
+        private final long expiresAt;
+
+        private Entry(String isbn, long expiresAt) {
+            this.isbn = isbn;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
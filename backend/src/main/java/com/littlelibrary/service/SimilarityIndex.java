@@ -0,0 +1,466 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory "books like this one" index over the local catalog.
+ *
+ * Every book is reduced to a set of terms (genre and its "/"-separated categories, author,
+ * publisher, and distinctive title/description words), kept in an inverted index from term to
+ * book ordinals. A query scores the books sharing terms with the source book (genre and author
+ * weigh most; words are weighted by rarity; terms other than genre and author found on more than
+ * {@code library.similarity.max-term-share} of the catalog are skipped), drops books whose age
+ * range doesn't overlap the requested ages, nudges by page-count closeness, and keeps the top
+ * results. Scores accumulate in a per-thread array indexed by ordinal, and there is no database
+ * access once loaded, so a query over a 20k-book catalog takes well under a millisecond.
+ *
+ * The catalog is loaded page by page on first use; after that {@link #upsert} keeps it
+ * current, applied after the surrounding transaction commits.
+ */
+@Service
+public class SimilarityIndex {
+
+    private static final double GENRE_WEIGHT = 3.0;
+    private static final double CATEGORY_WEIGHT = 1.0;
+    private static final double AUTHOR_WEIGHT = 2.5;
+    private static final double PUBLISHER_WEIGHT = 0.5;
+    private static final double WORD_WEIGHT = 0.5;
+    private static final double PAGE_COUNT_WEIGHT = 0.5;
+    private static final int MAX_WORDS_PER_BOOK = 48;
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "about", "after", "again", "also", "back", "been", "before", "book", "books", "from", "have",
+        "here", "into", "just", "like", "little", "more", "most", "must", "only", "other", "over",
+        "some", "story", "than", "that", "their", "them", "then", "there", "these", "they", "this",
+        "through", "when", "where", "which", "while", "will", "with", "would", "your");
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Value("${library.similarity.max-term-share:0.02}")
+    private double maxTermShare;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Dense ordinal per book id; postings and scores are indexed by ordinal
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Long> idsByIsbn = new HashMap<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private volatile boolean loaded;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong upserts = new AtomicLong();
+
+    /**
+     * Up to {@code limit} catalog books most like the source book (by id, else ISBN), for
+     * readers aged minAge-maxAge (defaults to the source book's range). When the source book is
+     * unknown, books of the given genre are returned instead. The source itself is excluded.
+     */
+    public List<BookDTO> similar(Long bookId, String isbn, String genre, Integer minAge, Integer maxAge, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        ensureLoaded();
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Entry source = bookId != null ? entry(bookId) : null;
+            if (source == null && isbn != null && !isbn.isBlank()) {
+                Long id = idsByIsbn.get(Isbn.normalize(isbn));
+                source = id != null ? entry(id) : null;
+            }
+            Collection<String> terms;
+            if (source != null) {
+                terms = source.terms;
+            } else if (genre != null && !genre.isBlank()) {
+                terms = genreTerms(genre);
+            } else {
+                return new ArrayList<>();
+            }
+            Integer lo = minAge != null ? minAge : source != null ? source.book.getAgeRangeMin() : null;
+            Integer hi = maxAge != null ? maxAge : source != null ? source.book.getAgeRangeMax() : null;
+            return topMatches(source, terms, lo, hi, limit);
+        } finally {
+            lock.readLock().unlock();
+            queries.incrementAndGet();
+            queryNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Add or refresh books after they were saved; call inside the saving transaction.
+     */
+    public void upsert(Collection<Book> books) {
+        List<Entry> fresh = new ArrayList<>(books.size());
+        for (Book b : books) {
+            if (b != null && b.getId() != null) {
+                fresh.add(toEntry(b));
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                for (Entry e : fresh) {
+                    put(e, true);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            upserts.addAndGet(fresh.size());
+        });
+    }
+
+    public void upsert(Book book) {
+        upsert(Collections.singletonList(book));
+    }
+
+    public Map<String, Long> getStats() {
+        long q = queries.get();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("books", (long) entries.size());
+            stats.put("terms", (long) postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("queries", q);
+        stats.put("avgQueryMicros", q == 0 ? 0L : queryNanos.get() / q / 1000);
+        stats.put("upserts", upserts.get());
+        return stats;
+    }
+
+    private List<BookDTO> topMatches(Entry source, Collection<String> terms, Integer minAge, Integer maxAge, int limit) {
+        int n = entries.size();
+        int maxSharedPostings = Math.max(20, (int) (n * maxTermShare));
+        Scratch sc = scratch.get();
+        sc.ensureCapacity(n);
+        double[] scores = sc.scores;
+        int[] touched = sc.touched;
+        int touchedCount = 0;
+        for (String term : terms) {
+            IntList ordinalsWithTerm = postings.get(term);
+            if (ordinalsWithTerm == null) {
+                continue;
+            }
+            int df = ordinalsWithTerm.size();
+            char kind = term.charAt(0);
+            if (kind != 'g' && kind != 'a' && df > maxSharedPostings) {
+                continue;
+            }
+            double weight = weight(term);
+            if (kind == 'w') {
+                weight *= Math.log(1.0 + (double) n / df);
+            }
+            int[] values = ordinalsWithTerm.values;
+            for (int i = 0; i < df; i++) {
+                int o = values[i];
+                if (scores[o] == 0) {
+                    touched[touchedCount++] = o;
+                }
+                scores[o] += weight;
+            }
+        }
+
+        int sourceOrdinal = source != null ? ordinals.get(source.book.getId()) : -1;
+        PriorityQueue<Scored> top = new PriorityQueue<>();
+        for (int k = 0; k < touchedCount; k++) {
+            int o = touched[k];
+            double score = scores[o];
+            scores[o] = 0;
+            Entry candidate = entries.get(o);
+            if (o == sourceOrdinal || !agesOverlap(candidate.book, minAge, maxAge)) {
+                continue;
+            }
+            if (source != null) {
+                score += PAGE_COUNT_WEIGHT * pageCountCloseness(source.book.getPageCount(), candidate.book.getPageCount());
+            }
+            if (top.size() < limit) {
+                top.add(new Scored(candidate, score));
+            } else if (score > top.peek().score) {
+                top.poll();
+                top.add(new Scored(candidate, score));
+            }
+        }
+        List<BookDTO> out = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            out.add(top.poll().entry.book);
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    private Entry entry(Long bookId) {
+        Integer o = ordinals.get(bookId);
+        return o != null ? entries.get(o) : null;
+    }
+
+    private static boolean agesOverlap(BookDTO book, Integer minAge, Integer maxAge) {
+        Integer bookMin = book.getAgeRangeMin();
+        Integer bookMax = book.getAgeRangeMax();
+        if (maxAge != null && bookMin != null && bookMin > maxAge) {
+            return false;
+        }
+        return minAge == null || bookMax == null || bookMax >= minAge;
+    }
+
+    private static double pageCountCloseness(Integer a, Integer b) {
+        if (a == null || b == null || a <= 0 || b <= 0) {
+            return 0;
+        }
+        return (double) Math.min(a, b) / Math.max(a, b);
+    }
+
+    private static double weight(String term) {
+        switch (term.charAt(0)) {
+            case 'g': return GENRE_WEIGHT;
+            case 'c': return CATEGORY_WEIGHT;
+            case 'a': return AUTHOR_WEIGHT;
+            case 'p': return PUBLISHER_WEIGHT;
+            default: return WORD_WEIGHT;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            int page = 0;
+            Page<Book> books;
+            do {
+                books = bookRepository.findAll(PageRequest.of(page++, LOAD_PAGE_SIZE, Sort.by("id")));
+                List<Entry> batch = new ArrayList<>(books.getNumberOfElements());
+                for (Book b : books) {
+                    batch.add(toEntry(b));
+                }
+                lock.writeLock().lock();
+                try {
+                    // Never overwrite an entry from an upsert, it is newer than this read
+                    for (Entry e : batch) {
+                        put(e, false);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (books.hasNext());
+            loaded = true;
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(Entry entry, boolean replace) {
+        Long id = entry.book.getId();
+        Integer o = ordinals.get(id);
+        if (o == null) {
+            o = entries.size();
+            ordinals.put(id, o);
+            entries.add(entry);
+        } else {
+            if (!replace) {
+                return;
+            }
+            Entry old = entries.get(o);
+            for (String term : old.terms) {
+                IntList ordinalsWithTerm = postings.get(term);
+                if (ordinalsWithTerm != null && ordinalsWithTerm.remove(o) && ordinalsWithTerm.size() == 0) {
+                    postings.remove(term);
+                }
+            }
+            if (old.book.getIsbn() != null) {
+                idsByIsbn.remove(Isbn.normalize(old.book.getIsbn()));
+            }
+            entries.set(o, entry);
+        }
+        for (String term : entry.terms) {
+            postings.computeIfAbsent(term, k -> new IntList()).add(o);
+        }
+        if (entry.book.getIsbn() != null) {
+            idsByIsbn.put(Isbn.normalize(entry.book.getIsbn()), id);
+        }
+    }
+
+    static Entry toEntry(Book b) {
+        BookDTO dto = new BookDTO();
+        dto.setId(b.getId());
+        dto.setTitle(b.getTitle());
+        dto.setAuthor(b.getAuthor());
+        dto.setIsbn(b.getIsbn());
+        dto.setGenre(b.getGenre());
+        dto.setAgeRangeMin(b.getAgeRangeMin());
+        dto.setAgeRangeMax(b.getAgeRangeMax());
+        dto.setCoverImageUrl(b.getCoverImageUrl());
+        dto.setPublisher(b.getPublisher());
+        dto.setPublicationYear(b.getPublicationYear());
+        dto.setPageCount(b.getPageCount());
+        dto.setGoogleBooksId(b.getGoogleBooksId());
+        return new Entry(dto, terms(b));
+    }
+
+    /**
+     * Feature terms of a book, prefixed by kind: g: genre, c: genre category, a: author,
+     * p: publisher, w: title/description word.
+     */
+    static List<String> terms(Book b) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (b.getGenre() != null && !b.getGenre().isBlank()) {
+            terms.addAll(genreTerms(b.getGenre()));
+        }
+        if (b.getAuthor() != null && !b.getAuthor().isBlank()) {
+            terms.add("a:" + b.getAuthor().trim().toLowerCase());
+        }
+        if (b.getPublisher() != null && !b.getPublisher().isBlank()) {
+            terms.add("p:" + b.getPublisher().trim().toLowerCase());
+        }
+        int words = 0;
+        StringBuilder word = new StringBuilder();
+        for (String text : new String[] {b.getTitle(), b.getDescription()}) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i <= text.length() && words < MAX_WORDS_PER_BOOK; i++) {
+                char c = i < text.length() ? text.charAt(i) : ' ';
+                if (Character.isLetterOrDigit(c)) {
+                    word.append(Character.toLowerCase(c));
+                } else if (word.length() > 0) {
+                    String w = word.toString();
+                    word.setLength(0);
+                    if (w.length() >= 4 && !STOP_WORDS.contains(w) && terms.add("w:" + w)) {
+                        words++;
+                    }
+                }
+            }
+            word.setLength(0);
+        }
+        return List.copyOf(terms);
+    }
+
+    private static List<String> genreTerms(String genre) {
+        List<String> terms = new ArrayList<>();
+        String g = genre.trim().toLowerCase();
+        terms.add("g:" + g);
+        if (g.indexOf('/') >= 0) {
+            for (String part : g.split("/")) {
+                if (!part.isBlank()) {
+                    terms.add("c:" + part.trim());
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static final class Entry {
+        private final BookDTO book;
+        private final List<String> terms;
+
+        Entry(BookDTO book, List<String> terms) {
+            this.book = book;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Growable int array; removal swaps in the last element (order doesn't matter).
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Per-thread score accumulator indexed by ordinal; entries are zeroed again after each query.
+     */
+    private static final class Scratch {
+        private double[] scores = new double[0];
+        private int[] touched = new int[0];
+
+        void ensureCapacity(int n) {
+            if (scores.length < n) {
+                int capacity = Math.max(n, scores.length * 3 / 2);
+                scores = new double[capacity];
+                touched = new int[capacity];
+            }
+        }
+    }
+
+    private static final class Scored implements Comparable<Scored> {
+        private final Entry entry;
+        private final double score;
+
+        Scored(Entry entry, double score) {
+            this.entry = entry;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Scored o) {
+            return Double.compare(score, o.score);
+        }
+    }
+}
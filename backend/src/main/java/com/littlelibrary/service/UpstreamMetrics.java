@@ -0,0 +1,141 @@
+package com.littlelibrary.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Timers for calls to Google Books, OpenAI and Rekognition. Every call is recorded in
+ * {@code upstream.requests} tagged with the service, the operation, its outcome (success,
+ * empty, error or cancelled) and, for errors, what went wrong: timeout, throttled (429),
+ * client_error (other 4xx), server_error (5xx), io_error (connection failures) or
+ * invalid_response (an answer that could not be parsed). Payload sizes go to
+ * {@code upstream.response.size} and {@code upstream.request.size}.
+ *
+ * Outside a Spring context (or without actuator) the meters live in a private registry.
+ */
+@Component
+public class UpstreamMetrics {
+
+    public static final String GOOGLE_BOOKS = "google_books";
+    public static final String OPENAI = "openai";
+    public static final String REKOGNITION = "rekognition";
+
+    private final MeterRegistry registry;
+
+    public UpstreamMetrics() {
+        this(new SimpleMeterRegistry());
+    }
+
+    public UpstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Autowired
+    public UpstreamMetrics(ObjectProvider<MeterRegistry> registry) {
+        this(registry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Time {@code call} from subscription until it completes, fails or is cancelled.
+     */
+    public <T> Mono<T> timed(String service, String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                .doOnSuccess(value -> record(service, operation, start, value == null ? "empty" : "success", "none"))
+                .doOnError(e -> record(service, operation, start, "error", errorKind(e)))
+                .doOnCancel(() -> record(service, operation, start, "cancelled", "none"));
+        });
+    }
+
+    /**
+     * Blocking form of {@link #timed(String, String, Mono)}; exceptions are recorded and rethrown.
+     */
+    public <T> T timed(String service, String operation, Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T value = call.call();
+            record(service, operation, start, value == null ? "empty" : "success", "none");
+            return value;
+        } catch (Exception e) {
+            record(service, operation, start, "error", errorKind(e));
+            throw e;
+        }
+    }
+
+    public void recordResponseSize(String service, String operation, long bytes) {
+        DistributionSummary.builder("upstream.response.size")
+            .description("Size of upstream response bodies")
+            .baseUnit("bytes")
+            .tags("service", service, "operation", operation)
+            .register(registry)
+            .record(bytes);
+    }
+
+    public void recordRequestSize(String service, String operation, long bytes) {
+        DistributionSummary.builder("upstream.request.size")
+            .description("Size of upstream request bodies")
+            .baseUnit("bytes")
+            .tags("service", service, "operation", operation)
+            .register(registry)
+            .record(bytes);
+    }
+
+    private void record(String service, String operation, long start, String outcome, String error) {
+        Timer.builder("upstream.requests")
+            .description("Calls to external services")
+            .tags("service", service, "operation", operation, "outcome", outcome, "error", error)
+            .register(registry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The error tag for a failed call; wrappers are looked through to the first recognized cause.
+     */
+    static String errorKind(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof ApiCallTimeoutException
+                    || t instanceof ApiCallAttemptTimeoutException) {
+                return "timeout";
+            }
+            if (t instanceof WebClientResponseException) {
+                return statusKind(((WebClientResponseException) t).getStatusCode().value());
+            }
+            if (t instanceof SdkServiceException) {
+                SdkServiceException e = (SdkServiceException) t;
+                return e.isThrottlingException() ? "throttled" : statusKind(e.statusCode());
+            }
+            if (t instanceof JsonProcessingException) {
+                return "invalid_response";
+            }
+            if (t instanceof WebClientRequestException || t instanceof SdkClientException || t instanceof IOException) {
+                return "io_error";
+            }
+        }
+        return "other";
+    }
+
+    private static String statusKind(int status) {
+        if (status == 429) {
+            return "throttled";
+        }
+        return status >= 500 ? "server_error" : "client_error";
+    }
+}
@@ -0,0 +1,223 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.repository.LibraryBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the ISBNs each user owns, for instant duplicate checks while scanning.
+ *
+ * Every ISBN is packed into a primitive long (ISBN-10s as their ISBN-13 equivalent) and kept
+ * in a per-user {@link LongHashSet}, 12-23 bytes per book depending on table fill. A user's set is loaded with
+ * one query on first use and then kept current by {@link #added} / {@link #removed}, which are
+ * applied after the surrounding transaction commits. At most {@code library.isbn-index.max-users}
+ * sets are held (least recently used are dropped). Values that don't look like an ISBN, and
+ * loads that raced a concurrent write, are answered from the database instead (the latter
+ * matching the ISBN-10 and ISBN-13 forms, like the set).
+ */
+@Service
+public class UserIsbnIndex {
+
+    @Autowired
+    private LibraryBookRepository libraryBookRepository;
+
+    @Value("${library.isbn-index.max-users:1000}")
+    private int maxUsers;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong databaseFallbacks = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Bumped on every write; a load only gets cached if no write happened while it ran
+    private long mutations;
+
+    private final Map<Long, LongHashSet> sets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LongHashSet> eldest) {
+            if (size() > maxUsers) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Whether the user already has a book with this ISBN in any of their libraries.
+     */
+    public boolean isOwned(Long userId, String isbn) {
+        if (userId == null || isbn == null) {
+            return false;
+        }
+        String key = Isbn.normalize(isbn);
+        long packed = Isbn.toLong(key);
+        if (packed < 0) {
+            databaseFallbacks.incrementAndGet();
+            return Boolean.TRUE.equals(libraryBookRepository.existsByUserIdAndBookIsbn(userId, key));
+        }
+
+        LongHashSet set;
+        synchronized (sets) {
+            set = sets.get(userId);
+        }
+        if (set == null) {
+            set = load(userId);
+            if (set == null) {
+                databaseFallbacks.incrementAndGet();
+                return Boolean.TRUE.equals(libraryBookRepository.existsByUserIdAndBookIsbnIn(userId, forms(key)));
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        synchronized (set) {
+            return set.contains(packed);
+        }
+    }
+
+    // The ISBN-10 and ISBN-13 spellings the set treats as the same book
+    private static Set<String> forms(String key) {
+        Set<String> forms = new LinkedHashSet<>();
+        forms.add(key);
+        String isbn13 = Isbn.toIsbn13(key);
+        if (isbn13 != null) {
+            forms.add(isbn13);
+            String isbn10 = Isbn.toIsbn10(isbn13);
+            if (isbn10 != null) {
+                forms.add(isbn10);
+            }
+        }
+        return forms;
+    }
+
+    /**
+     * Record that the user now owns these ISBNs (once the current transaction, if any, commits).
+     */
+    public void added(Long userId, Collection<String> isbns) {
+        afterCommit(() -> apply(userId, isbns, true));
+    }
+
+    public void added(Long userId, String isbn) {
+        added(userId, Collections.singletonList(isbn));
+    }
+
+    /**
+     * Record that the user no longer owns this ISBN (once the current transaction, if any, commits).
+     */
+    public void removed(Long userId, String isbn) {
+        afterCommit(() -> apply(userId, Collections.singletonList(isbn), false));
+    }
+
+    /**
+     * Drop the user's set; it is reloaded from the database on next use.
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> {
+            synchronized (sets) {
+                mutations++;
+                sets.remove(userId);
+            }
+        });
+    }
+
+    public Map<String, Long> getStats() {
+        long users;
+        long isbns = 0;
+        long bytes = 0;
+        LongHashSet[] snapshot;
+        synchronized (sets) {
+            users = sets.size();
+            snapshot = sets.values().toArray(new LongHashSet[0]);
+        }
+        for (LongHashSet set : snapshot) {
+            synchronized (set) {
+                isbns += set.size();
+                bytes += set.estimatedBytes();
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("users", users);
+        stats.put("isbns", isbns);
+        stats.put("estimatedBytes", bytes);
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        stats.put("databaseFallbacks", databaseFallbacks.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    /**
+     * Build the user's set from the database and cache it. Returns null if a write happened
+     * meanwhile, since the loaded set may then be missing it.
+     */
+    private LongHashSet load(Long userId) {
+        long stamp;
+        synchronized (sets) {
+            stamp = mutations;
+        }
+        List<String> owned = libraryBookRepository.findBookIsbnsByUserId(userId);
+        LongHashSet set = new LongHashSet(owned.size());
+        for (String isbn : owned) {
+            long packed = Isbn.toLong(isbn);
+            if (packed > 0) {
+                set.add(packed);
+            }
+        }
+        loads.incrementAndGet();
+        synchronized (sets) {
+            if (mutations != stamp) {
+                return null;
+            }
+            sets.put(userId, set);
+        }
+        return set;
+    }
+
+    private void apply(Long userId, Collection<String> isbns, boolean add) {
+        LongHashSet set;
+        synchronized (sets) {
+            mutations++;
+            set = sets.get(userId);
+        }
+        if (set == null) {
+            return;
+        }
+        synchronized (set) {
+            for (String isbn : isbns) {
+                long packed = Isbn.toLong(Isbn.normalize(isbn));
+                if (packed < 0) {
+                    continue;
+                }
+                if (add) {
+                    set.add(packed);
+                } else {
+                    set.remove(packed);
+                }
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+-- Baseline schema, equivalent to what ddl-auto=update generated from the entities.
+-- Existing databases are baselined at this version and skip this script.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    password VARCHAR(120) NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS libraries (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    description VARCHAR(500),
+    user_id BIGINT REFERENCES users (id),
+    is_shared BOOLEAN,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS books (
+    id BIGINT PRIMARY KEY,
+    title VARCHAR(200) NOT NULL,
+    author VARCHAR(100),
+    isbn VARCHAR(255),
+    description TEXT,
+    genre VARCHAR(50),
+    age_range_min INTEGER,
+    age_range_max INTEGER,
+    cover_image_url VARCHAR(255),
+    publisher VARCHAR(255),
+    publication_year INTEGER,
+    page_count INTEGER,
+    google_books_id VARCHAR(255),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+);
+
+CREATE TABLE IF NOT EXISTS library_books (
+    id BIGINT PRIMARY KEY,
+    library_id BIGINT REFERENCES libraries (id),
+    book_id BIGINT REFERENCES books (id),
+    shelf_position INTEGER,
+    genre_shelf VARCHAR(255),
+    age_shelf VARCHAR(255),
+    is_favorite BOOLEAN,
+    personal_rating INTEGER,
+    personal_notes VARCHAR(255),
+    date_added TIMESTAMP(6),
+    last_read_date TIMESTAMP(6)
+);
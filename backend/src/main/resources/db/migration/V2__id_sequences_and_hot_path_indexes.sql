@@ -0,0 +1,34 @@
+-- Sequence ids for books / library_books (pooled, allocationSize = 50 in the entities).
+-- Rows written while these tables used identity columns keep their ids; the sequences
+-- are moved past them so Hibernate's pooled optimizer never hands out a taken id.
+CREATE SEQUENCE IF NOT EXISTS books_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS library_books_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('books_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM books), 1));
+SELECT setval('library_books_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM library_books), 1));
+
+-- One link per (library, book) so upserts can rely on it. Keep the oldest link if
+-- earlier versions ever created duplicates.
+DELETE FROM library_books a
+    USING library_books b
+    WHERE a.library_id = b.library_id
+      AND a.book_id = b.book_id
+      AND a.id > b.id;
+ALTER TABLE library_books
+    ADD CONSTRAINT uk_library_books_library_book UNIQUE (library_id, book_id);
+
+-- LibraryRepository.findByUserId / findByUserIdAndIsShared
+CREATE INDEX IF NOT EXISTS idx_libraries_user_shared ON libraries (user_id, is_shared);
+
+-- LibraryBookRepository: findByLibraryId, findByLibraryIdAndBookId(In) use uk_library_books_library_book
+CREATE INDEX IF NOT EXISTS idx_library_books_library_genre_shelf ON library_books (library_id, genre_shelf);
+CREATE INDEX IF NOT EXISTS idx_library_books_library_age_shelf ON library_books (library_id, age_shelf);
+CREATE INDEX IF NOT EXISTS idx_library_books_library_favorite ON library_books (library_id, is_favorite);
+CREATE INDEX IF NOT EXISTS idx_library_books_library_shelf_position ON library_books (library_id, shelf_position);
+CREATE INDEX IF NOT EXISTS idx_library_books_library_date_added ON library_books (library_id, date_added DESC, id DESC);
+-- Joins from books to their links (duplicate checks, book deletes)
+CREATE INDEX IF NOT EXISTS idx_library_books_book ON library_books (book_id);
+
+-- BookRepository: findByIsbn(In) uses uk_books_isbn
+CREATE INDEX IF NOT EXISTS idx_books_google_books_id ON books (google_books_id);
+CREATE INDEX IF NOT EXISTS idx_books_genre ON books (genre);
+CREATE INDEX IF NOT EXISTS idx_books_age_range ON books (age_range_min, age_range_max);
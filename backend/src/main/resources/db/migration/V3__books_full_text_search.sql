@@ -0,0 +1,13 @@
+-- Full-text search over the local catalog (BookRepository.fullTextSearch).
+-- The vector is a generated column, so it stays in sync with every insert/update of a book.
+-- Title and author use the 'simple' configuration (no stemming, good for names and
+-- type-ahead prefixes); genre and description use 'english'.
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(author, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(genre, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_books_search_vector ON books USING GIN (search_vector);
@@ -0,0 +1,14 @@
+-- AI age recommendations per book and prompt version (RecommendationCache).
+-- A new prompt version simply produces new rows; old ones stay until cleaned up.
+CREATE TABLE IF NOT EXISTS book_recommendations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    isbn VARCHAR(20) NOT NULL,
+    prompt_version VARCHAR(20) NOT NULL,
+    suggested_min_age INTEGER,
+    suggested_max_age INTEGER,
+    reading_level VARCHAR(50),
+    themes VARCHAR(500),
+    reasoning TEXT,
+    created_at TIMESTAMP(6),
+    CONSTRAINT uk_book_recommendations_isbn_version UNIQUE (isbn, prompt_version)
+);
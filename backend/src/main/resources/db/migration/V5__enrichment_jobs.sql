@@ -0,0 +1,17 @@
+-- Table-backed queue for background AI enrichment (EnrichmentQueue); one job per book.
+CREATE SEQUENCE IF NOT EXISTS enrichment_jobs_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS enrichment_jobs (
+    id BIGINT PRIMARY KEY,
+    book_id BIGINT NOT NULL REFERENCES books (id) ON DELETE CASCADE,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    enqueued_at TIMESTAMP(6),
+    next_attempt_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_enrichment_jobs_book UNIQUE (book_id)
+);
+
+-- EnrichmentJobRepository.findDueIds / countByStatus / findOldestPendingEnqueuedAt
+CREATE INDEX IF NOT EXISTS idx_enrichment_jobs_status_due ON enrichment_jobs (status, next_attempt_at, id);
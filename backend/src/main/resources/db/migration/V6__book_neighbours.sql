@@ -0,0 +1,10 @@
+-- Precomputed "also shelved with" neighbours (CoShelvingIndex): one row per book, the top-K
+-- neighbours packed as (bigint id, real score) pairs, best first.
+CREATE TABLE IF NOT EXISTS book_neighbours (
+    book_id BIGINT PRIMARY KEY REFERENCES books (id) ON DELETE CASCADE,
+    neighbours BYTEA NOT NULL,
+    computed_at TIMESTAMP(6) NOT NULL
+);
+
+-- CoShelvingIndex staleness check: links added since the last computation
+CREATE INDEX IF NOT EXISTS idx_library_books_date_added ON library_books (date_added);
@@ -0,0 +1,110 @@
+package com.littlelibrary.benchmark;
+
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rows/second for bulk library imports (books + library links) versus the per-book path.
+ *
+ * Disabled by default. Run with:
+ *   ./mvnw test -Dtest=BulkImportBenchmarkTest -Dbenchmark=true
+ * and add -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/littlelibrary_bench
+ * (plus -Dbenchmark.postgres.user / -Dbenchmark.postgres.password) to include PostgreSQL.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BulkImportBenchmarkTest {
+
+    private static final int[] SIZES = {1_000, 10_000};
+
+    @Test
+    void benchmarkH2() {
+        run("H2", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1", "org.h2.Driver",
+            "org.hibernate.dialect.H2Dialect", "sa", "", false);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+    void benchmarkPostgres() {
+        run("PostgreSQL", System.getProperty("benchmark.postgres.url"), "org.postgresql.Driver",
+            "org.hibernate.dialect.PostgreSQLDialect",
+            System.getProperty("benchmark.postgres.user", "postgres"),
+            System.getProperty("benchmark.postgres.password", "password"), true);
+    }
+
+    private void run(String label, String url, String driver, String dialect, String user, String password,
+                     boolean migrate) {
+        ConfigurableApplicationContext context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=" + url,
+            "--spring.datasource.driver-class-name=" + driver,
+            "--spring.datasource.username=" + user,
+            "--spring.datasource.password=" + password,
+            "--spring.jpa.properties.hibernate.dialect=" + dialect,
+            // PostgreSQL gets the real Flyway schema (indexes, sequences); H2 is generated from the entities
+            "--spring.flyway.enabled=" + migrate,
+            "--spring.jpa.hibernate.ddl-auto=" + (migrate ? "none" : "create-drop"),
+            "--spring.jpa.show-sql=false",
+            "--logging.level.com.littlelibrary=INFO",
+            "--logging.level.org.springframework=WARN",
+            "--logging.level.org.hibernate=WARN");
+        try {
+            BookService bookService = context.getBean(BookService.class);
+            long runId = System.nanoTime() % 1_000_000;
+
+            // Per-book path for reference (1k only; 10k takes minutes on a remote DB)
+            List<AddToLibraryRequest> single = requests(runId, 0, 1_000);
+            long start = System.nanoTime();
+            for (AddToLibraryRequest req : single) {
+                bookService.addBookToLibrary(req, 1L);
+            }
+            report(label, "per-book", single.size(), System.nanoTime() - start);
+
+            int offset = 1_000;
+            for (int size : SIZES) {
+                List<AddToLibraryRequest> batch = requests(runId, offset, size);
+                offset += size;
+                start = System.nanoTime();
+                List<BookDTO> out = bookService.addBooksToLibrary(batch, 1L);
+                report(label, "bulk", size, System.nanoTime() - start);
+                assertEquals(size, out.size());
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<AddToLibraryRequest> requests(long runId, int offset, int count) {
+        List<AddToLibraryRequest> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BookDTO book = new BookDTO();
+            book.setIsbn(String.format("97%05d%06d", runId, offset + i));
+            book.setTitle("Benchmark Book " + (offset + i));
+            book.setAuthor("Author " + (i % 97));
+            book.setGenre("Fiction");
+            book.setPageCount(32 + i % 300);
+            AddToLibraryRequest req = new AddToLibraryRequest();
+            req.setBook(book);
+            req.setGenreShelf("General");
+            out.add(req);
+        }
+        return out;
+    }
+
+    private static void report(String db, String mode, int books, long nanos) {
+        // Each imported book writes one books row and one library_books row
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("[bulk-import] %-10s %-8s books=%6d  time=%8.1f ms  rows/s=%10.0f%n",
+            db, mode, books, nanos / 1_000_000.0, (books * 2) / seconds);
+    }
+}
@@ -0,0 +1,70 @@
+package com.littlelibrary.benchmark;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.service.OpenAIService;
+import com.littlelibrary.service.OpenAIStubServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrichment throughput (books/second) of one chat completion per book versus batched
+ * prompts, against a local stub that answers every request after a fixed latency.
+ *
+ * Disabled by default. Run with:
+ *   ./mvnw test -Dtest=OpenAIBatchBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class OpenAIBatchBenchmarkTest {
+
+    private static final int BOOKS = 100;
+    private static final long LATENCY_MS = 50;
+
+    @Test
+    void batchedVersusPerBookThroughput() throws Exception {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book b = new Book("Benchmark Book " + i, "Author " + i, String.format("9781000%06d", i));
+            b.setDescription("A picture book about a curious fox, number " + i + ".");
+            b.setPageCount(32);
+            books.add(b);
+        }
+
+        try (OpenAIStubServer stub = new OpenAIStubServer().latencyMs(LATENCY_MS)) {
+            OpenAIService service = new OpenAIService(stub.baseUrl());
+            ReflectionTestUtils.setField(service, "apiKey", "benchmark-key");
+            ReflectionTestUtils.setField(service, "timeoutMs", 10_000L);
+            service.fetchRecommendations(books.get(0)); // warm up the connection
+
+            long start = System.nanoTime();
+            for (Book book : books) {
+                assertNotNull(service.fetchRecommendations(book));
+            }
+            double perBook = BOOKS / seconds(start);
+
+            System.out.printf("%-10s %-10s %-10s %-12s%n", "batch", "requests", "books/s", "speedup");
+            System.out.printf("%-10d %-10d %-10.1f %-12s%n", 1, BOOKS, perBook, "1.0x");
+
+            for (int batch : new int[] {5, 10, 20}) {
+                ReflectionTestUtils.setField(service, "batchMaxBooks", batch);
+                int before = stub.requestCount();
+                start = System.nanoTime();
+                List<AIRecommendationResponse> results = service.fetchRecommendationsBatch(books);
+                double batched = BOOKS / seconds(start);
+                assertTrue(results.stream().allMatch(r -> r != null));
+                System.out.printf("%-10d %-10d %-10.1f %.1fx%n",
+                    batch, stub.requestCount() - before, batched, batched / perBook);
+            }
+        }
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+}
@@ -0,0 +1,180 @@
+package com.littlelibrary.benchmark;
+
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.service.BarcodeDecoder;
+import com.littlelibrary.service.BookService;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.EAN13Writer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Peak heap per concurrent scan for 50 parallel ~5 MB photo uploads: base64 inside JSON (with
+ * and without subsampled decoding) versus the raw-body upload endpoint.
+ *
+ * Disabled by default. Run with:
+ *   ./mvnw test -Dtest=ScanUploadMemoryBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ScanUploadMemoryBenchmarkTest {
+
+    private static final int PARALLEL = 50;
+    private static final String ISBN = "9780439708180";
+
+    @Test
+    void peakHeapPerConcurrentScan() throws Exception {
+        ConfigurableApplicationContext context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:scanmemory;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.flyway.enabled=false",
+            "--server.tomcat.max-swallow-size=-1",
+            "--scan.batch.concurrency=" + PARALLEL,
+            "--spring.codec.max-in-memory-size=16MB",
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port + "/api/books";
+            BookDTO book = new BookDTO();
+            book.setIsbn(ISBN);
+            book.setTitle("Harry Potter and the Sorcerer's Stone");
+            AddToLibraryRequest req = new AddToLibraryRequest();
+            req.setBook(book);
+            context.getBean(BookService.class).addBooksToLibrary(List.of(req), 1L);
+
+            byte[] photo = photo();
+            String json = "{\"items\":[{\"type\":\"cover\",\"data\":\"data:image/jpeg;base64,"
+                + Base64.getEncoder().encodeToString(photo) + "\"}]}";
+            System.out.printf("photo: %d bytes, JSON body: %d bytes%n", photo.length, json.length());
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            BarcodeDecoder decoder = context.getBean(BarcodeDecoder.class);
+
+            HttpRequest jsonRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/scan/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .timeout(Duration.ofMinutes(2))
+                .build();
+            HttpRequest binaryRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/scan/image"))
+                .header("Content-Type", "image/jpeg")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(photo))
+                .timeout(Duration.ofMinutes(2))
+                .build();
+
+            // Before: base64 JSON and every photo decoded at full camera resolution
+            ReflectionTestUtils.setField(decoder, "maxDecodeDimension", Integer.MAX_VALUE);
+            run("JSON base64, full decode", client, jsonRequest);
+            ReflectionTestUtils.setField(decoder, "maxDecodeDimension", 2048);
+            run("JSON base64, subsampled", client, jsonRequest);
+            long after = run("raw upload, subsampled", client, binaryRequest);
+            assertTrue(after > 0);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long run(String label, HttpClient client, HttpRequest request) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        // Warm-up pass so class loading and pools don't count
+        assertTrue(client.send(request, HttpResponse.BodyHandlers.ofString()).body().contains(ISBN));
+        System.gc();
+        Thread.sleep(200);
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (sampling.get()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                Thread.onSpinWait();
+            }
+        });
+        sampler.start();
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < PARALLEL; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertTrue(response.get().body().contains(ISBN), response.get().body());
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        sampling.set(false);
+        sampler.join();
+        long perScan = (peak.get() - baseline) / PARALLEL;
+        System.out.printf("%-26s peak heap +%d MB, %.1f MB per concurrent scan, %d ms%n",
+            label, (peak.get() - baseline) >> 20, perScan / 1048576.0, elapsedMs);
+        return perScan;
+    }
+
+    // ~5 MB JPEG: a 4000x3000 noisy back cover with the barcode near the bottom
+    private static byte[] photo() throws Exception {
+        BufferedImage image = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int y = 0; y < 3000; y++) {
+            for (int x = 0; x < 4000; x++) {
+                int v = 120 + random.nextInt(100);
+                image.setRGB(x, y, new Color(v, v - 20, v - 40).getRGB());
+            }
+        }
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(2600, 2200, 1100, 600);
+        g.setColor(Color.BLACK);
+        BitMatrix bars = new EAN13Writer().encode(ISBN, BarcodeFormat.EAN_13, 1000, 500);
+        for (int x = 0; x < bars.getWidth(); x++) {
+            if (bars.get(x, 0)) {
+                g.fillRect(2650 + x, 2250, 1, 500);
+            }
+        }
+        g.dispose();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.8f);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
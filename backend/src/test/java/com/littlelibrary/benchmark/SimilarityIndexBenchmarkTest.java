@@ -0,0 +1,99 @@
+package com.littlelibrary.benchmark;
+
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import com.littlelibrary.service.SimilarityIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Query latency of the similar-books index over a synthetic 20k-book catalog.
+ *
+ * Disabled by default. Run with:
+ *   ./mvnw test -Dtest=SimilarityIndexBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SimilarityIndexBenchmarkTest {
+
+    private static final int BOOKS = 20_000;
+    private static final int QUERIES = 20_000;
+
+    @Test
+    void queryLatencyFor20kBooks() {
+        Random random = new Random(42);
+        String[] genres = new String[40];
+        for (int i = 0; i < genres.length; i++) {
+            genres[i] = "Juvenile Fiction / Topic " + i;
+        }
+        String[] vocabulary = new String[5000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "word" + i;
+        }
+        List<Book> catalog = new ArrayList<>(BOOKS);
+        for (int i = 1; i <= BOOKS; i++) {
+            Book b = new Book("Title " + vocabulary[random.nextInt(vocabulary.length)],
+                "Author " + random.nextInt(3000), String.format("978%010d", i));
+            b.setId((long) i);
+            b.setGenre(genres[random.nextInt(genres.length)]);
+            int min = 2 + random.nextInt(10);
+            b.setAgeRangeMin(min);
+            b.setAgeRangeMax(min + 2 + random.nextInt(4));
+            b.setPublisher("Publisher " + random.nextInt(200));
+            b.setPageCount(24 + random.nextInt(400));
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 40; w++) {
+                // Zipf-like: low word numbers are common
+                int idx = (int) (vocabulary.length * Math.pow(random.nextDouble(), 3));
+                description.append(vocabulary[idx]).append(' ');
+            }
+            b.setDescription(description.toString());
+            catalog.add(b);
+        }
+        BookRepository repository = mock(BookRepository.class);
+        when(repository.findAll(any(Pageable.class))).thenAnswer(inv -> {
+            PageRequest page = inv.getArgument(0);
+            int from = (int) Math.min(page.getOffset(), BOOKS);
+            int to = Math.min(from + page.getPageSize(), BOOKS);
+            return new PageImpl<>(catalog.subList(from, to), page, BOOKS);
+        });
+
+        SimilarityIndex index = new SimilarityIndex();
+        ReflectionTestUtils.setField(index, "bookRepository", repository);
+        ReflectionTestUtils.setField(index, "maxTermShare", 0.02);
+
+        long loadStart = System.nanoTime();
+        index.similar(1L, null, null, null, null, 12);
+        long loadMs = (System.nanoTime() - loadStart) / 1_000_000;
+
+        // Warm up, then time individual queries
+        for (int i = 0; i < 5_000; i++) {
+            index.similar((long) (1 + random.nextInt(BOOKS)), null, null, null, null, 12);
+        }
+        long[] micros = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            assertFalse(index.similar((long) (1 + random.nextInt(BOOKS)), null, null, null, null, 12).isEmpty());
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(micros);
+        long avg = Arrays.stream(micros).sum() / QUERIES;
+
+        System.out.printf("books=%d terms=%d load=%d ms%n", BOOKS, index.getStats().get("terms"), loadMs);
+        System.out.printf("query avg=%d us p50=%d us p99=%d us max=%d us%n",
+            avg, micros[QUERIES / 2], micros[QUERIES * 99 / 100], micros[QUERIES - 1]);
+        assertTrue(micros[QUERIES / 2] < 1000, "median query took " + micros[QUERIES / 2] + " us");
+    }
+}
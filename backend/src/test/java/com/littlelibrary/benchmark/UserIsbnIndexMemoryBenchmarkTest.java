@@ -0,0 +1,76 @@
+package com.littlelibrary.benchmark;
+
+import com.littlelibrary.repository.LibraryBookRepository;
+import com.littlelibrary.service.UserIsbnIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Heap cost per user of the duplicate-detection ISBN index for a 10k-book library, compared
+ * with holding the same ISBNs as a HashSet of Strings.
+ *
+ * Disabled by default. Run with:
+ *   ./mvnw test -Dtest=UserIsbnIndexMemoryBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserIsbnIndexMemoryBenchmarkTest {
+
+    private static final int BOOKS = 10_000;
+    private static final int USERS = 50;
+
+    @Test
+    void memoryPerUserFor10kBooks() {
+        List<String> isbns = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            isbns.add(String.format("978%09d%d", 100_000_000 + i * 37, i % 10));
+        }
+        LibraryBookRepository repository = mock(LibraryBookRepository.class);
+        when(repository.findBookIsbnsByUserId(anyLong())).thenReturn(isbns);
+
+        UserIsbnIndex index = new UserIsbnIndex();
+        ReflectionTestUtils.setField(index, "libraryBookRepository", repository);
+        ReflectionTestUtils.setField(index, "maxUsers", USERS);
+
+        long before = usedHeap();
+        for (long user = 1; user <= USERS; user++) {
+            assertTrue(index.isOwned(user, isbns.get((int) user)));
+        }
+        long packedBytes = (usedHeap() - before) / USERS;
+        long estimated = index.getStats().get("estimatedBytes") / USERS;
+
+        // Baseline: a fresh String copy per ISBN, as loading them from the database would produce
+        List<Set<String>> stringSets = new ArrayList<>(USERS);
+        before = usedHeap();
+        for (int user = 0; user < USERS; user++) {
+            Set<String> set = new HashSet<>();
+            for (String isbn : isbns) {
+                set.add(new String(isbn));
+            }
+            stringSets.add(set);
+        }
+        long stringBytes = (usedHeap() - before) / USERS;
+        assertEquals(USERS, stringSets.size());
+
+        System.out.printf("[isbn-index] books=%d  packed long set: %,d bytes/user (estimate %,d, %.1f B/book)"
+                + "  HashSet<String>: %,d bytes/user (%.1f B/book)%n",
+            BOOKS, packedBytes, estimated, packedBytes / (double) BOOKS, stringBytes, stringBytes / (double) BOOKS);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
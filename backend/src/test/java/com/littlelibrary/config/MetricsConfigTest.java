@@ -0,0 +1,88 @@
+package com.littlelibrary.config;
+
+import com.littlelibrary.service.CoShelvingIndex;
+import com.littlelibrary.service.EnrichmentQueue;
+import com.littlelibrary.service.GoogleBooksService;
+import com.littlelibrary.service.IsbnLookupCache;
+import com.littlelibrary.service.OCRService;
+import com.littlelibrary.service.RecommendationCache;
+import com.littlelibrary.service.RecommendationQueryService;
+import com.littlelibrary.service.SimilarityIndex;
+import com.littlelibrary.service.UserIsbnIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stat gauges are registered from fixed names, whatever getStats() answers at startup.
+ */
+public class MetricsConfigTest {
+
+    @Test
+    void componentsFailingAtBindTimeStillGetTheirGauges() {
+        EnrichmentQueue enrichmentQueue = mock(EnrichmentQueue.class);
+        when(enrichmentQueue.getStats()).thenThrow(new IllegalStateException("database unavailable"));
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        new MetricsConfig().serviceStatsMetrics(mock(IsbnLookupCache.class), mock(GoogleBooksService.class),
+            mock(UserIsbnIndex.class), mock(RecommendationCache.class), enrichmentQueue,
+            new RecommendationQueryService(), mock(SimilarityIndex.class), new CoShelvingIndex(),
+            mock(OCRService.class)).bindTo(registry);
+
+        assertEquals(Set.of("pending", "running", "failed", "lagSeconds", "inFlight", "completed", "retried",
+            "failedTotal"), statNames(registry, "enrichment_queue"));
+        assertEquals(0, gauge(registry, "enrichment_queue", "pending").value());
+        assertEquals(16, statNames(registry, "ocr").size());
+        assertEquals(6, statNames(registry, "isbn_lookup_cache").size());
+    }
+
+    @Test
+    void gaugeNamesMatchWhatTheComponentsReport() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CoShelvingIndex coShelvingIndex = new CoShelvingIndex();
+        RecommendationQueryService queryService = new RecommendationQueryService();
+
+        new MetricsConfig().serviceStatsMetrics(mock(IsbnLookupCache.class), mock(GoogleBooksService.class),
+            mock(UserIsbnIndex.class), mock(RecommendationCache.class), mock(EnrichmentQueue.class),
+            queryService, mock(SimilarityIndex.class), coShelvingIndex, mock(OCRService.class)).bindTo(registry);
+
+        assertEquals(coShelvingIndex.getStats().keySet(), statNames(registry, "coshelving_index"));
+        assertEquals(queryService.getStats().keySet(), statNames(registry, "recommendation_query"));
+    }
+
+    @Test
+    void gaugesPickUpValuesOnceTheComponentAnswers() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        Supplier<Map<String, Long>> stats = mock(Supplier.class);
+        when(stats.get()).thenThrow(new IllegalStateException("not yet")).thenReturn(Map.of("pending", 3L));
+
+        MetricsConfig.Snapshot snapshot = MetricsConfig.bind(registry, "queue", stats, List.of("pending", "failed"));
+        assertEquals(0, gauge(registry, "queue", "pending").value());
+
+        ReflectionTestUtils.setField(snapshot, "takenAt", 0L);
+        assertEquals(3, gauge(registry, "queue", "pending").value());
+        assertEquals(0, gauge(registry, "queue", "failed").value());
+    }
+
+    private static Set<String> statNames(MeterRegistry registry, String component) {
+        Collection<Gauge> gauges = registry.find("littlelibrary.stats").tag("component", component).gauges();
+        return gauges.stream().map(g -> g.getId().getTag("stat")).collect(Collectors.toSet());
+    }
+
+    private static Gauge gauge(MeterRegistry registry, String component, String stat) {
+        return registry.get("littlelibrary.stats").tags("component", component, "stat", stat).gauge();
+    }
+}
@@ -0,0 +1,172 @@
+package com.littlelibrary.integration;
+
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.model.Library;
+import com.littlelibrary.model.LibraryBook;
+import com.littlelibrary.repository.BookRepository;
+import com.littlelibrary.repository.EnrichmentJobRepository;
+import com.littlelibrary.repository.LibraryBookRepository;
+import com.littlelibrary.repository.LibraryRepository;
+import com.littlelibrary.service.BookService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk add-to-library upserts: catalog books are reused by ISBN, links the user already has
+ * are updated instead of duplicated, and repeats within one request count once.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class BulkAddToLibraryIntegrationTest {
+
+    private static final Long USER = 1L;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private LibraryBookRepository libraryBookRepository;
+    private EnrichmentJobRepository jobRepository;
+    private Long libraryId;
+
+    @BeforeAll
+    void setUp() {
+        context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:bulkadd;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--spring.flyway.enabled=false",
+            "--enrichment.enabled=false",
+            "--coshelving.enabled=false",
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        libraryBookRepository = context.getBean(LibraryBookRepository.class);
+        jobRepository = context.getBean(EnrichmentJobRepository.class);
+
+        // Creates the user's library
+        bookService.addBooksToLibrary(List.of(request("9780000000019", "Seed", null)), USER);
+        List<Library> libraries = context.getBean(LibraryRepository.class).findByUserId(USER);
+        assertEquals(1, libraries.size());
+        libraryId = libraries.get(0).getId();
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void newIsbnsCreateBooksAndLinks() {
+        List<BookDTO> added = bookService.addBooksToLibrary(List.of(
+            request("9780000001016", "First", "Fantasy"),
+            request("9780000001023", "Second", null)), USER);
+
+        assertEquals(2, added.size());
+        assertEquals("First", added.get(0).getTitle());
+        assertEquals("Fantasy", added.get(0).getGenreShelf());
+        assertEquals("General", added.get(1).getGenreShelf());
+        assertNotNull(link("9780000001016"));
+        assertNotNull(link("9780000001023"));
+        assertNotEquals(added.get(0).getId(), added.get(1).getId());
+    }
+
+    @Test
+    void catalogBooksAreReusedByIsbn() {
+        Book existing = new Book();
+        existing.setIsbn("9780000002013");
+        existing.setTitle("Catalog title");
+        existing = bookRepository.save(existing);
+        long books = bookRepository.count();
+
+        List<BookDTO> added = bookService.addBooksToLibrary(List.of(
+            request("978-0-00-000201-3", "Payload title", null)), USER);
+
+        assertEquals(books, bookRepository.count());
+        assertEquals(existing.getId(), added.get(0).getId());
+        assertEquals("Catalog title", added.get(0).getTitle());
+        assertEquals(existing.getId(), link("9780000002013").getBook().getId());
+    }
+
+    @Test
+    void booksAlreadyOwnedAreUpdatedNotDuplicated() {
+        bookService.addBooksToLibrary(List.of(request("9780000003010", "Owned", "Fantasy")), USER);
+        long links = libraryBookRepository.count();
+        long books = bookRepository.count();
+
+        bookService.addBooksToLibrary(List.of(request("9780000003010", "Owned", "Mystery")), USER);
+
+        assertEquals(links, libraryBookRepository.count());
+        assertEquals(books, bookRepository.count());
+        assertEquals("Mystery", link("9780000003010").getGenreShelf());
+    }
+
+    @Test
+    void repeatsWithinOneRequestCountOnce() {
+        long links = libraryBookRepository.count();
+        long books = bookRepository.count();
+
+        List<BookDTO> added = bookService.addBooksToLibrary(List.of(
+            request("9780000004017", "Repeated", "Fantasy"),
+            request("978-0000004017", "Repeated", "Poetry"),
+            request("9780000004024", "Other", null)), USER);
+
+        assertEquals(2, added.size());
+        assertEquals(books + 2, bookRepository.count());
+        assertEquals(links + 2, libraryBookRepository.count());
+        // The last occurrence decides the shelf
+        assertEquals("Poetry", link("9780000004017").getGenreShelf());
+    }
+
+    @Test
+    void scannedBooksAreQueuedForEnrichmentWhenShelved() {
+        // Saved by a scan (IsbnLookupCache) before the user adds them
+        Book single = new Book();
+        single.setIsbn("9780000005014");
+        single.setTitle("Scanned");
+        single = bookRepository.save(single);
+        Book bulk = new Book();
+        bulk.setIsbn("9780000005021");
+        bulk.setTitle("Scanned too");
+        bulk = bookRepository.save(bulk);
+        assertTrue(jobRepository.findByBookIdIn(List.of(single.getId(), bulk.getId())).isEmpty());
+
+        bookService.addBookToLibrary(request("9780000005014", "Scanned", null), USER);
+        bookService.addBooksToLibrary(List.of(request("9780000005021", "Scanned too", null)), USER);
+
+        assertEquals(2, jobRepository.findByBookIdIn(List.of(single.getId(), bulk.getId())).size());
+    }
+
+    private LibraryBook link(String isbn) {
+        Book book = bookRepository.findByIsbn(isbn).orElseThrow();
+        return libraryBookRepository.findByLibraryIdAndBookId(libraryId, book.getId()).orElse(null);
+    }
+
+    private static AddToLibraryRequest request(String isbn, String title, String genreShelf) {
+        BookDTO book = new BookDTO();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        AddToLibraryRequest request = new AddToLibraryRequest();
+        request.setBook(book);
+        request.setGenreShelf(genreShelf);
+        return request;
+    }
+}
@@ -0,0 +1,123 @@
+package com.littlelibrary.integration;
+
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.service.BookService;
+import com.littlelibrary.service.CoShelvingIndex;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Co-shelving neighbours computed from library_books with plain JDBC, persisted to
+ * book_neighbours and loaded back by a fresh index as after a restart.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CoShelvingIntegrationTest {
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private CoShelvingIndex index;
+    private JdbcTemplate jdbc;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() {
+        context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:coshelving;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.flyway.enabled=false",
+            "--coshelving.enabled=false",
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        bookService = context.getBean(BookService.class);
+        index = context.getBean(CoShelvingIndex.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        // The demo user's library holds A, B and C; D and E are only in other libraries
+        List<AddToLibraryRequest> requests = new ArrayList<>();
+        for (String title : List.of("A", "B", "C", "D", "E")) {
+            BookDTO book = new BookDTO();
+            book.setIsbn("978000000000" + (requests.size() + 1));
+            book.setTitle("Book " + title);
+            AddToLibraryRequest req = new AddToLibraryRequest();
+            req.setBook(book);
+            requests.add(req);
+        }
+        for (BookDTO added : bookService.addBooksToLibrary(requests, 1L)) {
+            ids.add(added.getId());
+        }
+        jdbc.update("DELETE FROM library_books WHERE book_id IN (?, ?)", ids.get(3), ids.get(4));
+
+        // Other libraries: {A,B,D}, {A,B,D}, {A,E}, {C,D}
+        long[][] others = {{0, 1, 3}, {0, 1, 3}, {0, 4}, {2, 3}};
+        long linkId = 100_000;
+        for (long[] books : others) {
+            jdbc.update("INSERT INTO libraries (name, is_shared) VALUES ('Other', false)");
+            Long libraryId = jdbc.queryForObject("SELECT MAX(id) FROM libraries", Long.class);
+            for (long book : books) {
+                jdbc.update("INSERT INTO library_books (id, library_id, book_id, date_added) VALUES (?, ?, ?, ?)",
+                    linkId++, libraryId, ids.get((int) book), Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+            }
+        }
+        index.rebuild();
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void booksShelvedTogetherAreRecommended() {
+        assertEquals(List.of("Book B", "Book D"), titles(bookService.getAlsoShelved(ids.get(0), 12)));
+        assertEquals(List.of("Book B"), titles(bookService.getAlsoShelved(ids.get(0), 1)));
+    }
+
+    @Test
+    void libraryRecommendationsLeaveOutOwnedBooks() {
+        assertEquals(List.of("Book D"), titles(bookService.getAlsoShelvedForLibrary(1L, 12)));
+    }
+
+    @Test
+    void freshIndexLoadsTheStoredNeighbours() {
+        CoShelvingIndex restarted = new CoShelvingIndex();
+        ReflectionTestUtils.setField(restarted, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(restarted, "transactionManager", context.getBean(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(restarted, "fetchSize", 100);
+        ReflectionTestUtils.setField(restarted, "fullRebuildHours", 24L);
+
+        ReflectionTestUtils.invokeMethod(restarted, "load");
+        ReflectionTestUtils.invokeMethod(restarted, "refresh");
+
+        assertEquals(0L, restarted.getStats().get("rebuilds"));
+        assertEquals(index.getStats().get("books"), restarted.getStats().get("books"));
+        assertEquals(List.of(ids.get(1), ids.get(3)),
+            restarted.neighbours(ids.get(0), 12).stream().map(CoShelvingIndex.Neighbour::getBookId).toList());
+    }
+
+    private static List<String> titles(List<BookDTO> books) {
+        return books.stream().map(BookDTO::getTitle).toList();
+    }
+}
@@ -12,7 +12,11 @@ import org.junit.platform.suite.api.SuiteDisplayName;
 @SuiteDisplayName("LittleLibrary Integration Test Suite")
 @SelectClasses({
     MinimalIntegrationTest.class,
-    ImprovedIntegrationTest.class
+    ImprovedIntegrationTest.class,
+    LibraryQueryCountIntegrationTest.class,
+    RecommendationStreamIntegrationTest.class,
+    CoShelvingIntegrationTest.class,
+    ScanUploadIntegrationTest.class
 })
 public class IntegrationTestSuite {
     // Test suite configuration
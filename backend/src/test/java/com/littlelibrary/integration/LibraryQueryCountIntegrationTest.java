@@ -0,0 +1,131 @@
+package com.littlelibrary.integration;
+
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.dto.LibraryPage;
+import com.littlelibrary.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Asserts that loading a library shelf or a page of it costs a constant number of SQL
+ * statements, regardless of how many books are on it (no lazy Book select per LibraryBook).
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LibraryQueryCountIntegrationTest {
+
+    private static final int BOOKS = 60;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private Statistics statistics;
+
+    @BeforeAll
+    void setUp() {
+        context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:querycount;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.flyway.enabled=false",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.generate_statistics=true",
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        bookService = context.getBean(BookService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<AddToLibraryRequest> requests = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            BookDTO book = new BookDTO();
+            book.setIsbn(String.format("9780000%06d", i));
+            book.setTitle("Shelf Book " + i);
+            book.setAuthor("Author " + i);
+            AddToLibraryRequest req = new AddToLibraryRequest();
+            req.setBook(book);
+            req.setGenreShelf(i % 2 == 0 ? "Fantasy" : "Science");
+            requests.add(req);
+        }
+        bookService.addBooksToLibrary(requests, 1L);
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void fullShelfLoadsWithoutPerBookSelects() {
+        statistics.clear();
+
+        List<BookDTO> books = bookService.getUserLibraryBooks(1L, null);
+
+        assertEquals(BOOKS, books.size());
+        assertNotNull(books.get(0).getTitle());
+        // One statement for the library, one for links joined with their books
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void filteredShelfLoadsWithoutPerBookSelects() {
+        statistics.clear();
+
+        List<BookDTO> books = bookService.getUserLibraryBooks(1L, "Fantasy");
+
+        assertEquals(BOOKS / 2, books.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetPagesCoverTheLibraryWithConstantStatementsPerPage() {
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            LibraryPage page = bookService.getUserLibraryPage(1L, null, null, null, cursor, 25);
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertTrue(page.getItems().size() <= 25);
+            for (BookDTO b : page.getItems()) {
+                assertTrue(seen.add(b.getId()), "book returned twice: " + b.getId());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(BOOKS, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void pageFiltersAreAppliedInTheQuery() {
+        LibraryPage page = bookService.getUserLibraryPage(1L, "Science", null, null, null, 100);
+
+        assertEquals(BOOKS / 2, page.getItems().size());
+        assertNull(page.getNextCursor());
+        for (BookDTO b : page.getItems()) {
+            assertEquals("Science", b.getGenreShelf());
+        }
+        assertTrue(bookService.getUserLibraryPage(1L, null, null, true, null, 100).getItems().isEmpty());
+    }
+}
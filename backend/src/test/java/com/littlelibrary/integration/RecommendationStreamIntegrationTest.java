@@ -0,0 +1,157 @@
+package com.littlelibrary.integration;
+
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The SSE recommendation query sends the AI answer without waiting for a slow Google Books
+ * title search, then streams the filtered similar books.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RecommendationStreamIntegrationTest {
+
+    private static final long GOOGLE_LATENCY_MS = 1500;
+
+    private HttpServer googleStub;
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        googleStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        googleStub.setExecutor(Executors.newCachedThreadPool());
+        googleStub.createContext("/volumes", exchange -> {
+            try {
+                Thread.sleep(GOOGLE_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Source book, a duplicate ISBN, one without a cover, and two keepers
+            byte[] body = ("{\"totalItems\":5,\"items\":["
+                + volume("a", "9780439708180", true) + ","
+                + volume("b", "9780439064873", true) + ","
+                + volume("c", "978-0-439-06487-3", true) + ","
+                + volume("d", "9780439136365", false) + ","
+                + volume("e", "9780439139601", true) + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        googleStub.start();
+
+        context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:recstream;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.flyway.enabled=false",
+            "--openai.api.key=",
+            "--google.books.base-url=http://localhost:" + googleStub.getAddress().getPort(),
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/books";
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        googleStub.stop(0);
+    }
+
+    @Test
+    void recommendationArrivesBeforeTheTitleSearchCompletes() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/recommendations/query/stream"))
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"bookId\":424242,\"isbn\":\"978-0-439-70818-0\",\"title\":\"Harry Potter\"}"))
+            .timeout(Duration.ofSeconds(20))
+            .build();
+
+        long start = System.nanoTime();
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+            .send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+
+        List<String> events = new ArrayList<>();
+        List<String> data = new ArrayList<>();
+        long firstEventMs = -1;
+        Iterator<String> lines = response.body().iterator();
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (line.startsWith("event:")) {
+                if (firstEventMs < 0) {
+                    firstEventMs = (System.nanoTime() - start) / 1_000_000;
+                }
+                events.add(line.substring(6).trim());
+            } else if (line.startsWith("data:")) {
+                data.add(line.substring(5).trim());
+            }
+        }
+
+        assertTrue(firstEventMs < GOOGLE_LATENCY_MS, "first event after " + firstEventMs + " ms");
+        assertEquals(List.of("recommendation", "similarBook", "similarBook", "done"), events);
+        assertTrue(data.get(1).contains("9780439064873"));
+        assertTrue(data.get(2).contains("9780439139601"));
+        assertEquals("{\"similarBooks\":2,\"unavailableSources\":[]}", data.get(3));
+    }
+
+    @Test
+    void withoutAnOpenAiKeyTheQueryAnswersWithTheHeuristic() throws Exception {
+        Book book = new Book();
+        book.setTitle("Picture Book");
+        book.setIsbn("9780064430173");
+        book.setGenre("Picture Book");
+        book = context.getBean(BookRepository.class).save(book);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/recommendations/query"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"bookId\":" + book.getId() + "}"))
+            .timeout(Duration.ofSeconds(20))
+            .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.body().contains("pending"), response.body());
+        assertTrue(response.body().contains("\"suggestedMinAge\":"), response.body());
+        assertFalse(response.body().contains("\"suggestedMinAge\":null"), response.body());
+    }
+
+    private static String volume(String id, String isbn, boolean cover) {
+        return "{\"id\":\"" + id + "\",\"volumeInfo\":{\"title\":\"Book " + id + "\",\"authors\":[\"Stub Author\"],"
+            + "\"industryIdentifiers\":[{\"type\":\"ISBN_13\",\"identifier\":\"" + isbn + "\"}]"
+            + (cover ? ",\"imageLinks\":{\"thumbnail\":\"https://covers.example/" + id + ".jpg\"}" : "")
+            + "}}";
+    }
+}
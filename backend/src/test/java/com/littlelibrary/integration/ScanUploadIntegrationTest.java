@@ -0,0 +1,156 @@
+package com.littlelibrary.integration;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.EAN13Writer;
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.service.BookService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Photos uploaded as a raw body or as a multipart file are identified from their barcode
+ * without base64 or JSON; batch scans are answered with one NDJSON line per item.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ScanUploadIntegrationTest {
+
+    private static final String ISBN = "9780439708180";
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private byte[] photo;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:scanupload;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.flyway.enabled=false",
+            "--scan.upload.max-bytes=200000",
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/books";
+
+        BookDTO book = new BookDTO();
+        book.setIsbn(ISBN);
+        book.setTitle("Harry Potter and the Sorcerer's Stone");
+        AddToLibraryRequest req = new AddToLibraryRequest();
+        req.setBook(book);
+        context.getBean(BookService.class).addBooksToLibrary(List.of(req), 1L);
+
+        photo = barcodePhoto(ISBN);
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void rawImageBodyIsIdentified() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/scan/image"))
+            .header("Content-Type", "image/png")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(photo)));
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"status\":\"identified\""), response.body());
+        assertTrue(response.body().contains("\"isDuplicate\":true"), response.body());
+    }
+
+    @Test
+    void multipartUploadIsIdentified() throws Exception {
+        String boundary = "scan-boundary";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"image\"; filename=\"cover.png\"\r\n"
+            + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(photo);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/scan/image"))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())));
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"isbn\":\"" + ISBN + "\""), response.body());
+    }
+
+    @Test
+    void oversizedUploadIsRejected() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/scan/image"))
+            .header("Content-Type", "application/octet-stream")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[300_000])));
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void batchIsStreamedAsOneLinePerItem() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/scan/batch"))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"items\":[{\"type\":\"isbn\",\"data\":\"978-0-439-70818-0\"},null]}")));
+
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().trim().split("\n");
+        assertEquals(2, lines.length, response.body());
+        String identified = lines[0].contains("\"index\":0") ? lines[0] : lines[1];
+        String error = lines[0].contains("\"index\":1") ? lines[0] : lines[1];
+        assertTrue(identified.contains("\"status\":\"identified\""), identified);
+        assertTrue(identified.contains("\"isDuplicate\":true"), identified);
+        assertTrue(error.contains("\"status\":\"error\""), error);
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    static byte[] barcodePhoto(String isbn) throws Exception {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 600, 300);
+        g.setColor(Color.BLACK);
+        BitMatrix bars = new EAN13Writer().encode(isbn, BarcodeFormat.EAN_13, 500, 200);
+        for (int x = 0; x < bars.getWidth(); x++) {
+            if (bars.get(x, 0)) {
+                g.fillRect(50 + x, 50, 1, 200);
+            }
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,147 @@
+package com.littlelibrary.integration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations against a local PostgreSQL and checks with EXPLAIN that every
+ * repository finder can be answered from an index. Sequential scans are disabled for the
+ * session, so the planner only falls back to one when no usable index exists.
+ *
+ * Requires a reachable PostgreSQL; run with e.g.
+ *   ./mvnw verify -Dit.test=SchemaIndexIntegrationTest -Dpostgres.test.url=jdbc:postgresql://localhost:5432/littlelibrary
+ * (optionally -Dpostgres.test.user / -Dpostgres.test.password). Uses its own schema, which is
+ * dropped and recreated on every run.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "postgres.test.url", matches = ".+")
+public class SchemaIndexIntegrationTest {
+
+    private static final String SCHEMA = "index_check";
+
+    private Connection connection;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        String url = System.getProperty("postgres.test.url");
+        String user = System.getProperty("postgres.test.user", "postgres");
+        String password = System.getProperty("postgres.test.password", "password");
+
+        Flyway flyway = Flyway.configure()
+            .dataSource(url, user, password)
+            .schemas(SCHEMA)
+            .locations("classpath:db/migration")
+            .cleanDisabled(false)
+            .load();
+        flyway.clean();
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement st = connection.createStatement()) {
+            st.execute("SET search_path TO " + SCHEMA);
+            st.execute("SET enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    static Stream<Arguments> finders() {
+        return Stream.of(
+            Arguments.of("BookRepository.findByIsbn",
+                "SELECT * FROM books WHERE isbn = '9780439708180'"),
+            Arguments.of("BookRepository.findByIsbnIn",
+                "SELECT * FROM books WHERE isbn IN ('9780439708180', '9780064400558')"),
+            Arguments.of("BookRepository.findByGoogleBooksId",
+                "SELECT * FROM books WHERE google_books_id = 'abc123'"),
+            Arguments.of("BookRepository.findByGenre",
+                "SELECT * FROM books WHERE genre = 'Fantasy'"),
+            Arguments.of("BookRepository.findByAgeRange",
+                "SELECT * FROM books WHERE age_range_min <= 8 AND age_range_max >= 8"),
+            Arguments.of("BookRepository.fullTextSearch",
+                "SELECT b.* FROM books b CROSS JOIN (SELECT to_tsquery('simple', 'harry & pott:*')"
+                    + " || to_tsquery('english', 'harry & pott:*') AS q) query"
+                    + " WHERE b.search_vector @@ query.q ORDER BY ts_rank(b.search_vector, query.q) DESC, b.id LIMIT 20"),
+            Arguments.of("LibraryRepository.findByUserId",
+                "SELECT * FROM libraries WHERE user_id = 1"),
+            Arguments.of("LibraryRepository.findByUserIdAndIsShared",
+                "SELECT * FROM libraries WHERE user_id = 1 AND is_shared = true"),
+            Arguments.of("LibraryBookRepository.findByLibraryId",
+                "SELECT * FROM library_books WHERE library_id = 1"),
+            Arguments.of("LibraryBookRepository.findByLibraryIdAndGenreShelf",
+                "SELECT * FROM library_books WHERE library_id = 1 AND genre_shelf = 'Fantasy'"),
+            Arguments.of("LibraryBookRepository.findByLibraryIdAndAgeShelf",
+                "SELECT * FROM library_books WHERE library_id = 1 AND age_shelf = '6-8'"),
+            Arguments.of("LibraryBookRepository.findByLibraryIdAndIsFavorite",
+                "SELECT * FROM library_books WHERE library_id = 1 AND is_favorite = true"),
+            Arguments.of("LibraryBookRepository.findByLibraryIdAndBookId",
+                "SELECT * FROM library_books WHERE library_id = 1 AND book_id = 2"),
+            Arguments.of("LibraryBookRepository.findByLibraryIdAndBookIdIn",
+                "SELECT * FROM library_books WHERE library_id = 1 AND book_id IN (2, 3, 4)"),
+            Arguments.of("LibraryBookRepository.findByLibraryIdOrderByShelfPosition",
+                "SELECT * FROM library_books WHERE library_id = 1 ORDER BY shelf_position"),
+            Arguments.of("LibraryBookRepository.findWithBookByLibraryId",
+                "SELECT * FROM library_books lb JOIN books b ON b.id = lb.book_id WHERE lb.library_id = 1"),
+            Arguments.of("LibraryBookRepository.findPageWithBook",
+                "SELECT * FROM library_books lb JOIN books b ON b.id = lb.book_id WHERE lb.library_id = 1"
+                    + " AND (lb.date_added < now() OR (lb.date_added = now() AND lb.id < 100))"
+                    + " ORDER BY lb.date_added DESC, lb.id DESC LIMIT 51"),
+            Arguments.of("LibraryBookRepository.existsByUserIdAndBookIsbn",
+                "SELECT COUNT(*) > 0 FROM library_books lb JOIN libraries l ON l.id = lb.library_id"
+                    + " JOIN books b ON b.id = lb.book_id WHERE l.user_id = 1 AND b.isbn = '9780439708180'"),
+            Arguments.of("LibraryBookRepository.existsByUserIdAndBookIsbnIn",
+                "SELECT COUNT(*) > 0 FROM library_books lb JOIN libraries l ON l.id = lb.library_id"
+                    + " JOIN books b ON b.id = lb.book_id WHERE l.user_id = 1"
+                    + " AND b.isbn IN ('9780439708180', '0439708184')"),
+            Arguments.of("LibraryBookRepository.findBookIsbnsByUserId",
+                "SELECT b.isbn FROM library_books lb JOIN libraries l ON l.id = lb.library_id"
+                    + " JOIN books b ON b.id = lb.book_id WHERE l.user_id = 1"),
+            Arguments.of("LibraryBookRepository.findBookIdsByUserId",
+                "SELECT lb.book_id FROM library_books lb JOIN libraries l ON l.id = lb.library_id WHERE l.user_id = 1"),
+            Arguments.of("CoShelvingIndex.linksChangedSince",
+                "SELECT 1 FROM library_books WHERE date_added > now() LIMIT 1"),
+            Arguments.of("CoShelvingIndex.load",
+                "SELECT book_id, neighbours FROM book_neighbours ORDER BY book_id"),
+            Arguments.of("BookRecommendationRepository.findByIsbnAndPromptVersion",
+                "SELECT * FROM book_recommendations WHERE isbn = '9780439708180' AND prompt_version = 'age-v1'"),
+            Arguments.of("EnrichmentJobRepository.findDueIds",
+                "SELECT id FROM enrichment_jobs WHERE status = 'pending' AND next_attempt_at <= now()"
+                    + " ORDER BY next_attempt_at, id LIMIT 2"),
+            Arguments.of("EnrichmentJobRepository.findByBookIdIn",
+                "SELECT * FROM enrichment_jobs WHERE book_id IN (1, 2, 3)"),
+            Arguments.of("UserRepository.findByEmail",
+                "SELECT * FROM users WHERE email = 'demo@example.com'")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finderUsesAnIndex(String finder, String sql) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        assertFalse(plan.toString().contains("Seq Scan"), finder + " is not index-backed:\n" + plan);
+    }
+}
@@ -0,0 +1,151 @@
+package com.littlelibrary.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Closed-loop HTTP load generator on the JDK HttpClient: a fixed number of workers each send
+ * a request, wait for the response and immediately send the next one until the step ends.
+ * Latencies of all responses are kept, so percentiles are exact.
+ */
+class LoadDriver {
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    /**
+     * Run one step: {@code concurrency} workers for {@code duration}, each building its requests
+     * from its own seeded Random.
+     */
+    Result run(String scenario, int concurrency, Duration duration, Function<Random, HttpRequest> requests)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Worker[] workers = new Worker[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(new Random(31L * i + scenario.hashCode()), requests, deadline);
+            threads[i] = new Thread(workers[i], "load-" + scenario + "-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return Result.of(scenario, concurrency, duration, workers);
+    }
+
+    private final class Worker implements Runnable {
+        private final Random random;
+        private final Function<Random, HttpRequest> requests;
+        private final long deadline;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Worker(Random random, Function<Random, HttpRequest> requests, long deadline) {
+            this.random = random;
+            this.requests = requests;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = requests.apply(random);
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    ok = response.statusCode() < 400;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+                if (!ok) {
+                    errors++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Throughput and latency percentiles of one step; errors are 4xx/5xx answers and I/O failures.
+     */
+    static final class Result {
+        final String scenario;
+        final int concurrency;
+        final int requests;
+        final int errors;
+        final double throughput;
+        final double p50Ms;
+        final double p95Ms;
+        final double p99Ms;
+        final double maxMs;
+
+        private Result(String scenario, int concurrency, int requests, int errors, double throughput,
+                       double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+            this.scenario = scenario;
+            this.concurrency = concurrency;
+            this.requests = requests;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+
+        static Result of(String scenario, int concurrency, Duration duration, Worker[] workers) {
+            List<long[]> parts = new ArrayList<>();
+            int total = 0;
+            int errors = 0;
+            for (Worker worker : workers) {
+                parts.add(Arrays.copyOf(worker.latencies, worker.count));
+                total += worker.count;
+                errors += worker.errors;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, all, offset, part.length);
+                offset += part.length;
+            }
+            Arrays.sort(all);
+            return new Result(scenario, concurrency, total, errors, total / (duration.toNanos() / 1e9),
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99),
+                total == 0 ? 0 : all[total - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        static String header() {
+            return String.format("%-16s %6s %9s %7s %9s %9s %9s %9s %9s",
+                "scenario", "conc", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s %6d %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f",
+                scenario, concurrency, requests, errors, throughput, p50Ms, p95Ms, p99Ms, maxMs);
+        }
+    }
+}
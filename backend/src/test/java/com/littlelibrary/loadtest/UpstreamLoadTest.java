@@ -0,0 +1,271 @@
+package com.littlelibrary.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.EAN13Writer;
+import com.littlelibrary.LittleLibraryApplication;
+import com.littlelibrary.dto.AddToLibraryRequest;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.service.BookService;
+import com.littlelibrary.service.GoogleBooksStubServer;
+import com.littlelibrary.service.OpenAIStubServer;
+import com.littlelibrary.service.RekognitionStubServer;
+import com.littlelibrary.service.UpstreamProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test of the user-facing endpoints with Google Books, OpenAI and Rekognition replaced by
+ * local stubs that behave like the real services under load (latency distribution, errors,
+ * rate limits; see UpstreamProfile). For each scenario the concurrency is stepped up and the
+ * throughput and latency percentiles of every step are printed:
+ *
+ *   scan     - POST /scan/image, mostly barcode photos, some without a barcode (Rekognition)
+ *   lookup   - GET /lookup?isbn=..., mostly ISBNs not seen before (Google Books)
+ *   add      - POST /add-to-library with a new book (queues OpenAI enrichment)
+ *   listing  - GET /library?limit=50 over a 2,000-book library
+ *
+ * Disabled by default. Run with:
+ *   ./mvnw test -Dtest=UpstreamLoadTest -Dloadtest=true
+ * Optional: -Dloadtest.concurrency=1,8,32,64 -Dloadtest.seconds=10 -Dloadtest.scenarios=scan,lookup
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UpstreamLoadTest {
+
+    private static final int LIBRARY_BOOKS = 2_000;
+    private static final int BARCODE_PHOTOS = 200;
+    private static final int PLAIN_PHOTOS = 50;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final UpstreamProfile googleProfile = new UpstreamProfile().latency(120, 900).errorRate(0.01).rateLimit(100);
+    private final UpstreamProfile openAiProfile = new UpstreamProfile().latency(1500, 8000).errorRate(0.02).rateLimit(5);
+    private final UpstreamProfile rekognitionProfile = new UpstreamProfile().latency(300, 1500).errorRate(0.01).rateLimit(50);
+
+    private GoogleBooksStubServer google;
+    private OpenAIStubServer openAi;
+    private RekognitionStubServer rekognition;
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private List<byte[]> barcodePhotos;
+    private List<byte[]> plainPhotos;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        google = new GoogleBooksStubServer().profile(googleProfile);
+        openAi = new OpenAIStubServer().profile(openAiProfile);
+        rekognition = new RekognitionStubServer();
+        rekognition.setProfile(rekognitionProfile);
+        rekognition.setLines(List.of("A NOVEL", "ISBN 978-0-439-70818-0"));
+
+        context = SpringApplication.run(LittleLibraryApplication.class,
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.flyway.enabled=false",
+            "--spring.jpa.show-sql=false",
+            "--google.books.base-url=" + google.baseUrl(),
+            "--openai.api.base-url=" + openAi.baseUrl(),
+            "--openai.api.key=load-test",
+            "--aws.access.key.id=load-test",
+            "--aws.secret.access.key=load-test",
+            "--aws.rekognition.endpoint=" + rekognition.endpoint(),
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework=ERROR",
+            "--logging.level.org.hibernate=ERROR");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/books";
+
+        List<AddToLibraryRequest> seed = new ArrayList<>(LIBRARY_BOOKS);
+        Random random = new Random(7);
+        for (int i = 0; i < LIBRARY_BOOKS; i++) {
+            seed.add(addRequest(randomIsbn(random), "Seed book " + i));
+        }
+        context.getBean(BookService.class).addBooksToLibrary(seed, 1L);
+
+        barcodePhotos = new ArrayList<>(BARCODE_PHOTOS);
+        for (int i = 0; i < BARCODE_PHOTOS; i++) {
+            barcodePhotos.add(coverPhoto(random, randomIsbn(random)));
+        }
+        plainPhotos = new ArrayList<>(PLAIN_PHOTOS);
+        for (int i = 0; i < PLAIN_PHOTOS; i++) {
+            plainPhotos.add(coverPhoto(random, null));
+        }
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        for (AutoCloseable stub : new AutoCloseable[] {google, openAi, rekognition}) {
+            try {
+                if (stub != null) {
+                    stub.close();
+                }
+            } catch (Exception ignored) {
+                // best effort
+            }
+        }
+    }
+
+    @Test
+    void throughputAndLatencyUnderIncreasingConcurrency() throws Exception {
+        Map<String, Function<Random, HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("scan", this::scanRequest);
+        scenarios.put("lookup", this::lookupRequest);
+        scenarios.put("add", this::addToLibraryRequest);
+        scenarios.put("listing", this::listingRequest);
+        List<String> selected = List.of(System.getProperty("loadtest.scenarios", String.join(",", scenarios.keySet())).split(","));
+        int[] levels = parseLevels(System.getProperty("loadtest.concurrency", "1,8,32,64"));
+        Duration step = Duration.ofSeconds(Long.getLong("loadtest.seconds", 10));
+
+        LoadDriver driver = new LoadDriver();
+        List<LoadDriver.Result> results = new ArrayList<>();
+        for (String scenario : selected) {
+            Function<Random, HttpRequest> requests = scenarios.get(scenario.trim());
+            assertNotNull(requests, "unknown scenario " + scenario);
+            driver.run(scenario + "-warmup", 4, Duration.ofSeconds(2), requests);
+            for (int concurrency : levels) {
+                LoadDriver.Result result = driver.run(scenario.trim(), concurrency, step, requests);
+                results.add(result);
+                System.out.println(result);
+            }
+        }
+
+        System.out.println();
+        System.out.println(LoadDriver.Result.header());
+        results.forEach(System.out::println);
+        System.out.printf("%nupstream calls: google=%d (%d errors, %d throttled), openai=%d (%d errors, %d throttled), "
+                + "rekognition=%d (%d errors, %d throttled)%n",
+            googleProfile.getRequests(), googleProfile.getErrors(), googleProfile.getThrottled(),
+            openAiProfile.getRequests(), openAiProfile.getErrors(), openAiProfile.getThrottled(),
+            rekognitionProfile.getRequests(), rekognitionProfile.getErrors(), rekognitionProfile.getThrottled());
+
+        for (LoadDriver.Result result : results) {
+            assertTrue(result.requests > result.errors, "no successful requests in " + result);
+        }
+    }
+
+    // 90% barcode photos (decoded locally), 10% without a barcode (Rekognition or the scan cache)
+    private HttpRequest scanRequest(Random random) {
+        byte[] photo = random.nextInt(10) == 0
+            ? plainPhotos.get(random.nextInt(plainPhotos.size()))
+            : barcodePhotos.get(random.nextInt(barcodePhotos.size()));
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/scan/image"))
+            .header("Content-Type", "image/png")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(photo))
+            .build();
+    }
+
+    // One lookup in five repeats a recent ISBN; the rest go to Google Books
+    private HttpRequest lookupRequest(Random random) {
+        String isbn = random.nextInt(5) == 0 ? randomIsbn(new Random(random.nextInt(100))) : randomIsbn(random);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/lookup?isbn=" + isbn)).GET().build();
+    }
+
+    private HttpRequest addToLibraryRequest(Random random) {
+        String isbn = randomIsbn(random);
+        try {
+            byte[] body = mapper.writeValueAsBytes(addRequest(isbn, "Load test book " + isbn));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/add-to-library"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest listingRequest(Random random) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/library?limit=50")).GET().build();
+    }
+
+    private static AddToLibraryRequest addRequest(String isbn, String title) {
+        BookDTO book = new BookDTO();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setAuthor("Load Test");
+        AddToLibraryRequest request = new AddToLibraryRequest();
+        request.setBook(book);
+        return request;
+    }
+
+    private static String randomIsbn(Random random) {
+        StringBuilder digits = new StringBuilder("978");
+        while (digits.length() < 12) {
+            digits.append(random.nextInt(10));
+        }
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits.append((10 - sum % 10) % 10).toString();
+    }
+
+    // A book back with some dark cover art and, unless isbn is null, a barcode at a random spot
+    private static byte[] coverPhoto(Random random, String isbn) throws Exception {
+        BufferedImage image = new BufferedImage(900, 1200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(200 + random.nextInt(56), 200 + random.nextInt(56), 200 + random.nextInt(56)));
+        g.fillRect(0, 0, 900, 1200);
+        for (int i = 0; i < 6; i++) {
+            g.setColor(new Color(random.nextInt(120), random.nextInt(120), random.nextInt(120)));
+            g.fillRect(random.nextInt(800), random.nextInt(700), 40 + random.nextInt(300), 20 + random.nextInt(200));
+        }
+        if (isbn != null) {
+            int left = 60 + random.nextInt(300);
+            int top = 800 + random.nextInt(200);
+            g.setColor(Color.WHITE);
+            g.fillRect(left - 20, top - 20, 440, 200);
+            g.setColor(Color.BLACK);
+            BitMatrix bars = new EAN13Writer().encode(isbn, BarcodeFormat.EAN_13, 400, 160);
+            for (int x = 0; x < bars.getWidth(); x++) {
+                if (bars.get(x, 0)) {
+                    g.fillRect(left + x, top, 1, 160);
+                }
+            }
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static int[] parseLevels(String levels) {
+        String[] parts = levels.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+}
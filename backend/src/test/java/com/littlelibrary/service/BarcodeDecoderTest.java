@@ -0,0 +1,106 @@
+package com.littlelibrary.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.EAN13Writer;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for local EAN-13 decoding on generated barcode photos.
+ */
+public class BarcodeDecoderTest {
+
+    private final BarcodeDecoder decoder = new BarcodeDecoder();
+
+    @Test
+    void decodesAPlainBarcode() throws Exception {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        draw(image, "9780439708180", 50, 50, 500, 200);
+
+        assertEquals("9780439708180", decoder.decodeIsbn(png(image)));
+    }
+
+    @Test
+    void findsASmallBarcodeOnALargeBusyCover() throws Exception {
+        BufferedImage image = cover(3000, 4000);
+        draw(image, "9780064400558", 2300, 3550, 400, 250);
+
+        // Barcode rows 3550-3800 are rows 909-973 of the 768x1024 overview
+        int[] band = BarcodeDecoder.barcodeBand(BarcodeDecoder.Gray.of(image, false, 0, 4000, 768, 1024));
+        assertTrue(band[0] <= 909 && band[1] >= 973 && band[1] - band[0] < 400, band[0] + "-" + band[1]);
+        assertEquals("9780064400558", decoder.decodeIsbn(png(image)));
+    }
+
+    @Test
+    void decodesASidewaysBarcode() throws Exception {
+        BufferedImage upright = new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB);
+        draw(upright, "9780439064873", 100, 80, 600, 240);
+        BufferedImage sideways = new BufferedImage(400, 800, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 400; y++) {
+            for (int x = 0; x < 800; x++) {
+                sideways.setRGB(y, 799 - x, upright.getRGB(x, y));
+            }
+        }
+
+        assertEquals("9780439064873", decoder.decodeIsbn(png(sideways)));
+    }
+
+    @Test
+    void ignoresProductBarcodesAndNonImages() throws Exception {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        draw(image, "4006381333931", 50, 50, 500, 200);
+
+        assertNull(decoder.decodeIsbn(png(image)));
+        assertNull(decoder.decodeIsbn("not an image".getBytes()));
+    }
+
+    // White background with a barcode, quiet zone included
+    static void draw(BufferedImage image, String ean, int left, int top, int width, int height) throws Exception {
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(left - 20, top - 20, width + 40, height + 40);
+        BitMatrix bars = new EAN13Writer().encode(ean, BarcodeFormat.EAN_13, width, height);
+        g.setColor(Color.BLACK);
+        for (int x = 0; x < bars.getWidth(); x++) {
+            if (bars.get(x, 0)) {
+                g.fillRect(left + x, top, 1, height);
+            }
+        }
+        g.dispose();
+    }
+
+    // Colourful blocks and text-like speckle, roughly what a photographed back cover looks like
+    static BufferedImage cover(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        Random random = new Random(7);
+        for (int i = 0; i < 60; i++) {
+            g.setColor(new Color(random.nextInt(0xffffff)));
+            g.fillRect(random.nextInt(width), random.nextInt(height), 100 + random.nextInt(800), 100 + random.nextInt(800));
+        }
+        g.setColor(Color.DARK_GRAY);
+        for (int line = 0; line < 40; line++) {
+            int y = 200 + line * 70;
+            for (int x = 200; x < width - 200; x += 14 + random.nextInt(20)) {
+                g.fillRect(x, y, 6 + random.nextInt(8), 30);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    static byte[] png(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
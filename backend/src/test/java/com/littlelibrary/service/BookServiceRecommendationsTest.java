@@ -0,0 +1,79 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AI recommendations on the request path: stored answers, queueing for
+ * enrichment, and the heuristic when no OpenAI key is configured.
+ */
+public class BookServiceRecommendationsTest {
+
+    private BookRepository bookRepository;
+    private RecommendationCache recommendationCache;
+    private EnrichmentQueue enrichmentQueue;
+    private OpenAIService openAIService;
+    private BookService service;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        recommendationCache = mock(RecommendationCache.class);
+        enrichmentQueue = mock(EnrichmentQueue.class);
+        openAIService = new OpenAIService();
+        service = new BookService();
+        ReflectionTestUtils.setField(service, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(service, "recommendationCache", recommendationCache);
+        ReflectionTestUtils.setField(service, "enrichmentQueue", enrichmentQueue);
+        ReflectionTestUtils.setField(service, "openAIService", openAIService);
+
+        book = new Book();
+        book.setId(7L);
+        book.setIsbn("9780439708180");
+        book.setTitle("Harry Potter and the Sorcerer's Stone");
+        book.setPageCount(309);
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+    }
+
+    @Test
+    void withoutApiKeyTheHeuristicIsReturnedAndNothingIsQueued() {
+        ReflectionTestUtils.setField(openAIService, "apiKey", "");
+
+        AIRecommendationResponse resp = service.getAIRecommendations(7L);
+
+        assertNull(resp.getStatus());
+        assertEquals(6, resp.getSuggestedMinAge());
+        assertEquals(12, resp.getSuggestedMaxAge());
+        verifyNoInteractions(enrichmentQueue);
+    }
+
+    @Test
+    void withApiKeyMissingAnswersAreQueued() {
+        ReflectionTestUtils.setField(openAIService, "apiKey", "test-key");
+
+        AIRecommendationResponse resp = service.getAIRecommendations(7L);
+
+        assertEquals(AIRecommendationResponse.PENDING, resp.getStatus());
+        verify(enrichmentQueue).enqueue(7L);
+    }
+
+    @Test
+    void storedAnswersAreReturnedWithoutApiKey() {
+        ReflectionTestUtils.setField(openAIService, "apiKey", "");
+        AIRecommendationResponse stored = new AIRecommendationResponse();
+        stored.setStatus(AIRecommendationResponse.READY);
+        when(recommendationCache.getStored(book)).thenReturn(stored);
+
+        assertSame(stored, service.getAIRecommendations(7L));
+    }
+}
@@ -0,0 +1,182 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.BatchScanResult;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.dto.ScanRequest;
+import com.littlelibrary.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for batch and single scans (ISBN lookups, barcode decoding and the user's ISBN
+ * index mocked).
+ */
+public class BookServiceScanBatchTest {
+
+    private static final Long USER = 1L;
+
+    private IsbnLookupCache isbnLookupCache;
+    private UserIsbnIndex userIsbnIndex;
+    private OCRService ocrService;
+    private BookService service;
+
+    @BeforeEach
+    void setUp() {
+        isbnLookupCache = mock(IsbnLookupCache.class);
+        userIsbnIndex = mock(UserIsbnIndex.class);
+        ocrService = mock(OCRService.class);
+        service = new BookService();
+        ReflectionTestUtils.setField(service, "isbnLookupCache", isbnLookupCache);
+        ReflectionTestUtils.setField(service, "userIsbnIndex", userIsbnIndex);
+        ReflectionTestUtils.setField(service, "ocrService", ocrService);
+        ReflectionTestUtils.setField(service, "batchScanConcurrency", 8);
+
+        when(isbnLookupCache.getBookByIsbnReactive(anyString())).thenAnswer(inv -> Mono.just(book(inv.getArgument(0))));
+        when(userIsbnIndex.isOwned(anyLong(), anyString())).thenReturn(false);
+    }
+
+    @Test
+    void resultsCarryTheirIndexInCompletionOrder() {
+        // The first item answers last
+        when(isbnLookupCache.getBookByIsbnReactive("9780439708180"))
+            .thenReturn(Mono.just(book("9780439708180")).delayElement(Duration.ofMillis(300)));
+
+        List<BatchScanResult> results = service.scanBatch(List.of(
+            isbn("978-0-439-70818-0"), isbn("9780439064873"), isbn("9780439136365")), USER)
+            .collectList().block();
+
+        assertEquals(List.of(1, 2, 0), indexes(results));
+        Map<Integer, BatchScanResult> byIndex = byIndex(results);
+        assertEquals("9780439708180", byIndex.get(0).getIsbn());
+        assertEquals("9780439708180", byIndex.get(0).getBook().getIsbn());
+        assertEquals("9780439064873", byIndex.get(1).getIsbn());
+        assertEquals(BatchScanResult.IDENTIFIED, byIndex.get(2).getStatus());
+    }
+
+    @Test
+    void repeatsWithinTheBatchAreDuplicatesAfterTheFirst() {
+        Map<Integer, BatchScanResult> results = byIndex(service.scanBatch(List.of(
+            isbn("9780439708180"), isbn("978-0-439-70818-0"), isbn("9780439064873")), USER)
+            .collectList().block());
+
+        assertFalse(results.get(0).getBook().getIsDuplicate());
+        assertTrue(results.get(1).getBook().getIsDuplicate());
+        assertFalse(results.get(2).getBook().getIsDuplicate());
+    }
+
+    @Test
+    void isbnsAlreadyOwnedAreDuplicates() {
+        when(userIsbnIndex.isOwned(USER, "9780439064873")).thenReturn(true);
+
+        Map<Integer, BatchScanResult> results = byIndex(service.scanBatch(List.of(
+            isbn("9780439708180"), isbn("9780439064873")), USER)
+            .collectList().block());
+
+        assertFalse(results.get(0).getBook().getIsDuplicate());
+        assertTrue(results.get(1).getBook().getIsDuplicate());
+        // Each distinct ISBN is checked once, up front
+        verify(userIsbnIndex, times(2)).isOwned(anyLong(), anyString());
+    }
+
+    @Test
+    void badItemsGetAnErrorLineWithoutFailingTheBatch() {
+        when(isbnLookupCache.getBookByIsbnReactive("9780439064873")).thenReturn(Mono.empty());
+        when(isbnLookupCache.getBookByIsbnReactive("9780439136365"))
+            .thenReturn(Mono.error(new RuntimeException("Google Books unavailable")));
+
+        Map<Integer, BatchScanResult> results = byIndex(service.scanBatch(Arrays.asList(
+            isbn("9780439708180"), null, new ScanRequest("cover", null),
+            isbn("9780439064873"), isbn("9780439136365")), USER)
+            .collectList().block());
+
+        assertEquals(5, results.size());
+        assertEquals(BatchScanResult.IDENTIFIED, results.get(0).getStatus());
+        assertEquals(BatchScanResult.ERROR, results.get(1).getStatus());
+        assertEquals(BatchScanResult.ERROR, results.get(2).getStatus());
+        assertEquals(BatchScanResult.NOT_FOUND, results.get(3).getStatus());
+        assertEquals("9780439064873", results.get(3).getIsbn());
+        assertEquals(BatchScanResult.ERROR, results.get(4).getStatus());
+        assertEquals("Google Books unavailable", results.get(4).getError());
+        assertEquals("9780439136365", results.get(4).getIsbn());
+    }
+
+    @Test
+    void singleIsbnScanIsLookedUpAndCheckedAgainstTheLibrary() {
+        when(userIsbnIndex.isOwned(USER, "9780439708180")).thenReturn(true);
+
+        BookDTO book = service.scanAndIdentifyBook(isbn("978-0-439-70818-0"), USER);
+
+        assertEquals("9780439708180", book.getIsbn());
+        assertTrue(book.getIsDuplicate());
+        verifyNoInteractions(ocrService);
+    }
+
+    @Test
+    void singleCoverScanGoesThroughTheBarcodeDecoder() {
+        when(ocrService.extractBarcode("aW1hZ2U=")).thenReturn(Mono.just("978-0-439-06487-3"));
+        when(ocrService.extractBarcode("bm90aGluZw==")).thenReturn(Mono.empty());
+
+        BookDTO book = service.scanAndIdentifyBook(new ScanRequest("cover", "aW1hZ2U="), USER);
+
+        assertEquals("9780439064873", book.getIsbn());
+        assertFalse(book.getIsDuplicate());
+        assertNull(service.scanAndIdentifyBook(new ScanRequest("cover", "bm90aGluZw=="), USER));
+    }
+
+    @Test
+    void singleScanWithoutIsbnOrImageIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.scanAndIdentifyBook(new ScanRequest("isbn", " "), USER));
+        assertThrows(IllegalArgumentException.class, () -> service.scanAndIdentifyBook(null, USER));
+        when(ocrService.extractBarcode("aW1hZ2U=")).thenReturn(Mono.error(new RuntimeException("Rekognition unavailable")));
+        assertThrows(RuntimeException.class, () -> service.scanAndIdentifyBook(new ScanRequest("cover", "aW1hZ2U="), USER));
+    }
+
+    @Test
+    void singleScanKeepsTheIsbnWhenTheLookupFails() {
+        when(isbnLookupCache.getBookByIsbnReactive("9780439136365"))
+            .thenReturn(Mono.error(new RuntimeException("Google Books unavailable")));
+        when(userIsbnIndex.isOwned(USER, "9780439136365")).thenReturn(true);
+
+        BookDTO book = service.scanAndIdentifyBook(isbn("9780439136365"), USER);
+
+        assertEquals("9780439136365", book.getIsbn());
+        assertNull(book.getTitle());
+        assertTrue(book.getIsDuplicate());
+    }
+
+    private static ScanRequest isbn(String isbn) {
+        return new ScanRequest("isbn", isbn);
+    }
+
+    private static Book book(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Book " + isbn);
+        return book;
+    }
+
+    private static List<Integer> indexes(List<BatchScanResult> results) {
+        List<Integer> indexes = new ArrayList<>();
+        results.forEach(r -> indexes.add(r.getIndex()));
+        return indexes;
+    }
+
+    private static Map<Integer, BatchScanResult> byIndex(List<BatchScanResult> results) {
+        return results.stream().collect(Collectors.toMap(BatchScanResult::getIndex, Function.identity()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for catalog search: local matches first, Google Books only when there are too
+ * few of them, merged without repeating an ISBN (catalog and Google Books mocked).
+ */
+public class BookServiceSearchTest {
+
+    private CatalogSearchService catalogSearchService;
+    private GoogleBooksService googleBooksService;
+    private BookService service;
+
+    @BeforeEach
+    void setUp() {
+        catalogSearchService = mock(CatalogSearchService.class);
+        googleBooksService = mock(GoogleBooksService.class);
+        service = new BookService();
+        ReflectionTestUtils.setField(service, "catalogSearchService", catalogSearchService);
+        ReflectionTestUtils.setField(service, "googleBooksService", googleBooksService);
+        ReflectionTestUtils.setField(service, "minLocalSearchResults", 3);
+        ReflectionTestUtils.setField(service, "searchResultLimit", 20);
+    }
+
+    @Test
+    void enoughLocalMatchesSkipGoogleBooks() {
+        when(catalogSearchService.search("gruffalo", 20))
+            .thenReturn(books("local", "9780333710937", "9780230747708", "9781509804764"));
+
+        assertEquals(List.of("9780333710937", "9780230747708", "9781509804764"), isbns(service.searchBooks("gruffalo")));
+        assertEquals(3, service.searchBooksReactive("gruffalo").block().size());
+        verifyNoInteractions(googleBooksService);
+    }
+
+    @Test
+    void googleBooksResultsFollowLocalOnesWithoutRepeatedIsbns() {
+        when(catalogSearchService.search("gruffalo", 20)).thenReturn(books("local", "978-0-333-71093-7"));
+        List<Book> remote = books("google", "9780333710937", "9780230747708", null);
+        when(googleBooksService.searchBooksByTitle("gruffalo")).thenReturn(remote);
+        when(googleBooksService.searchBooksByTitleReactive("gruffalo")).thenReturn(Flux.fromIterable(remote));
+
+        for (List<BookDTO> results : List.of(service.searchBooks("gruffalo"),
+                service.searchBooksReactive("gruffalo").block())) {
+            assertEquals(3, results.size());
+            assertEquals("local 978-0-333-71093-7", results.get(0).getTitle());
+            assertEquals("google 9780230747708", results.get(1).getTitle());
+            // Books without an ISBN can't be matched and are kept
+            assertNull(results.get(2).getIsbn());
+        }
+    }
+
+    @Test
+    void googleBooksFailureKeepsLocalMatches() {
+        when(catalogSearchService.search("gruffalo", 20)).thenReturn(books("local", "9780333710937"));
+        when(googleBooksService.searchBooksByTitle(anyString())).thenThrow(new RuntimeException("unavailable"));
+        when(googleBooksService.searchBooksByTitleReactive(anyString())).thenReturn(Flux.error(new RuntimeException("unavailable")));
+
+        assertEquals(List.of("9780333710937"), isbns(service.searchBooks("gruffalo")));
+        assertEquals(1, service.searchBooksReactive("gruffalo").block().size());
+    }
+
+    @Test
+    void googleBooksFailureWithoutLocalMatchesIsReported() {
+        when(catalogSearchService.search(anyString(), anyInt())).thenReturn(new ArrayList<>());
+        when(googleBooksService.searchBooksByTitle(anyString())).thenThrow(new RuntimeException("unavailable"));
+
+        assertThrows(RuntimeException.class, () -> service.searchBooks("gruffalo"));
+    }
+
+    private static List<Book> books(String source, String... isbns) {
+        List<Book> books = new ArrayList<>();
+        for (String isbn : isbns) {
+            Book book = new Book();
+            book.setIsbn(isbn);
+            book.setTitle(source + " " + isbn);
+            books.add(book);
+        }
+        return books;
+    }
+
+    private static List<String> isbns(List<BookDTO> results) {
+        List<String> isbns = new ArrayList<>();
+        results.forEach(b -> isbns.add(b.getIsbn()));
+        return isbns;
+    }
+}
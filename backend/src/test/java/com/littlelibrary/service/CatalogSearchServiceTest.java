@@ -0,0 +1,100 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for turning free text into a safe prefix tsquery, and for choosing full-text
+ * or LIKE search by the database behind the data source.
+ */
+public class CatalogSearchServiceTest {
+
+    @Test
+    void postgresUsesFullTextSearchWhateverTheUrl() throws Exception {
+        BookRepository repository = mock(BookRepository.class);
+        CatalogSearchService service = service(repository, "PostgreSQL", "jdbc:p6spy:postgresql://db/library");
+
+        service.search("Harry Pott", 20);
+
+        verify(repository).fullTextSearch("harry & pott:*", 20);
+        verify(repository, never()).searchBooks(anyString());
+    }
+
+    @Test
+    void otherDatabasesUseLikeSearchCappedAtTheLimit() throws Exception {
+        BookRepository repository = mock(BookRepository.class);
+        when(repository.searchBooks("harry")).thenReturn(List.of(new Book(), new Book(), new Book()));
+        CatalogSearchService service = service(repository, "H2", "jdbc:h2:mem:test");
+
+        assertEquals(2, service.search(" harry ", 2).size());
+        verify(repository, never()).fullTextSearch(anyString(), anyInt());
+    }
+
+    @Test
+    void unreachableDatabaseFallsBackToLikeSearch() throws Exception {
+        BookRepository repository = mock(BookRepository.class);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("down"));
+        CatalogSearchService service = new CatalogSearchService();
+        ReflectionTestUtils.setField(service, "bookRepository", repository);
+        ReflectionTestUtils.setField(service, "dataSource", dataSource);
+        service.detectDatabase();
+
+        service.search("harry", 20);
+
+        verify(repository).searchBooks("harry");
+    }
+
+    private static CatalogSearchService service(BookRepository repository, String product, String url)
+            throws SQLException {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        when(metaData.getURL()).thenReturn(url);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        CatalogSearchService service = new CatalogSearchService();
+        ReflectionTestUtils.setField(service, "bookRepository", repository);
+        ReflectionTestUtils.setField(service, "dataSource", dataSource);
+        service.detectDatabase();
+        return service;
+    }
+
+    @Test
+    void everyWordIsRequiredAndTheLastIsAPrefix() {
+        assertEquals("harry & pott:*", CatalogSearchService.toPrefixTsQuery("Harry Pott"));
+        assertEquals("gruff:*", CatalogSearchService.toPrefixTsQuery("  gruff "));
+    }
+
+    @Test
+    void operatorsAndPunctuationAreStripped() {
+        assertEquals("charlotte & s & web:*", CatalogSearchService.toPrefixTsQuery("Charlotte's Web!"));
+        assertEquals("a & b:*", CatalogSearchService.toPrefixTsQuery("a|b & !(:*)"));
+    }
+
+    @Test
+    void blankOrSymbolOnlyInputYieldsNoQuery() {
+        assertEquals("", CatalogSearchService.toPrefixTsQuery("   "));
+        assertEquals("", CatalogSearchService.toPrefixTsQuery("&|!:*"));
+    }
+
+    @Test
+    void nonAsciiLettersAreKept() {
+        assertEquals("el & ni\u00f1o:*", CatalogSearchService.toPrefixTsQuery("El Ni\u00d1o"));
+    }
+}
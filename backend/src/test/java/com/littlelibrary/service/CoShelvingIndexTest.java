@@ -0,0 +1,97 @@
+package com.littlelibrary.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the co-shelving computation on in-memory links (no database).
+ */
+public class CoShelvingIndexTest {
+
+    @Test
+    void neighboursAreRankedByCosineAndNeedMinimumSupport() {
+        CoShelvingIndex.Matrix m = CoShelvingIndex.compute(links(500), 2, 20);
+
+        // Book 1 shares three libraries with 2 and two with 4; 3 and 5 only one each
+        assertEquals(List.of(2L, 4L), neighbours(m, 1L));
+        int row = m.rowOf(1L);
+        assertEquals(3 / Math.sqrt(4 * 3), m.scores[m.offsets[row]], 1e-6);
+        // Book 5 never reaches the minimum support, so it gets no row at all
+        assertTrue(m.rowOf(5L) < 0);
+    }
+
+    @Test
+    void onlyTheTopKAreKept() {
+        CoShelvingIndex.Matrix m = CoShelvingIndex.compute(links(500), 1, 2);
+
+        assertEquals(List.of(2L, 4L), neighbours(m, 1L));
+        assertEquals(List.of(1L, 4L), neighbours(m, 2L));
+    }
+
+    @Test
+    void largeLibrariesOnlyCountTheirNewestBooks() {
+        // Library 1 lists books newest first; with a cap of 2 book 3 is ignored there
+        CoShelvingIndex.Matrix m = CoShelvingIndex.compute(links(2), 1, 20);
+
+        assertFalse(neighbours(m, 3L).contains(1L));
+        assertTrue(neighbours(m, 3L).contains(4L));
+    }
+
+    @Test
+    void libraryRecommendationsSumScoresAndSkipOwnedBooks() {
+        CoShelvingIndex index = new CoShelvingIndex();
+        ReflectionTestUtils.setField(index, "matrix", CoShelvingIndex.compute(links(500), 2, 20));
+
+        List<CoShelvingIndex.Neighbour> forLibrary = index.neighbours(List.of(1L, 2L, 3L), 10);
+
+        assertEquals(List.of(4L), forLibrary.stream().map(CoShelvingIndex.Neighbour::getBookId).toList());
+        assertEquals(List.of(2L), index.neighbours(1L, 1).stream().map(CoShelvingIndex.Neighbour::getBookId).toList());
+        assertTrue(index.neighbours(99L, 10).isEmpty());
+        assertEquals(3L, index.getStats().get("lookups"));
+    }
+
+    @Test
+    void longIntHashMapMatchesJavaMapUnderRandomPuts() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            map.put(key, i);
+            reference.put(key, i);
+        }
+        assertEquals(reference.size(), map.size());
+        for (long k = 1; k <= 5_000; k++) {
+            assertEquals(reference.getOrDefault(k, -1), map.get(k, -1), "key " + k);
+        }
+        assertEquals(-1, map.get(0, -1));
+    }
+
+    // Libraries: {1,2,3}, {1,2,4}, {1,2,4}, {1,5}, {3,4}
+    private static CoShelvingIndex.Links links(int maxPerLibrary) {
+        CoShelvingIndex.Links links = new CoShelvingIndex.Links(maxPerLibrary);
+        long[][] libraries = {{1, 2, 3}, {1, 2, 4}, {1, 2, 4}, {1, 5}, {3, 4}};
+        for (int lib = 0; lib < libraries.length; lib++) {
+            for (long book : libraries[lib]) {
+                links.add(lib + 1, book);
+            }
+        }
+        return links;
+    }
+
+    private static List<Long> neighbours(CoShelvingIndex.Matrix m, long bookId) {
+        int row = m.rowOf(bookId);
+        if (row < 0) {
+            return List.of();
+        }
+        return Arrays.stream(m.neighbours, m.offsets[row], m.offsets[row + 1]).boxed().toList();
+    }
+}
@@ -0,0 +1,149 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.model.EnrichmentJob;
+import com.littlelibrary.repository.BookRepository;
+import com.littlelibrary.repository.EnrichmentJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the background enrichment queue (no Spring context, no threads).
+ */
+public class EnrichmentQueueTest {
+
+    private EnrichmentJobRepository jobRepository;
+    private BookRepository bookRepository;
+    private RecommendationCache recommendationCache;
+    private OpenAIService openAIService;
+    private EnrichmentQueue queue;
+    private EnrichmentJob job;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(EnrichmentJobRepository.class);
+        bookRepository = mock(BookRepository.class);
+        recommendationCache = mock(RecommendationCache.class);
+        openAIService = mock(OpenAIService.class);
+        PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        book = new Book("Harry Potter", "J.K. Rowling", "9780439708180");
+        book.setId(7L);
+        job = new EnrichmentJob(7L);
+        job.setId(1L);
+        job.setStatus(EnrichmentJob.RUNNING);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+
+        queue = new EnrichmentQueue();
+        ReflectionTestUtils.setField(queue, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(queue, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(queue, "recommendationCache", recommendationCache);
+        ReflectionTestUtils.setField(queue, "openAIService", openAIService);
+        ReflectionTestUtils.setField(queue, "transactionManager", txManager);
+        ReflectionTestUtils.setField(queue, "workers", 2);
+        ReflectionTestUtils.setField(queue, "ratePerMinute", 60_000);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 2);
+        ReflectionTestUtils.setField(queue, "retryBackoffSeconds", 60L);
+    }
+
+    @Test
+    void successfulEnrichmentCompletesTheJob() {
+        when(recommendationCache.enrichAll(anyList())).thenReturn(List.of(true));
+
+        queue.process(List.of(1L));
+
+        assertEquals(EnrichmentJob.DONE, job.getStatus());
+        assertEquals(1L, queue.getStats().get("completed"));
+    }
+
+    @Test
+    void alreadyStoredBooksSkipTheModel() {
+        when(recommendationCache.getStored(book)).thenReturn(new AIRecommendationResponse());
+
+        queue.process(List.of(1L));
+
+        assertEquals(EnrichmentJob.DONE, job.getStatus());
+        verify(recommendationCache, never()).enrichAll(anyList());
+    }
+
+    @Test
+    void failuresAreRetriedThenMarkedFailed() {
+        when(recommendationCache.enrichAll(anyList())).thenReturn(List.of(false));
+
+        queue.process(List.of(1L));
+        assertEquals(EnrichmentJob.PENDING, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertTrue(job.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        job.setStatus(EnrichmentJob.RUNNING);
+        queue.process(List.of(1L));
+        assertEquals(EnrichmentJob.FAILED, job.getStatus());
+        assertNotNull(job.getLastError());
+    }
+
+    @Test
+    void batchSendsOnlyBooksWithoutStoredRecommendations() {
+        Book stored = new Book("Charlotte's Web", "E.B. White", "9780064400558");
+        stored.setId(8L);
+        EnrichmentJob storedJob = new EnrichmentJob(8L);
+        when(jobRepository.findById(2L)).thenReturn(Optional.of(storedJob));
+        when(bookRepository.findById(8L)).thenReturn(Optional.of(stored));
+        when(recommendationCache.getStored(stored)).thenReturn(new AIRecommendationResponse());
+        when(recommendationCache.enrichAll(List.of(book))).thenReturn(List.of(true));
+
+        queue.process(List.of(1L, 2L));
+
+        verify(recommendationCache).enrichAll(List.of(book));
+        assertEquals(EnrichmentJob.DONE, job.getStatus());
+        assertEquals(EnrichmentJob.DONE, storedJob.getStatus());
+    }
+
+    @Test
+    void enqueueCreatesNewJobsAndRequeuesFinishedOnes() {
+        EnrichmentJob done = new EnrichmentJob(8L);
+        done.setStatus(EnrichmentJob.DONE);
+        done.setAttempts(3);
+        EnrichmentJob pending = new EnrichmentJob(9L);
+        when(jobRepository.findByBookIdIn(anyCollection())).thenReturn(Arrays.asList(done, pending));
+
+        queue.enqueue(Arrays.asList(7L, 8L, 9L, null));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EnrichmentJob>> saved = ArgumentCaptor.forClass(List.class);
+        verify(jobRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(7L, saved.getValue().get(0).getBookId());
+        assertEquals(EnrichmentJob.PENDING, done.getStatus());
+        assertEquals(0, done.getAttempts());
+    }
+
+    @Test
+    void nothingIsPolledWithoutAnApiKey() {
+        when(openAIService.isConfigured()).thenReturn(false);
+
+        assertEquals(0, queue.poll());
+
+        verify(jobRepository, never()).findDueIds(any(), any());
+        verify(jobRepository, never()).claim(any(), any());
+        verifyNoInteractions(recommendationCache);
+    }
+}
@@ -0,0 +1,123 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency test for single-flight lookups against a local stub of the Google Books API.
+ */
+public class GoogleBooksServiceCoalescingTest {
+
+    private static final int CALLERS = 20;
+
+    private HttpServer stub;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private GoogleBooksService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/volumes", exchange -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                // Keep the call in flight long enough for every caller to pile up on it
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String isbn = exchange.getRequestURI().getQuery().replaceAll(".*isbn:([0-9X]+).*", "$1");
+            byte[] body = ("{\"totalItems\":1,\"items\":[{\"id\":\"stub-" + isbn + "\",\"volumeInfo\":{"
+                + "\"title\":\"Book " + isbn + "\",\"authors\":[\"Stub Author\"],"
+                + "\"industryIdentifiers\":[{\"type\":\"ISBN_13\",\"identifier\":\"" + isbn + "\"}]}}]}")
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.start();
+
+        service = new GoogleBooksService("http://localhost:" + stub.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "apiKey", "");
+        ReflectionTestUtils.setField(service, "timeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 1);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+
+    @Test
+    void concurrentIdenticalLookupsShareOneUpstreamCall() throws Exception {
+        List<Book> results = runConcurrently(i -> "978-0439708180");
+
+        assertEquals(1, upstreamCalls.get());
+        for (Book b : results) {
+            assertEquals("Book 9780439708180", b.getTitle());
+            assertEquals("9780439708180", b.getIsbn());
+        }
+        assertEquals(CALLERS - 1, service.getCoalescingStats().get("coalesced"));
+        assertEquals(0L, service.getCoalescingStats().get("inFlight"));
+    }
+
+    @Test
+    void distinctKeysAreNotCoalesced() throws Exception {
+        List<Book> results = runConcurrently(i -> i % 2 == 0 ? "9780439708180" : "9780064400558");
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(CALLERS, results.size());
+        assertEquals(CALLERS - 2, service.getCoalescingStats().get("coalesced"));
+    }
+
+    @Test
+    void completedCallsAreNotReused() {
+        service.getBookByIsbn("9780439708180");
+        service.getBookByIsbn("9780439708180");
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0L, service.getCoalescingStats().get("coalesced"));
+    }
+
+    private List<Book> runConcurrently(java.util.function.IntFunction<String> isbnFor) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Book>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                String isbn = isbnFor.apply(i);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return service.getBookByIsbn(isbn);
+                }));
+            }
+            start.countDown();
+            List<Book> results = new ArrayList<>();
+            for (Future<Book> f : futures) {
+                results.add(f.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reactive lookups, per-attempt timeout and the transient-only retry policy, against
+ * GoogleBooksStubServer.
+ */
+public class GoogleBooksServiceRetryTest {
+
+    private GoogleBooksStubServer stub;
+    private GoogleBooksService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new GoogleBooksStubServer();
+        service = new GoogleBooksService(stub.baseUrl());
+        ReflectionTestUtils.setField(service, "apiKey", "");
+        ReflectionTestUtils.setField(service, "timeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void reactiveLookupsDecodeVolumes() {
+        Book book = service.getBookByIsbnReactive("978-0-306-40615-7").block();
+        List<Book> books = service.searchBooksByTitleReactive("The Lost Key").collectList().block();
+
+        assertEquals("9780306406157", book.getIsbn());
+        assertEquals("Book 9780306406157", book.getTitle());
+        assertEquals(10, books.size());
+        assertEquals("The Lost Key 1", books.get(0).getTitle());
+        assertEquals(2, stub.requestCount());
+    }
+
+    @Test
+    void serverErrorsAreRetriedUpToMaxAttempts() {
+        stub.failNext(503, 1);
+        assertNotNull(service.getBookByIsbnReactive("9780306406157").block());
+        assertEquals(2, stub.requestCount());
+
+        stub.failNext(500, 5);
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> service.getBookByIsbnReactive("9780306406157").block());
+        assertTrue(Exceptions.isRetryExhausted(e));
+        // 2 attempts in all, not 1 + 2 retries
+        assertEquals(4, stub.requestCount());
+    }
+
+    @Test
+    void throttlingIsRetried() {
+        stub.failNext(429, 1);
+        assertNotNull(service.getBookByIsbnReactive("9780306406157").block());
+        assertEquals(2, stub.requestCount());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        stub.failNext(400, 5);
+        WebClientResponseException e = assertThrows(WebClientResponseException.class,
+            () -> service.getBookByIsbnReactive("9780306406157").block());
+
+        assertEquals(400, e.getStatusCode().value());
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void slowAnswersTimeOutPerAttempt() {
+        stub.profile(UpstreamProfile.instant().latency(1500, 1500));
+        ReflectionTestUtils.setField(service, "timeoutMs", 100L);
+
+        long start = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> service.getBookByIsbnReactive("9780306406157").block());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(Exceptions.isRetryExhausted(e));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(2, stub.requestCount());
+        assertTrue(elapsedMs < 1500, "gave up after " + elapsedMs + " ms");
+    }
+}
@@ -0,0 +1,140 @@
+package com.littlelibrary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Google Books volumes endpoint. Every ISBN query is answered with one
+ * volume made up for that ISBN; title and free-text queries get a page of volumes. An
+ * {@link UpstreamProfile} simulates the service's latency, errors and rate limit. Point
+ * GoogleBooksService at it with {@code google.books.base-url}.
+ */
+public class GoogleBooksStubServer implements AutoCloseable {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus;
+    private volatile UpstreamProfile profile = UpstreamProfile.instant();
+
+    public GoogleBooksStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/volumes", exchange -> {
+            requests.incrementAndGet();
+            try {
+                int status = profile.apply();
+                if (status == 0 && failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    status = failureStatus;
+                }
+                if (status != 0) {
+                    exchange.sendResponseHeaders(status, -1);
+                    return;
+                }
+                byte[] body = mapper.writeValueAsBytes(volumes(query(exchange.getRequestURI().getRawQuery())));
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public GoogleBooksStubServer profile(UpstreamProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    /**
+     * Answer the next {@code times} requests with {@code status} instead of volumes.
+     */
+    public GoogleBooksStubServer failNext(int status, int times) {
+        this.failureStatus = status;
+        this.failuresLeft.set(times);
+        return this;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static String query(String rawQuery) {
+        if (rawQuery == null) {
+            return "";
+        }
+        for (String param : rawQuery.split("&")) {
+            if (param.startsWith("q=")) {
+                return URLDecoder.decode(param.substring(2), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+
+    private ObjectNode volumes(String q) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("kind", "books#volumes");
+        ArrayNode items = root.putArray("items");
+        if (q.startsWith("isbn:")) {
+            String isbn = q.substring(5);
+            items.add(volume(isbn, "Book " + isbn));
+        } else {
+            String title = q.startsWith("intitle:") ? q.substring(8) : q;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                items.add(volume(String.valueOf(9780000000000L + Math.floorMod(title.hashCode() * 31L + i, 1_000_000_000L)),
+                    title + " " + (i + 1)));
+            }
+        }
+        root.put("totalItems", items.size());
+        return root;
+    }
+
+    private ObjectNode volume(String isbn, String title) {
+        ObjectNode volume = mapper.createObjectNode();
+        volume.put("kind", "books#volume");
+        volume.put("id", "stub-" + isbn);
+        ObjectNode info = volume.putObject("volumeInfo");
+        info.put("title", title);
+        info.putArray("authors").add("Stub Author");
+        info.put("publisher", "Example Press");
+        info.put("publishedDate", "2015-05-01");
+        info.put("description", "A story about friendship, courage and finding where you belong. ".repeat(6));
+        info.putArray("industryIdentifiers").addObject()
+            .put("type", "ISBN_13")
+            .put("identifier", isbn);
+        info.put("pageCount", 120 + Math.floorMod(isbn.hashCode(), 200));
+        info.putArray("categories").add("Juvenile Fiction / Action & Adventure / General");
+        info.putObject("imageLinks")
+            .put("smallThumbnail", "http://books.google.com/books/content?id=stub-" + isbn + "&img=1&zoom=5")
+            .put("thumbnail", "http://books.google.com/books/content?id=stub-" + isbn + "&img=1&zoom=1");
+        info.put("language", "en");
+        return volume;
+    }
+}
@@ -0,0 +1,123 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ISBN read-through cache (no Spring context, no network).
+ */
+public class IsbnLookupCacheTest {
+
+    private GoogleBooksService googleBooksService;
+    private BookRepository bookRepository;
+    private IsbnLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        googleBooksService = mock(GoogleBooksService.class);
+        bookRepository = mock(BookRepository.class);
+        PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        cache = new IsbnLookupCache();
+        ReflectionTestUtils.setField(cache, "googleBooksService", googleBooksService);
+        ReflectionTestUtils.setField(cache, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(cache, "transactionManager", txManager);
+        ReflectionTestUtils.setField(cache, "similarityIndex", mock(SimilarityIndex.class));
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 60L);
+    }
+
+    @Test
+    void repeatedLookupsHitMemoryAfterFirstFetch() {
+        when(googleBooksService.getBookByIsbn("9780439708180"))
+            .thenReturn(new Book("Harry Potter", "J.K. Rowling", "9780439708180"));
+
+        Book first = cache.getBookByIsbn("978-0-439-70818-0");
+        Book second = cache.getBookByIsbn("9780439708180");
+
+        assertNotNull(first);
+        assertSame(first, second);
+        verify(googleBooksService, times(1)).getBookByIsbn("9780439708180");
+        verify(bookRepository).save(any(Book.class));
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void notFoundIsCachedNegatively() {
+        when(googleBooksService.getBookByIsbn(anyString())).thenReturn(null);
+
+        assertNull(cache.getBookByIsbn("0000000000"));
+        assertNull(cache.getBookByIsbn("0000000000"));
+
+        verify(googleBooksService, times(1)).getBookByIsbn("0000000000");
+        assertEquals(1L, cache.getStats().get("negativeHits"));
+    }
+
+    @Test
+    void databaseTierAvoidsUpstreamCall() {
+        when(bookRepository.findByIsbn("9780064400558"))
+            .thenReturn(Optional.of(new Book("Charlotte's Web", "E.B. White", "9780064400558")));
+
+        assertNotNull(cache.getBookByIsbn("9780064400558"));
+
+        verify(googleBooksService, never()).getBookByIsbn(anyString());
+        assertEquals(1L, cache.getStats().get("databaseHits"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        when(googleBooksService.getBookByIsbn(anyString()))
+            .thenAnswer(inv -> new Book("Title", "Author", inv.getArgument(0)));
+
+        cache.getBookByIsbn("1111111111");
+        cache.getBookByIsbn("2222222222");
+        cache.getBookByIsbn("1111111111");
+        cache.getBookByIsbn("3333333333");
+        cache.getBookByIsbn("1111111111");
+        cache.getBookByIsbn("2222222222");
+
+        assertEquals(2L, cache.getStats().get("size"));
+        assertEquals(2L, cache.getStats().get("evictions"));
+        verify(googleBooksService, times(1)).getBookByIsbn("1111111111");
+        verify(googleBooksService, times(2)).getBookByIsbn("2222222222");
+    }
+
+    @Test
+    void concurrentMissesSaveTheSharedBookOnce() {
+        // The coalesced Google Books call gives every caller the same instance
+        Book shared = new Book("Harry Potter", "J.K. Rowling", "9780439708180");
+        when(googleBooksService.getBookByIsbnReactive("9780439708180"))
+            .thenReturn(Mono.just(shared).delayElement(Duration.ofMillis(200)));
+
+        List<Book> books = Flux.range(0, 8)
+            .flatMap(i -> cache.getBookByIsbnReactive("978-0-439-70818-0"))
+            .collectList()
+            .block();
+
+        assertEquals(8, books.size());
+        assertTrue(books.stream().allMatch(b -> b == shared));
+        verify(googleBooksService, times(1)).getBookByIsbnReactive("9780439708180");
+        verify(bookRepository, times(1)).save(any(Book.class));
+    }
+}
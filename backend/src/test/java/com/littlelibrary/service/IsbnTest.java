@@ -0,0 +1,73 @@
+package com.littlelibrary.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ISBN normalization, validation, packing and extraction from OCR text.
+ */
+public class IsbnTest {
+
+    @Test
+    void validatesIsbnCheckDigits() {
+        assertTrue(Isbn.isValid("9780439708180"));
+        assertFalse(Isbn.isValid("9780439708181"));
+        assertTrue(Isbn.isValid("0439708184"));
+        assertTrue(Isbn.isValid("080442957X"));
+        assertFalse(Isbn.isValid("0439708185"));
+        assertFalse(Isbn.isValid("4006381333931"));
+        assertFalse(Isbn.isValid(null));
+    }
+
+    @Test
+    void normalizeStripsSeparatorsAndUpperCases() {
+        assertEquals("9780439708180", Isbn.normalize("978-0-439-70818-0"));
+        assertEquals("080442957X", Isbn.normalize(" 0 8044 2957 x\t"));
+        assertEquals("", Isbn.normalize(null));
+        String clean = "9780439708180";
+        assertSame(clean, Isbn.normalize(clean));
+    }
+
+    @Test
+    void toLongConvertsIsbn10ToIsbn13() {
+        assertEquals(9780439708180L, Isbn.toLong("0439708184"));
+        assertEquals(9780306406157L, Isbn.toLong("0306406152"));
+        assertEquals(9780439708180L, Isbn.toLong("9780439708180"));
+        assertEquals(-1L, Isbn.toLong("978043970818"));
+        assertEquals(-1L, Isbn.toLong("97804397081X0"));
+    }
+
+    @Test
+    void toIsbn13OnlyAcceptsValidIsbns() {
+        assertEquals("9780439708180", Isbn.toIsbn13("0439708184"));
+        assertEquals("9780804429573", Isbn.toIsbn13("080442957X"));
+        assertEquals("9780439708180", Isbn.toIsbn13("9780439708180"));
+        assertNull(Isbn.toIsbn13("0439708185"));
+    }
+
+    @Test
+    void toIsbn10OnlyConverts978Isbns() {
+        assertEquals("0439708184", Isbn.toIsbn10("9780439708180"));
+        assertEquals("080442957X", Isbn.toIsbn10("9780804429573"));
+        assertEquals("0439708184", Isbn.toIsbn10("0439708184"));
+        assertNull(Isbn.toIsbn10("9791032305690"));
+        assertNull(Isbn.toIsbn10("9780439708181"));
+    }
+
+    @Test
+    void ocrTextCandidatesNeedAValidCheckDigit() {
+        assertEquals("9780439708180", Isbn.find("Price 9780439708181\nISBN 978-0-439-70818-0"));
+        assertEquals("0439708184", Isbn.find("ISBN 0-439-70818-4"));
+        assertNull(Isbn.find("Call 0439708185 today"));
+    }
+
+    @Test
+    void findHandlesCheckDigitXAndNeighbouringNumbers() {
+        assertEquals("080442957X", Isbn.find("ISBN-10: 0-8044-2957-x"));
+        assertEquals("9780439708180", Isbn.find("$12.99 9780439708180 51299"));
+        assertEquals("9780439708180", Isbn.find("ISBN 978 0 439 70818 0"));
+        assertNull(Isbn.find("No numbers here"));
+        assertNull(Isbn.find(null));
+    }
+}
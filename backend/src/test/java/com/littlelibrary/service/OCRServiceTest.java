@@ -0,0 +1,190 @@
+package com.littlelibrary.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
+import software.amazon.awssdk.services.rekognition.model.DetectTextRequest;
+import software.amazon.awssdk.services.rekognition.model.DetectTextResponse;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Barcode scans are answered locally when possible; Rekognition (not configured here) is only
+ * reached when the local decoder finds nothing.
+ */
+public class OCRServiceTest {
+
+    private OCRService ocrService;
+
+    @BeforeEach
+    void setUp() {
+        ocrService = new OCRService();
+        ReflectionTestUtils.setField(ocrService, "barcodeDecoder", new BarcodeDecoder());
+        ReflectionTestUtils.setField(ocrService, "scanResultCache", new ScanResultCache());
+        ReflectionTestUtils.setField(ocrService, "awsAccessKeyId", "");
+        ReflectionTestUtils.setField(ocrService, "awsSecretAccessKey", "");
+    }
+
+    @Test
+    void barcodeIsDecodedWithoutRekognition() throws Exception {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        BarcodeDecoderTest.draw(image, "9780439708180", 50, 50, 500, 200);
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(BarcodeDecoderTest.png(image));
+
+        assertEquals("9780439708180", ocrService.extractBarcodeFromImage(dataUrl));
+        assertEquals(1L, ocrService.getStats().get("localHits"));
+        assertEquals(100L, ocrService.getStats().get("localHitPercent"));
+        assertEquals(0L, ocrService.getStats().get("remoteCalls"));
+    }
+
+    @Test
+    void fallsBackToRekognitionWhenNoBarcodeIsFound() throws Exception {
+        String blank = Base64.getEncoder().encodeToString(
+            BarcodeDecoderTest.png(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB)));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> ocrService.extractBarcodeFromImage(blank));
+
+        assertEquals("AWS Rekognition not configured", e.getCause().getMessage());
+        assertEquals(0L, ocrService.getStats().get("localHitPercent"));
+        assertEquals(1L, ocrService.getStats().get("remoteCalls"));
+    }
+
+    @Test
+    void repeatScansWithoutABarcodeReuseTheRekognitionAnswer() throws Exception {
+        try (RekognitionStubServer stub = new RekognitionStubServer()) {
+            stub.setLines(List.of("HARRY POTTER", "ISBN 978-0-439-70818-0"));
+            ReflectionTestUtils.setField(ocrService, "awsAccessKeyId", "test-key");
+            ReflectionTestUtils.setField(ocrService, "awsSecretAccessKey", "test-secret");
+            ReflectionTestUtils.setField(ocrService, "awsRegion", "us-east-1");
+            ReflectionTestUtils.setField(ocrService, "rekognitionEndpoint", stub.endpoint());
+            ocrService.start();
+            try {
+                // Same cover photographed again, slightly shifted
+                assertEquals("9780439708180", ocrService.extractBarcodeFromImage(panel(100)));
+                assertEquals("9780439708180", ocrService.extractBarcodeFromImage(panel(102)));
+
+                assertEquals(1, stub.getRequests());
+                assertEquals(2L, ocrService.getStats().get("localAttempts"));
+                assertEquals(1L, ocrService.getStats().get("cache.hits"));
+            } finally {
+                ocrService.stop();
+            }
+        }
+    }
+
+    @Test
+    void booksSharingACoverTemplateAreToldApartByTheirBarcodes() throws Exception {
+        // Series volumes: same back-cover layout, different barcodes
+        byte[] first = seriesCover("9780439708180");
+        byte[] second = seriesCover("9780439064873");
+        assertTrue(Long.bitCount(ScanResultCache.hash(ImageIO.read(new ByteArrayInputStream(first)))
+            ^ ScanResultCache.hash(ImageIO.read(new ByteArrayInputStream(second)))) <= 6);
+
+        assertEquals("9780439708180", ocrService.extractBarcodeFromImage(first));
+        assertEquals("9780439064873", ocrService.extractBarcodeFromImage(second));
+        assertEquals(2L, ocrService.getStats().get("localHits"));
+    }
+
+    @Test
+    void slowRekognitionCallsAreCutOffAndCancelled() throws Exception {
+        CompletableFuture<DetectTextResponse> pending = new CompletableFuture<>();
+        RekognitionAsyncClient client = mock(RekognitionAsyncClient.class);
+        when(client.detectText(any(DetectTextRequest.class))).thenReturn(pending);
+        ReflectionTestUtils.setField(ocrService, "rekognitionClient", client);
+        ReflectionTestUtils.setField(ocrService, "callTimeoutMs", 100L);
+        byte[] blank = BarcodeDecoderTest.png(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> ocrService.extractBarcodeFromImage(blank));
+
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(pending.isCancelled());
+        assertEquals(1L, ocrService.getStats().get("remoteTimeouts"));
+    }
+
+    @Test
+    void sdkCallTimeoutsAreCountedAsTimeouts() throws Exception {
+        RekognitionAsyncClient client = mock(RekognitionAsyncClient.class);
+        when(client.detectText(any(DetectTextRequest.class))).thenReturn(
+            CompletableFuture.failedFuture(new CompletionException(ApiCallTimeoutException.create(100))));
+        ReflectionTestUtils.setField(ocrService, "rekognitionClient", client);
+        byte[] blank = BarcodeDecoderTest.png(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB));
+
+        assertThrows(RuntimeException.class, () -> ocrService.extractBarcodeFromImage(blank));
+
+        assertEquals(1L, ocrService.getStats().get("remoteTimeouts"));
+        assertEquals(0L, ocrService.getStats().get("remoteFailures"));
+    }
+
+    @Test
+    void rekognitionIsReachedThroughTheEndpointOverride() throws Exception {
+        try (RekognitionStubServer stub = new RekognitionStubServer()) {
+            stub.setLines(List.of("HARRY POTTER", "ISBN 978-0-439-70818-0"));
+            stub.setLatencyMs(100);
+            ReflectionTestUtils.setField(ocrService, "awsAccessKeyId", "test-key");
+            ReflectionTestUtils.setField(ocrService, "awsSecretAccessKey", "test-secret");
+            ReflectionTestUtils.setField(ocrService, "awsRegion", "us-east-1");
+            ReflectionTestUtils.setField(ocrService, "rekognitionEndpoint", stub.endpoint());
+            ReflectionTestUtils.setField(ocrService, "maxConcurrency", 2);
+            // Different photos without a barcode, so none is answered from the scan cache
+            List<byte[]> photos = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                photos.add(panel(15 + i * 33));
+            }
+            ocrService.start();
+            try {
+                List<String> isbns = Flux.fromIterable(photos)
+                    .flatMap(ocrService::extractBarcode)
+                    .collectList()
+                    .block();
+
+                assertEquals(6, isbns.size());
+                assertTrue(isbns.stream().allMatch("9780439708180"::equals));
+                assertEquals(6, stub.getRequests());
+                assertTrue(stub.getMaxInFlight() <= 2, "max in flight " + stub.getMaxInFlight());
+                assertEquals(6L, ocrService.getStats().get("remoteHits"));
+            } finally {
+                ocrService.stop();
+            }
+        }
+    }
+
+    private static byte[] seriesCover(String isbn) throws Exception {
+        BufferedImage image = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(30, 60, 120));
+        g.fillRect(0, 0, 600, 400);
+        g.setColor(Color.YELLOW);
+        g.fillRect(40, 30, 520, 60);
+        g.dispose();
+        BarcodeDecoderTest.draw(image, isbn, 330, 260, 220, 100);
+        return BarcodeDecoderTest.png(image);
+    }
+
+    // Black up to x, white from there on
+    private static byte[] panel(int x) throws Exception {
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(x, 0, 200 - x, 200);
+        g.dispose();
+        return BarcodeDecoderTest.png(image);
+    }
+}
@@ -0,0 +1,86 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batched recommendation prompts against a local stub of the OpenAI API.
+ */
+public class OpenAIServiceBatchTest {
+
+    private OpenAIStubServer stub;
+    private OpenAIService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new OpenAIStubServer();
+        service = new OpenAIService(stub.baseUrl());
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "timeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "batchMaxBooks", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void booksAreSentInBatchesAndMappedBackInOrder() {
+        List<AIRecommendationResponse> results = service.fetchRecommendationsBatch(books(10));
+
+        assertEquals(3, stub.requestCount());
+        assertEquals(10, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            // Book i is number (i % 4) + 1 within its batch of 4
+            int id = i % 4 + 1;
+            assertEquals(4 + id % 5, results.get(i).getSuggestedMinAge(), "book " + i);
+            assertEquals("Canned answer " + id, results.get(i).getReasoning());
+        }
+    }
+
+    @Test
+    void malformedEntriesFallBackPerBook() {
+        stub.corruptBooks(2);
+        List<Book> books = books(3);
+
+        List<AIRecommendationResponse> raw = service.fetchRecommendationsBatch(books);
+        List<AIRecommendationResponse> results = service.getBookRecommendationsBatch(books);
+
+        assertNull(raw.get(1));
+        assertNotNull(raw.get(0));
+        assertEquals("Canned answer 1", results.get(0).getReasoning());
+        assertEquals(service.createFallbackResponse(books.get(1)).getReasoning(), results.get(1).getReasoning());
+        assertEquals("Canned answer 3", results.get(2).getReasoning());
+    }
+
+    @Test
+    void singleBookPromptStillWorks() {
+        AIRecommendationResponse response = service.fetchRecommendations(books(1).get(0));
+
+        assertNotNull(response);
+        assertEquals(5, response.getSuggestedMinAge());
+        assertEquals(2, response.getThemes().size());
+    }
+
+    static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Book b = new Book("Stub Book " + i, "Author " + i, String.format("9780000%06d", i));
+            b.setDescription("A story about book number " + i + ".");
+            b.setGenre("Fiction");
+            b.setPageCount(40 + i);
+            books.add(b);
+        }
+        return books;
+    }
+}
@@ -0,0 +1,137 @@
+package com.littlelibrary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the OpenAI chat completions endpoint. Replays a canned answer for every
+ * book found in the prompt: a single JSON object for a one-book prompt, a JSON array with one
+ * entry per "Book N:" section for a batch prompt. Books listed in {@link #corruptBooks} get a
+ * malformed entry. An optional fixed latency, or an {@link UpstreamProfile} with latency
+ * distribution, errors and rate limit, simulates the model service.
+ */
+public class OpenAIStubServer implements AutoCloseable {
+
+    private static final Pattern BOOK_HEADER = Pattern.compile("(?m)^Book (\\d+):$");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<Integer> corruptBooks = new HashSet<>();
+    private volatile long latencyMs;
+    private volatile UpstreamProfile profile = UpstreamProfile.instant();
+
+    public OpenAIStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            String prompt = mapper.readTree(exchange.getRequestBody())
+                .path("messages").path(0).path("content").asText();
+            int status = 0;
+            try {
+                if (latencyMs > 0) {
+                    Thread.sleep(latencyMs);
+                }
+                status = profile.apply();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (status != 0) {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = mapper.writeValueAsBytes(completion(prompt));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    public OpenAIStubServer latencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    public OpenAIStubServer profile(UpstreamProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    /** Answer with a malformed entry for these (1-based) book numbers of a batch prompt. */
+    public OpenAIStubServer corruptBooks(Integer... bookNumbers) {
+        corruptBooks.addAll(java.util.Arrays.asList(bookNumbers));
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private ObjectNode completion(String prompt) throws IOException {
+        String content;
+        Matcher m = BOOK_HEADER.matcher(prompt);
+        if (m.find()) {
+            ArrayNode answers = mapper.createArrayNode();
+            do {
+                int id = Integer.parseInt(m.group(1));
+                ObjectNode answer = answer(id);
+                if (corruptBooks.contains(id)) {
+                    answer.remove("suggestedMinAge");
+                }
+                answers.add(answer);
+            } while (m.find());
+            // Models like to wrap JSON in a code fence
+            content = "```json\n" + mapper.writeValueAsString(answers) + "\n```";
+        } else {
+            content = mapper.writeValueAsString(answer(1));
+        }
+        ObjectNode message = mapper.createObjectNode();
+        message.put("role", "assistant");
+        message.put("content", content);
+        ObjectNode choice = mapper.createObjectNode();
+        choice.put("index", 0);
+        choice.set("message", message);
+        ObjectNode root = mapper.createObjectNode();
+        root.put("object", "chat.completion");
+        root.set("choices", mapper.createArrayNode().add(choice));
+        return root;
+    }
+
+    private ObjectNode answer(int id) {
+        ObjectNode answer = mapper.createObjectNode();
+        answer.put("id", id);
+        answer.put("suggestedMinAge", 4 + id % 5);
+        answer.put("suggestedMaxAge", 9 + id % 5);
+        answer.put("reasoning", "Canned answer " + id);
+        answer.put("readingLevel", "Intermediate");
+        answer.set("themes", mapper.createArrayNode().add("Friendship").add("Adventure"));
+        return answer;
+    }
+}
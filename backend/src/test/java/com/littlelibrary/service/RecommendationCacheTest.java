@@ -0,0 +1,155 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.model.BookRecommendation;
+import com.littlelibrary.repository.BookRecommendationRepository;
+import com.littlelibrary.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the AI recommendation store (no Spring context, no network).
+ */
+public class RecommendationCacheTest {
+
+    private static final String ISBN = "9780439708180";
+
+    private OpenAIService openAIService;
+    private BookRepository bookRepository;
+    private BookRecommendationRepository recommendationRepository;
+    private IsbnLookupCache isbnLookupCache;
+    private RecommendationCache cache;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        openAIService = mock(OpenAIService.class);
+        bookRepository = mock(BookRepository.class);
+        recommendationRepository = mock(BookRecommendationRepository.class);
+        isbnLookupCache = mock(IsbnLookupCache.class);
+        PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(recommendationRepository.findByIsbnAndPromptVersion(anyString(), anyString())).thenReturn(Optional.empty());
+        when(recommendationRepository.save(any(BookRecommendation.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        book = new Book("Harry Potter", "J.K. Rowling", ISBN);
+        book.setId(7L);
+        when(bookRepository.findByIsbn(ISBN)).thenReturn(Optional.of(book));
+
+        cache = new RecommendationCache();
+        ReflectionTestUtils.setField(cache, "openAIService", openAIService);
+        ReflectionTestUtils.setField(cache, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(cache, "recommendationRepository", recommendationRepository);
+        ReflectionTestUtils.setField(cache, "transactionManager", txManager);
+        ReflectionTestUtils.setField(cache, "similarityIndex", mock(SimilarityIndex.class));
+        ReflectionTestUtils.setField(cache, "isbnLookupCache", isbnLookupCache);
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+    }
+
+    @Test
+    void modelIsCalledOnceAndTheAnswerIsStoredOnTheBook() {
+        when(openAIService.fetchRecommendations(any(Book.class))).thenReturn(answer(8, 12));
+
+        assertNull(cache.getCachedByBookId(7L));
+        assertTrue(cache.enrich(book));
+        assertTrue(cache.enrich(book));
+        AIRecommendationResponse byIsbn = cache.getCachedByIsbn("978-0-439-70818-0");
+        AIRecommendationResponse byId = cache.getCachedByBookId(7L);
+
+        assertEquals(AIRecommendationResponse.READY, byId.getStatus());
+        assertEquals(Arrays.asList("Friendship", "Courage"), byIsbn.getThemes());
+        assertEquals(12, byId.getSuggestedMaxAge());
+        verify(openAIService, times(1)).fetchRecommendations(any(Book.class));
+        verify(recommendationRepository).save(any(BookRecommendation.class));
+        assertEquals(8, book.getAgeRangeMin());
+        assertEquals(12, book.getAgeRangeMax());
+        // The lookup cache still holds the book without its age range
+        verify(isbnLookupCache).invalidate(ISBN);
+        assertEquals(3L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    void storedLookupNeverCallsTheModel() {
+        assertNull(cache.getStored(book));
+
+        verify(openAIService, never()).fetchRecommendations(any(Book.class));
+    }
+
+    @Test
+    void storedAnswerAvoidsModelCall() {
+        BookRecommendation stored = new BookRecommendation(ISBN, OpenAIService.PROMPT_VERSION);
+        stored.setSuggestedMinAge(9);
+        stored.setSuggestedMaxAge(13);
+        when(recommendationRepository.findByIsbnAndPromptVersion(ISBN, OpenAIService.PROMPT_VERSION))
+            .thenReturn(Optional.of(stored));
+
+        assertEquals(9, cache.getStored(book).getSuggestedMinAge());
+        assertEquals(9, cache.getCachedByBookId(7L).getSuggestedMinAge());
+
+        verify(openAIService, never()).fetchRecommendations(any(Book.class));
+        assertEquals(1L, cache.getStats().get("databaseHits"));
+    }
+
+    @Test
+    void fallbackIsReturnedButNotStored() {
+        AIRecommendationResponse fallback = answer(6, 12);
+        when(openAIService.fetchRecommendations(any(Book.class))).thenReturn(null);
+        when(openAIService.createFallbackResponse(book)).thenReturn(fallback);
+
+        assertSame(fallback, cache.getRecommendations(book));
+        cache.getRecommendations(book);
+
+        verify(openAIService, times(2)).fetchRecommendations(any(Book.class));
+        verify(recommendationRepository, never()).save(any(BookRecommendation.class));
+        assertEquals(2L, cache.getStats().get("fallbacks"));
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        when(openAIService.fetchRecommendations(any(Book.class))).thenReturn(answer(8, 12));
+
+        cache.getRecommendations(book).getThemes().clear();
+
+        assertEquals(2, cache.getRecommendations(book).getThemes().size());
+    }
+
+    @Test
+    void enrichAllSendsMissingBooksInOneBatch() {
+        Book other = new Book("Matilda", "Roald Dahl", "9780142410370");
+        other.setId(8L);
+        Book noIsbn = new Book("Untitled", "Unknown", null);
+        when(openAIService.fetchRecommendationsBatch(anyList())).thenReturn(Arrays.asList(answer(8, 12), null));
+
+        assertEquals(Arrays.asList(true, false, false), cache.enrichAll(Arrays.asList(book, other, noIsbn)));
+
+        verify(openAIService).fetchRecommendationsBatch(List.of(book, other));
+        verify(openAIService, never()).fetchRecommendations(any(Book.class));
+        assertEquals(12, cache.getCachedByBookId(7L).getSuggestedMaxAge());
+        assertNull(cache.getCachedByBookId(8L));
+    }
+
+    private static AIRecommendationResponse answer(int min, int max) {
+        AIRecommendationResponse r = new AIRecommendationResponse();
+        r.setSuggestedMinAge(min);
+        r.setSuggestedMaxAge(max);
+        r.setReadingLevel("Intermediate");
+        r.setReasoning("test");
+        r.setThemes(new ArrayList<>(Arrays.asList("Friendship", "Courage")));
+        return r;
+    }
+}
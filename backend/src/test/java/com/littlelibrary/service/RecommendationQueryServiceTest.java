@@ -0,0 +1,108 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.AIRecommendationResponse;
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.dto.RecommendationQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the concurrent recommendation query (sources mocked with artificial latency).
+ */
+public class RecommendationQueryServiceTest {
+
+    private BookService bookService;
+    private SimilarityIndex similarityIndex;
+    private RecommendationQueryService service;
+    private RecommendationQuery query;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        similarityIndex = mock(SimilarityIndex.class);
+        service = new RecommendationQueryService();
+        ReflectionTestUtils.setField(service, "bookService", bookService);
+        ReflectionTestUtils.setField(service, "similarityIndex", similarityIndex);
+        ReflectionTestUtils.setField(service, "aiTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "googleTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "localTimeoutMs", 2000L);
+
+        query = new RecommendationQuery();
+        query.setBookId(7L);
+        query.setIsbn("9780439708180");
+        query.setTitle("Harry Potter");
+
+        AIRecommendationResponse ai = new AIRecommendationResponse();
+        ai.setSuggestedMinAge(8);
+        when(bookService.getAIRecommendations(7L)).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return ai;
+        });
+        when(bookService.lookupBooksByTitleReactive(anyString()))
+            .thenReturn(Flux.just(book("9780439064873"), book("9780439708180")).delaySequence(Duration.ofMillis(300)));
+        when(similarityIndex.similar(any(), any(), any(), any(), any(), anyInt())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return List.of(book("9780439139601"), book("9780439064873"));
+        });
+    }
+
+    @Test
+    void sourcesRunConcurrentlyAndResultsAreMerged() {
+        long start = System.nanoTime();
+        AIRecommendationResponse resp = service.query(query).block();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Three 300 ms sources: in parallel well under their 900 ms sum
+        assertTrue(elapsedMs < 800, "took " + elapsedMs + " ms");
+        assertEquals(8, resp.getSuggestedMinAge());
+        // Title match first, source book and duplicate ISBN dropped
+        assertEquals(List.of("9780439064873", "9780439139601"),
+            resp.getSimilarBooks().stream().map(BookDTO::getIsbn).toList());
+        assertNull(resp.getUnavailableSources());
+        assertEquals(1L, service.getStats().get("google.calls"));
+        assertTrue(service.getStats().get("local.avgMs") >= 250);
+    }
+
+    @Test
+    void slowSourceIsLeftOutAfterItsDeadline() {
+        ReflectionTestUtils.setField(service, "googleTimeoutMs", 100L);
+
+        AIRecommendationResponse resp = service.query(query).block();
+
+        assertEquals(List.of("google"), resp.getUnavailableSources());
+        assertEquals(List.of("9780439139601", "9780439064873"),
+            resp.getSimilarBooks().stream().map(BookDTO::getIsbn).toList());
+        assertEquals(1L, service.getStats().get("google.timeouts"));
+    }
+
+    @Test
+    void failingSourceStillAnswersWithTheOthers() {
+        when(bookService.getAIRecommendations(7L)).thenThrow(new RuntimeException("database down"));
+
+        AIRecommendationResponse resp = service.query(query).block();
+
+        assertEquals(List.of("ai"), resp.getUnavailableSources());
+        assertNull(resp.getSuggestedMinAge());
+        assertEquals(2, resp.getSimilarBooks().size());
+        assertEquals(1L, service.getStats().get("ai.errors"));
+    }
+
+    private static BookDTO book(String isbn) {
+        BookDTO b = new BookDTO();
+        b.setIsbn(isbn);
+        b.setTitle("Book " + isbn);
+        b.setCoverImageUrl("https://covers.example/" + isbn + ".jpg");
+        return b;
+    }
+}
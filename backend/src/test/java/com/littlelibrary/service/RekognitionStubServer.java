@@ -0,0 +1,109 @@
+package com.littlelibrary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Rekognition endpoint (AWS JSON 1.1 protocol). Answers every
+ * DetectText call with the configured lines; an optional fixed latency or an
+ * {@link UpstreamProfile} simulates the service's response time, errors and throttling.
+ * Point OCRService at it with {@code aws.rekognition.endpoint}.
+ */
+public class RekognitionStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile List<String> lines = List.of();
+    private volatile long latencyMs;
+    private volatile UpstreamProfile profile = UpstreamProfile.instant();
+
+    public RekognitionStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                if (!"RekognitionService.DetectText".equals(exchange.getRequestHeaders().getFirst("X-Amz-Target"))) {
+                    exchange.sendResponseHeaders(400, -1);
+                    return;
+                }
+                if (latencyMs > 0) {
+                    Thread.sleep(latencyMs);
+                }
+                int status = profile.apply();
+                if (status != 0) {
+                    exchange.sendResponseHeaders(status, -1);
+                    return;
+                }
+                byte[] body = mapper.writeValueAsBytes(detectTextResponse());
+                exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.1");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setLines(List<String> lines) {
+        this.lines = lines;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public void setProfile(UpstreamProfile profile) {
+        this.profile = profile;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private ObjectNode detectTextResponse() {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode detections = response.putArray("TextDetections");
+        for (int i = 0; i < lines.size(); i++) {
+            ObjectNode detection = detections.addObject();
+            detection.put("DetectedText", lines.get(i));
+            detection.put("Type", "LINE");
+            detection.put("Id", i);
+            detection.put("Confidence", 99.0);
+        }
+        return response;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package com.littlelibrary.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the perceptual-hash keyed scan result cache.
+ */
+public class ScanResultCacheTest {
+
+    @Test
+    void hashToleratesLightingRecompressionAndSmallShifts() throws Exception {
+        BufferedImage photo = cover(1, 1200, 1600, 0, 0);
+        long hash = ScanResultCache.hash(photo);
+
+        assertTrue(distance(hash, ScanResultCache.hash(brighter(photo, 30))) <= 6);
+        assertTrue(distance(hash, ScanResultCache.hash(jpeg(photo))) <= 6);
+        assertTrue(distance(hash, ScanResultCache.hash(cover(1, 1200, 1600, 12, 8))) <= 6);
+        assertTrue(distance(hash, ScanResultCache.hash(cover(2, 1200, 1600, 0, 0))) > 16);
+    }
+
+    @Test
+    void nearbyHashesFindTheCachedIsbn() {
+        ScanResultCache cache = new ScanResultCache();
+        cache.put(0b1011L, "9780439708180");
+
+        assertEquals("9780439708180", cache.find(0b1011L).isbn);
+        assertEquals("9780439708180", cache.find(0b0110L).isbn);
+        assertNull(cache.find(0xFFFFL));
+        assertEquals(2L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("nearHits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void notFoundResultsExpireSoonerAndTheCacheIsBounded() {
+        ScanResultCache cache = new ScanResultCache();
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", -1L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+
+        cache.put(0L, null);
+        assertNull(cache.find(0L));
+
+        cache.put(0xF0F0_0000_0000_0000L, "9780439708180");
+        cache.put(0x0000_F0F0_0000_0000L, "9780064400558");
+        cache.put(0x0000_0000_F0F0_0000L, "9780439064873");
+        assertNull(cache.find(0xF0F0_0000_0000_0000L));
+        assertEquals("9780439064873", cache.find(0x0000_0000_F0F0_0000L).isbn);
+        assertEquals(2L, cache.getStats().get("size"));
+    }
+
+    private static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // Random coloured blocks, optionally shifted as if the camera moved slightly
+    private static BufferedImage cover(long seed, int width, int height, int dx, int dy) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        Random random = new Random(seed);
+        for (int i = 0; i < 40; i++) {
+            g.setColor(new Color(random.nextInt(0xffffff)));
+            g.fillRect(random.nextInt(width) + dx, random.nextInt(height) + dy, 100 + random.nextInt(500), 100 + random.nextInt(500));
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage brighter(BufferedImage image, int amount) {
+        BufferedImage out = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                Color c = new Color(image.getRGB(x, y));
+                out.setRGB(x, y, new Color(Math.min(255, c.getRed() + amount), Math.min(255, c.getGreen() + amount),
+                    Math.min(255, c.getBlue() + amount)).getRGB());
+            }
+        }
+        return out;
+    }
+
+    private static BufferedImage jpeg(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
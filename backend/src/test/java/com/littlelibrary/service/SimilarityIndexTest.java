@@ -0,0 +1,99 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.model.Book;
+import com.littlelibrary.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the in-memory similar-books index (catalog served from a mocked repository).
+ */
+public class SimilarityIndexTest {
+
+    private final List<Book> catalog = new ArrayList<>();
+    private BookRepository bookRepository;
+    private SimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog.add(book(1L, "The Dragon's Egg", "Ann Writer", "Juvenile Fiction / Fantasy", 8, 12,
+            "A young girl hatches a dragon and must hide it from the village."));
+        catalog.add(book(2L, "Dragon Riders", "Ann Writer", "Juvenile Fiction / Fantasy", 9, 13,
+            "Two friends learn to ride dragons across the mountains."));
+        catalog.add(book(3L, "The Wizard's Apprentice", "Bob Author", "Juvenile Fiction / Fantasy", 8, 12,
+            "An apprentice wizard discovers a hidden dragon library."));
+        catalog.add(book(4L, "Counting Sheep", "Cat Penn", "Juvenile Nonfiction / Concepts", 2, 4,
+            "Count from one to ten with sleepy sheep."));
+        catalog.add(book(5L, "Baby Dragon Goes to Bed", "Dan Ink", "Juvenile Fiction / Fantasy", 2, 5,
+            "A baby dragon gets ready for bed."));
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAll(any(Pageable.class))).thenAnswer(inv -> new PageImpl<>(catalog));
+
+        index = new SimilarityIndex();
+        ReflectionTestUtils.setField(index, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(index, "maxTermShare", 0.5);
+    }
+
+    @Test
+    void sameAuthorAndGenreRankFirstWithinTheAgeRange() {
+        List<BookDTO> similar = index.similar(1L, null, null, null, null, 12);
+
+        // The board book for toddlers shares genre and "dragon" but not the age range
+        assertEquals(List.of(2L, 3L), ids(similar));
+        assertEquals(1L, index.getStats().get("queries"));
+    }
+
+    @Test
+    void requestedAgesOverrideTheSourceBookRange() {
+        List<BookDTO> similar = index.similar(null, "9780000000001", null, 2, 5, 12);
+
+        assertEquals(List.of(5L), ids(similar));
+    }
+
+    @Test
+    void unknownBookFallsBackToGenre() {
+        List<BookDTO> similar = index.similar(99L, null, "Juvenile Nonfiction / Concepts", null, null, 12);
+
+        assertEquals(List.of(4L), ids(similar));
+    }
+
+    @Test
+    void upsertedBooksAreFoundWithoutReloading() {
+        index.similar(1L, null, null, null, null, 12);
+        Book updated = book(4L, "Dragon Numbers", "Ann Writer", "Juvenile Fiction / Fantasy", 8, 10,
+            "Count the dragons in the mountains.");
+
+        index.upsert(updated);
+
+        assertEquals(4L, ids(index.similar(1L, null, null, null, null, 2)).get(1));
+        assertTrue(index.similar(99L, null, "Juvenile Nonfiction / Concepts", null, null, 12).isEmpty());
+        verify(bookRepository, times(1)).findAll(any(Pageable.class));
+        assertEquals(1L, index.getStats().get("upserts"));
+    }
+
+    private static List<Long> ids(List<BookDTO> books) {
+        return books.stream().map(BookDTO::getId).toList();
+    }
+
+    private static Book book(Long id, String title, String author, String genre, int min, int max, String description) {
+        Book b = new Book(title, author, String.format("978%010d", id));
+        b.setId(id);
+        b.setGenre(genre);
+        b.setAgeRangeMin(min);
+        b.setAgeRangeMax(max);
+        b.setDescription(description);
+        b.setPageCount(100 + id.intValue());
+        return b;
+    }
+}
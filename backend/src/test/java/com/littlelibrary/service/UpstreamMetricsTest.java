@@ -0,0 +1,92 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upstream call timers and their outcome/error tags, against the local stubs.
+ */
+public class UpstreamMetricsTest {
+
+    private MeterRegistry registry;
+    private UpstreamMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new UpstreamMetrics(registry);
+    }
+
+    @Test
+    void googleBooksLookupsAreTimedWithResponseSize() throws Exception {
+        try (GoogleBooksStubServer stub = new GoogleBooksStubServer()) {
+            GoogleBooksService service = new GoogleBooksService(stub.baseUrl());
+            ReflectionTestUtils.setField(service, "apiKey", "");
+            ReflectionTestUtils.setField(service, "timeoutMs", 5000L);
+            ReflectionTestUtils.setField(service, "maxAttempts", 1);
+            ReflectionTestUtils.setField(service, "metrics", metrics);
+
+            assertNotNull(service.getBookByIsbn("9780306406157"));
+
+            assertEquals(1, calls("google_books", "isbn", "success", "none"));
+            assertTrue(registry.find("upstream.response.size").tags("service", "google_books").summary().totalAmount() > 0);
+        }
+    }
+
+    @Test
+    void openAiErrorsAreTaggedByKind() throws Exception {
+        try (OpenAIStubServer stub = new OpenAIStubServer()) {
+            OpenAIService service = new OpenAIService(stub.baseUrl());
+            ReflectionTestUtils.setField(service, "apiKey", "test-key");
+            ReflectionTestUtils.setField(service, "timeoutMs", 5000L);
+            ReflectionTestUtils.setField(service, "metrics", metrics);
+            Book book = new Book();
+            book.setTitle("Title");
+
+            stub.profile(UpstreamProfile.instant().errorRate(1.0));
+            assertNull(service.fetchRecommendations(book));
+            // One request per second: the first call gets through, the second is rejected
+            stub.profile(UpstreamProfile.instant().rateLimit(1));
+            assertNotNull(service.fetchRecommendations(book));
+            assertNull(service.fetchRecommendations(book));
+
+            assertEquals(1, calls("openai", "recommendations", "error", "server_error"));
+            assertEquals(1, calls("openai", "recommendations", "error", "throttled"));
+            assertEquals(1, calls("openai", "recommendations", "success", "none"));
+        }
+    }
+
+    @Test
+    void timeoutsAndCancellationsAreRecorded() {
+        Mono<String> slow = Mono.<String>never().timeout(Duration.ofMillis(10));
+        assertThrows(RuntimeException.class, () -> metrics.timed("rekognition", "detect_text", slow).block());
+        metrics.timed("rekognition", "detect_text", Mono.never()).subscribe().dispose();
+
+        assertEquals(1, calls("rekognition", "detect_text", "error", "timeout"));
+        assertEquals(1, calls("rekognition", "detect_text", "cancelled", "none"));
+    }
+
+    @Test
+    void errorKindLooksThroughWrappers() {
+        assertEquals("timeout", UpstreamMetrics.errorKind(new RuntimeException(new TimeoutException())));
+        assertEquals("other", UpstreamMetrics.errorKind(new IllegalStateException("not configured")));
+    }
+
+    private long calls(String service, String operation, String outcome, String error) {
+        Timer timer = registry.find("upstream.requests")
+            .tags("service", service, "operation", operation, "outcome", outcome, "error", error)
+            .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,100 @@
+package com.littlelibrary.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How a stubbed upstream service behaves under load: log-normally distributed latency (given
+ * by its median and 99th percentile), a share of failed calls answered with 500, and a request
+ * rate above which calls are rejected with 429 (token bucket, one second of burst).
+ *
+ * Stub servers call {@link #apply()} before answering a request.
+ */
+public class UpstreamProfile {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    private volatile double medianMs;
+    private volatile double sigma;
+    private volatile double errorRate;
+    private volatile double ratePerSecond;
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+
+    /** Answers immediately, never fails, no rate limit. */
+    public static UpstreamProfile instant() {
+        return new UpstreamProfile();
+    }
+
+    public UpstreamProfile latency(double medianMs, double p99Ms) {
+        this.medianMs = medianMs;
+        this.sigma = medianMs > 0 && p99Ms > medianMs ? Math.log(p99Ms / medianMs) / Z_99 : 0;
+        return this;
+    }
+
+    public UpstreamProfile errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public UpstreamProfile rateLimit(double requestsPerSecond) {
+        synchronized (this) {
+            this.ratePerSecond = requestsPerSecond;
+            this.tokens = requestsPerSecond;
+        }
+        return this;
+    }
+
+    /**
+     * Wait for the simulated latency of one call. Returns the HTTP status the stub should answer
+     * with instead of its normal response (429 or 500), or 0 for a normal response.
+     */
+    public int apply() throws InterruptedException {
+        requests.incrementAndGet();
+        if (!takeToken()) {
+            throttled.incrementAndGet();
+            return 429;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (medianMs > 0) {
+            Thread.sleep((long) (medianMs * Math.exp(sigma * random.nextGaussian())));
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            return 500;
+        }
+        return 0;
+    }
+
+    private synchronized boolean takeToken() {
+        if (ratePerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(ratePerSecond, tokens + (now - refilledAt) / 1e9 * ratePerSecond);
+        refilledAt = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getErrors() {
+        return errors.get();
+    }
+
+    public int getThrottled() {
+        return throttled.get();
+    }
+}
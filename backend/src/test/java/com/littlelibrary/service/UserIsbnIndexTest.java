@@ -0,0 +1,106 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.repository.LibraryBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the per-user ISBN index used for duplicate detection (no Spring context).
+ */
+public class UserIsbnIndexTest {
+
+    private LibraryBookRepository libraryBookRepository;
+    private UserIsbnIndex index;
+
+    @BeforeEach
+    void setUp() {
+        libraryBookRepository = mock(LibraryBookRepository.class);
+        when(libraryBookRepository.findBookIsbnsByUserId(1L))
+            .thenReturn(Arrays.asList("9780439708180", "0064400557"));
+
+        index = new UserIsbnIndex();
+        ReflectionTestUtils.setField(index, "libraryBookRepository", libraryBookRepository);
+        ReflectionTestUtils.setField(index, "maxUsers", 10);
+    }
+
+    @Test
+    void loadsOnceThenAnswersFromMemory() {
+        assertTrue(index.isOwned(1L, "978-0-439-70818-0"));
+        assertFalse(index.isOwned(1L, "9780141321097"));
+        // ISBN-10 in the library matches a scanned ISBN-13 of the same book
+        assertTrue(index.isOwned(1L, "9780064400558"));
+
+        verify(libraryBookRepository, times(1)).findBookIsbnsByUserId(1L);
+        verify(libraryBookRepository, never()).existsByUserIdAndBookIsbn(anyLong(), anyString());
+        assertEquals(2L, index.getStats().get("hits"));
+    }
+
+    @Test
+    void addsAndRemovesKeepTheSetCurrent() {
+        assertFalse(index.isOwned(1L, "9780141321097"));
+
+        index.added(1L, "9780141321097");
+        assertTrue(index.isOwned(1L, "9780141321097"));
+
+        index.removed(1L, "9780439708180");
+        assertFalse(index.isOwned(1L, "9780439708180"));
+        verify(libraryBookRepository, times(1)).findBookIsbnsByUserId(1L);
+    }
+
+    @Test
+    void nonIsbnValuesFallBackToTheDatabase() {
+        when(libraryBookRepository.existsByUserIdAndBookIsbn(1L, "ABC123")).thenReturn(true);
+
+        assertTrue(index.isOwned(1L, "abc123"));
+        assertEquals(1L, index.getStats().get("databaseFallbacks"));
+        verify(libraryBookRepository, never()).findBookIsbnsByUserId(anyLong());
+    }
+
+    @Test
+    void fallbackAfterARacedLoadMatchesBothIsbnForms() {
+        // A write lands while the set is loading, so the load is discarded
+        when(libraryBookRepository.findBookIsbnsByUserId(1L)).thenAnswer(inv -> {
+            index.added(1L, "9780141321097");
+            return Arrays.asList("9780439708180", "0064400557");
+        });
+        when(libraryBookRepository.existsByUserIdAndBookIsbnIn(eq(1L), argThat(isbns -> isbns.contains("0064400557"))))
+            .thenReturn(true);
+
+        // The library has the ISBN-10, the scan reads the ISBN-13
+        assertTrue(index.isOwned(1L, "9780064400558"));
+        verify(libraryBookRepository).existsByUserIdAndBookIsbnIn(1L, Set.of("9780064400558", "0064400557"));
+        assertEquals(1L, index.getStats().get("databaseFallbacks"));
+    }
+
+    @Test
+    void longHashSetMatchesJavaSetUnderRandomAddsAndRemoves() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long value = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(value), set.remove(value));
+            } else {
+                assertEquals(reference.add(value), set.add(value));
+            }
+        }
+        assertEquals(reference.size(), set.size());
+        for (long v = 1; v <= 5_000; v++) {
+            assertEquals(reference.contains(v), set.contains(v), "value " + v);
+        }
+    }
+}
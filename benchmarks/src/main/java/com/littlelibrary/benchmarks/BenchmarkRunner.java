@@ -0,0 +1,41 @@
+package com.littlelibrary.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line and, unless -rf/-rff are
+ * given, writes the results as JSON to results/jmh-&lt;commit&gt;.json, where the commit comes
+ * from the BENCHMARK_COMMIT environment variable ("local" if unset). One file per commit makes
+ * regressions easy to spot by diffing consecutive runs.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp()) {
+            cli.showHelp();
+            return;
+        }
+        if (cli.shouldList()) {
+            new Runner(cli).list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue() && !cli.getResult().hasValue()) {
+            String commit = System.getenv().getOrDefault("BENCHMARK_COMMIT", "local");
+            File out = new File("results", "jmh-" + commit + ".json");
+            out.getParentFile().mkdirs();
+            options.resultFormat(ResultFormatType.JSON).result(out.getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
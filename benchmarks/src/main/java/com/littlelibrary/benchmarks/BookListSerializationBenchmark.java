@@ -0,0 +1,71 @@
+package com.littlelibrary.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.littlelibrary.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a large List&lt;BookDTO&gt; response (a whole library listing), with
+ * an ObjectMapper configured like Spring MVC's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookListSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int books;
+
+    private ObjectMapper mapper;
+    private List<BookDTO> response;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        response = new ArrayList<>(books);
+        LocalDateTime added = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < books; i++) {
+            BookDTO dto = new BookDTO();
+            dto.setId((long) i + 1);
+            dto.setTitle("Book number " + i);
+            dto.setAuthor("Author " + (i % 500));
+            dto.setIsbn(String.valueOf(9780000000000L + i * 7L));
+            dto.setDescription("A story about friendship, courage and finding where you belong. ".repeat(4));
+            dto.setGenre("Juvenile Fiction / Classics");
+            dto.setCoverImageUrl("http://books.google.com/books/content?id=vol" + i + "&printsec=frontcover&img=1&zoom=1");
+            dto.setPublisher("Example Press");
+            dto.setPublicationYear(1950 + i % 70);
+            dto.setPageCount(80 + i % 300);
+            dto.setGoogleBooksId("vol" + i);
+            dto.setDateAdded(added.plusMinutes(i));
+            dto.setIsFavorite(i % 10 == 0);
+            dto.setShelfPosition(i);
+            response.add(dto);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,44 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookService.toDTO over a page of 1,000 books, as done for library listings and search results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMappingBenchmark {
+
+    private BookService bookService;
+    private Book[] books;
+
+    @Setup
+    public void setUp() {
+        bookService = new BookService();
+        books = Fixtures.books(1_000);
+    }
+
+    @Benchmark
+    public void toDTO(Blackhole blackhole) {
+        for (Book book : books) {
+            blackhole.consume(bookService.toDTO(book));
+        }
+    }
+}
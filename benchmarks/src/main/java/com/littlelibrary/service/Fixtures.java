@@ -0,0 +1,52 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.model.Book;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic books shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private static final String[] GENRES = {
+        "Juvenile Fiction / Animals / General", "Juvenile Fiction / Classics",
+        "Juvenile Fiction / Fantasy & Magic", "Juvenile Fiction / Mysteries & Detective Stories"
+    };
+
+    private Fixtures() {
+    }
+
+    static Book[] books(int count) {
+        Random random = new Random(42);
+        Book[] books = new Book[count];
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setId((long) i + 1);
+            book.setTitle("Book number " + i);
+            book.setAuthor("Author " + random.nextInt(500));
+            book.setIsbn(isbn13(random));
+            book.setDescription("A story about friendship, courage and finding where you belong. ".repeat(8));
+            book.setGenre(GENRES[i % GENRES.length]);
+            book.setCoverImageUrl("http://books.google.com/books/content?id=vol" + i + "&printsec=frontcover&img=1&zoom=1");
+            book.setPublisher("Example Press");
+            book.setPublicationYear(1950 + random.nextInt(70));
+            book.setPageCount(80 + random.nextInt(300));
+            book.setGoogleBooksId("vol" + i);
+            books[i] = book;
+        }
+        return books;
+    }
+
+    static String isbn13(Random random) {
+        StringBuilder digits = new StringBuilder("978");
+        while (digits.length() < 12) {
+            digits.append(random.nextInt(10));
+        }
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits.append((10 - sum % 10) % 10).toString();
+    }
+}
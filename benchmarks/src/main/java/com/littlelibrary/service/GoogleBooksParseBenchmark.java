@@ -0,0 +1,63 @@
+package com.littlelibrary.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.littlelibrary.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a Google Books volumes response (20 items, in the API's format) into Book models:
+ * the streaming read used for every search, and the per-item mapping on its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GoogleBooksParseBenchmark {
+
+    private GoogleBooksService service;
+    private byte[] response;
+    private List<JsonNode> items;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = new GoogleBooksService("http://localhost");
+        try (InputStream in = GoogleBooksParseBenchmark.class.getResourceAsStream("/google-books/volumes.json")) {
+            response = in.readAllBytes();
+        }
+        items = new ArrayList<>();
+        new ObjectMapper().readTree(response).get("items").forEach(items::add);
+    }
+
+    @Benchmark
+    public List<Book> readResponse() throws IOException {
+        return service.readItems(new ByteArrayInputStream(response), Integer.MAX_VALUE,
+            service::parseBookFromGoogleBooks);
+    }
+
+    @Benchmark
+    public void parseItems(Blackhole blackhole) {
+        for (JsonNode item : items) {
+            blackhole.consume(service.parseBookFromGoogleBooks(item));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.littlelibrary.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ISBN extraction from Rekognition text (what OCRService does when no barcode could be
+ * decoded) and normalization of a hyphenated ISBN, each next to the regular-expression code
+ * Isbn replaced as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsbnExtractionBenchmark {
+
+    // OCRService's patterns before Isbn.find
+    private static final Pattern ISBN_PATTERN =
+        Pattern.compile("(?:ISBN[\\s-]*(?:13|10)?[\\s-]*:?[\\s-]*)?(\\d{1,5}[\\s-]?\\d{1,7}[\\s-]?\\d{1,7}[\\s-]?[\\dX])");
+    private static final Pattern NUMERIC_PATTERN = Pattern.compile("(\\d{13}|\\d{9}[\\dX])");
+
+    @Param({"hyphenated", "bare", "none"})
+    public String variant;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        String isbnLine = switch (variant) {
+            case "hyphenated" -> "ISBN 978-0-439-70818-0";
+            case "bare" -> "9780439708180";
+            default -> "Visit us online";
+        };
+        text = "HARRY POTTER\nand the Sorcerer's Stone\n\"A magical debut\" - Review Weekly 1998\n"
+            + "Published by Example Press, 1998\nPrinted in 12 countries\n$10.99\n" + isbnLine + "\n51099";
+    }
+
+    @Benchmark
+    public String find() {
+        return Isbn.find(text);
+    }
+
+    @Benchmark
+    public String findRegex() {
+        Matcher matcher = ISBN_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String isbn = matcher.group(1).replaceAll("[\\s-]", "");
+            if (Isbn.isValid(isbn)) {
+                return isbn;
+            }
+        }
+        String joined = text.replaceAll("(?<=\\d)[ -](?=[\\dX])", "");
+        Matcher numericMatcher = NUMERIC_PATTERN.matcher(joined);
+        while (numericMatcher.find()) {
+            String candidate = numericMatcher.group(1);
+            if (Isbn.isValid(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String normalize() {
+        return Isbn.normalize("978-0-439-70818-0");
+    }
+
+    @Benchmark
+    public String normalizeRegex() {
+        return "978-0-439-70818-0".replaceAll("[-\\s]", "").toUpperCase();
+    }
+}
@@ -0,0 +1,64 @@
+package com.littlelibrary.service;
+
+import com.littlelibrary.dto.BookDTO;
+import com.littlelibrary.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The similar-books filter (cover image required, source book and repeated ISBNs dropped) over
+ * 200 candidates, a third of them duplicates or without a usable cover.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimilarBooksFilterBenchmark {
+
+    private List<BookDTO> candidates;
+    private String sourceIsbn;
+
+    @Setup
+    public void setUp() {
+        BookService bookService = new BookService();
+        candidates = new ArrayList<>();
+        Book[] books = Fixtures.books(200);
+        for (int i = 0; i < books.length; i++) {
+            BookDTO dto = bookService.toDTO(books[i]);
+            if (i % 6 == 1) {
+                dto.setCoverImageUrl(null);
+            } else if (i % 6 == 3) {
+                dto.setIsbn(books[i - 1].getIsbn().substring(0, 3) + "-" + books[i - 1].getIsbn().substring(3));
+            }
+            candidates.add(dto);
+        }
+        sourceIsbn = books[0].getIsbn();
+    }
+
+    @Benchmark
+    public int filter() {
+        Predicate<BookDTO> keep = RecommendationQueryService.similarBookFilter(sourceIsbn);
+        int kept = 0;
+        for (BookDTO candidate : candidates) {
+            if (keep.test(candidate)) {
+                kept++;
+            }
+        }
+        return kept;
+    }
+}